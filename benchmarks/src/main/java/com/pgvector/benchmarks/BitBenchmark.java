@@ -0,0 +1,86 @@
+package com.pgvector.benchmarks;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import com.pgvector.BinaryQuantizer;
+import com.pgvector.PGbit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitBenchmark {
+    @Param({"128", "384", "768", "1536", "3072"})
+    int length;
+
+    boolean[] array;
+    byte[] data;
+    float[] floats;
+    PGbit vec;
+    String text;
+    byte[] bytes;
+
+    @Setup
+    public void setup() {
+        array = Data.bits(length);
+        floats = Data.dense(length, 1.0);
+        vec = new PGbit(array);
+        data = vec.toByteArray().clone();
+        text = vec.getValue();
+        bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+    }
+
+    @Benchmark
+    public PGbit setValue() throws SQLException {
+        PGbit v = new PGbit();
+        v.setValue(text);
+        return v;
+    }
+
+    @Benchmark
+    public String getValue() {
+        return vec.getValue();
+    }
+
+    @Benchmark
+    public PGbit setByteValue() throws SQLException {
+        PGbit v = new PGbit();
+        v.setByteValue(bytes, 0);
+        return v;
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        vec.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public PGbit booleanArrayConstructor() {
+        return new PGbit(array);
+    }
+
+    @Benchmark
+    public PGbit byteArrayConstructor() {
+        return new PGbit(data);
+    }
+
+    @Benchmark
+    public PGbit quantize() {
+        return BinaryQuantizer.quantize(floats);
+    }
+}
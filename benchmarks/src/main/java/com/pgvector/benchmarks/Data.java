@@ -0,0 +1,50 @@
+package com.pgvector.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+final class Data {
+    private Data() {
+    }
+
+    static float[] dense(int dimensions, double density) {
+        Random random = new Random(42);
+        float[] v = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            if (random.nextDouble() < density) {
+                v[i] = (float) random.nextGaussian();
+            }
+        }
+        return v;
+    }
+
+    static List<Float> list(float[] v) {
+        List<Float> list = new ArrayList<>(v.length);
+        for (float f : v) {
+            list.add(f);
+        }
+        return list;
+    }
+
+    static Map<Integer, Float> map(float[] v) {
+        Map<Integer, Float> map = new HashMap<>();
+        for (int i = 0; i < v.length; i++) {
+            if (v[i] != 0) {
+                map.put(i, v[i]);
+            }
+        }
+        return map;
+    }
+
+    static boolean[] bits(int length) {
+        Random random = new Random(42);
+        boolean[] v = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            v[i] = random.nextBoolean();
+        }
+        return v;
+    }
+}
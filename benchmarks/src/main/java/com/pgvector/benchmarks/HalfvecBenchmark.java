@@ -0,0 +1,79 @@
+package com.pgvector.benchmarks;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.pgvector.PGhalfvec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HalfvecBenchmark {
+    @Param({"128", "384", "768", "1536", "3072"})
+    int dimensions;
+
+    float[] array;
+    List<Float> list;
+    PGhalfvec vec;
+    String text;
+    byte[] bytes;
+
+    @Setup
+    public void setup() {
+        array = Data.dense(dimensions, 1);
+        list = Data.list(array);
+        vec = new PGhalfvec(array);
+        text = vec.getValue();
+        bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+    }
+
+    @Benchmark
+    public PGhalfvec setValue() throws SQLException {
+        PGhalfvec v = new PGhalfvec();
+        v.setValue(text);
+        return v;
+    }
+
+    @Benchmark
+    public String getValue() {
+        return vec.getValue();
+    }
+
+    @Benchmark
+    public PGhalfvec setByteValue() throws SQLException {
+        PGhalfvec v = new PGhalfvec();
+        v.setByteValue(bytes, 0);
+        return v;
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        vec.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public PGhalfvec arrayConstructor() {
+        return new PGhalfvec(array);
+    }
+
+    @Benchmark
+    public PGhalfvec listConstructor() {
+        return new PGhalfvec(list);
+    }
+}
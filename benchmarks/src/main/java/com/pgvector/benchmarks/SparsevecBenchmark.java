@@ -0,0 +1,106 @@
+package com.pgvector.benchmarks;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import com.pgvector.PGsparsevec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SparsevecBenchmark {
+    @Param({"128", "384", "768", "1536", "3072"})
+    int dimensions;
+
+    // fraction of non-zero elements
+    @Param({"0.01", "0.1", "0.5"})
+    double density;
+
+    float[] array;
+    List<Float> list;
+    Map<Integer, Float> map;
+    PGsparsevec vec;
+    // half of the elements are non-zero
+    PGsparsevec other;
+    float[] dense;
+    String text;
+    byte[] bytes;
+
+    @Setup
+    public void setup() {
+        array = Data.dense(dimensions, density);
+        list = Data.list(array);
+        map = Data.map(array);
+        vec = new PGsparsevec(array);
+        other = new PGsparsevec(Data.dense(dimensions, 0.5));
+        dense = Data.dense(dimensions, 1.0);
+        text = vec.getValue();
+        bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+    }
+
+    @Benchmark
+    public PGsparsevec setValue() throws SQLException {
+        PGsparsevec v = new PGsparsevec();
+        v.setValue(text);
+        return v;
+    }
+
+    @Benchmark
+    public String getValue() {
+        return vec.getValue();
+    }
+
+    @Benchmark
+    public PGsparsevec setByteValue() throws SQLException {
+        PGsparsevec v = new PGsparsevec();
+        v.setByteValue(bytes, 0);
+        return v;
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        vec.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Benchmark
+    public PGsparsevec arrayConstructor() {
+        return new PGsparsevec(array);
+    }
+
+    @Benchmark
+    public PGsparsevec listConstructor() {
+        return new PGsparsevec(list);
+    }
+
+    @Benchmark
+    public PGsparsevec mapConstructor() {
+        return new PGsparsevec(map, dimensions);
+    }
+
+    @Benchmark
+    public double innerProduct() {
+        return vec.innerProduct(other);
+    }
+
+    @Benchmark
+    public double innerProductDense() {
+        return vec.innerProduct(dense);
+    }
+}
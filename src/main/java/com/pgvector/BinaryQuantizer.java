@@ -0,0 +1,193 @@
+package com.pgvector;
+
+/**
+ * Binary quantization of vectors into bit strings.
+ * <p>
+ * A bit is set when the element is greater than 0, like
+ * <code>binary_quantize</code>, or greater than the threshold for its dimension.
+ * Half vector elements are rounded to half precision first. Elements and
+ * thresholds must be finite, like in the server. Bits are packed without
+ * branches, eight elements at a time.
+ */
+public final class BinaryQuantizer {
+    private BinaryQuantizer() {
+    }
+
+    /**
+     * Quantizes a vector.
+     *
+     * @param v float array
+     * @return the bit string
+     */
+    public static PGbit quantize(float[] v) {
+        return quantize(v, null);
+    }
+
+    /**
+     * Quantizes a vector with a threshold for each dimension.
+     *
+     * @param v float array
+     * @param thresholds thresholds, or null for 0
+     * @return the bit string
+     */
+    public static PGbit quantize(float[] v, float[] thresholds) {
+        checkThresholds(thresholds, v.length);
+        byte[] data = new byte[(v.length + 7) / 8];
+        pack(v, 0, v.length, thresholds, false, data, 0);
+        return new PGbit(data, v.length);
+    }
+
+    /**
+     * Quantizes a vector.
+     *
+     * @param v vector
+     * @return the bit string
+     */
+    public static PGbit quantize(PGvector v) {
+        return quantize(v.toArray(), null);
+    }
+
+    /**
+     * Quantizes a vector with a threshold for each dimension.
+     *
+     * @param v vector
+     * @param thresholds thresholds, or null for 0
+     * @return the bit string
+     */
+    public static PGbit quantize(PGvector v, float[] thresholds) {
+        return quantize(v.toArray(), thresholds);
+    }
+
+    /**
+     * Quantizes a half vector.
+     *
+     * @param v half vector
+     * @return the bit string
+     */
+    public static PGbit quantize(PGhalfvec v) {
+        return quantize(v, null);
+    }
+
+    /**
+     * Quantizes a half vector with a threshold for each dimension.
+     *
+     * @param v half vector
+     * @param thresholds thresholds, or null for 0
+     * @return the bit string
+     */
+    public static PGbit quantize(PGhalfvec v, float[] thresholds) {
+        float[] a = v.toArray();
+        checkThresholds(thresholds, a.length);
+        byte[] data = new byte[(a.length + 7) / 8];
+        pack(a, 0, a.length, thresholds, true, data, 0);
+        return new PGbit(data, a.length);
+    }
+
+    /**
+     * Quantizes many vectors.
+     *
+     * @param vectors float arrays with the same dimensions
+     * @param thresholds thresholds, or null for 0
+     * @return the bit strings
+     */
+    public static PGbit[] quantize(float[][] vectors, float[] thresholds) {
+        PGbit[] bits = new PGbit[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            if (i > 0) {
+                Distances.checkDimensions("vector", vectors[0].length, vectors[i].length);
+            }
+            bits[i] = quantize(vectors[i], thresholds);
+        }
+        return bits;
+    }
+
+    /**
+     * Quantizes vectors stored consecutively in a matrix into packed bits,
+     * <code>(dimensions + 7) / 8</code> bytes for each vector.
+     *
+     * @param matrix vectors, one after another
+     * @param count number of vectors
+     * @param dimensions number of dimensions
+     * @param thresholds thresholds, or null for 0
+     * @param out packed bits
+     */
+    public static void quantize(float[] matrix, int count, int dimensions, float[] thresholds, byte[] out) {
+        checkThresholds(thresholds, dimensions);
+        int stride = (dimensions + 7) / 8;
+        if ((long) count * dimensions > matrix.length) {
+            throw new IllegalArgumentException("matrix too small for " + count + " vectors");
+        }
+        if ((long) count * stride > out.length) {
+            throw new IllegalArgumentException("output too small for " + count + " vectors");
+        }
+        for (int i = 0; i < count; i++) {
+            pack(matrix, i * dimensions, dimensions, thresholds, false, out, i * stride);
+        }
+    }
+
+    /**
+     * Returns the mean of each dimension, for use as thresholds.
+     *
+     * @param matrix vectors, one after another
+     * @param count number of vectors
+     * @param dimensions number of dimensions
+     * @return the means
+     */
+    public static float[] means(float[] matrix, int count, int dimensions) {
+        if (count < 1) {
+            throw new IllegalArgumentException("expected at least 1 vector");
+        }
+        if ((long) count * dimensions > matrix.length) {
+            throw new IllegalArgumentException("matrix too small for " + count + " vectors");
+        }
+        double[] sums = new double[dimensions];
+        for (int i = 0; i < count; i++) {
+            int offset = i * dimensions;
+            for (int j = 0; j < dimensions; j++) {
+                sums[j] += matrix[offset + j];
+            }
+        }
+        float[] means = new float[dimensions];
+        for (int j = 0; j < dimensions; j++) {
+            means[j] = (float) (sums[j] / count);
+        }
+        return means;
+    }
+
+    private static void pack(float[] v, int offset, int n, float[] thresholds, boolean half, byte[] out, int outOffset) {
+        int full = n / 8;
+        for (int b = 0; b < full; b++) {
+            int i = b * 8;
+            int bits = 0;
+            for (int k = 0; k < 8; k++) {
+                bits = (bits << 1) | bit(v[offset + i + k], thresholds == null ? 0.0f : thresholds[i + k], half);
+            }
+            out[outOffset + b] = (byte) bits;
+        }
+        int rest = n - full * 8;
+        if (rest > 0) {
+            int i = full * 8;
+            int bits = 0;
+            for (int k = 0; k < rest; k++) {
+                bits |= bit(v[offset + i + k], thresholds == null ? 0.0f : thresholds[i + k], half) << (7 - k);
+            }
+            out[outOffset + full] = (byte) bits;
+        }
+    }
+
+    private static int bit(float x, float threshold, boolean half) {
+        if (half) {
+            x = HalfFloat.toFloat(HalfFloat.fromFloat(x));
+        }
+        // x - threshold is only 0 when they are equal, and the sign bit is set
+        // for negative values and -0.0, so the difference is positive when the
+        // bits are a positive int
+        return (int) (-(long) Float.floatToRawIntBits(x - threshold) >>> 63);
+    }
+
+    private static void checkThresholds(float[] thresholds, int dimensions) {
+        if (thresholds != null && thresholds.length != dimensions) {
+            throw new IllegalArgumentException("expected " + dimensions + " thresholds, got " + thresholds.length);
+        }
+    }
+}
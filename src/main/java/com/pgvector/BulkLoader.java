@@ -0,0 +1,480 @@
+package com.pgvector;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * A loader that runs binary <code>COPY</code> on multiple connections in parallel.
+ * <p>
+ * Rows are claimed in chunks, and each chunk is copied and committed in its own
+ * transaction, so a failure only affects the chunk that was in progress. Chunk sizes
+ * are adjusted to the measured throughput of each connection.
+ */
+public class BulkLoader {
+    /**
+     * Writes the columns of a row.
+     * <p>
+     * Rows are written by all worker threads at the same time, each for a
+     * disjoint range of rows, so implementations must be thread-safe. Row
+     * numbers are not in order, so rows should be looked up by number rather
+     * than read from a shared iterator.
+     */
+    @FunctionalInterface
+    public interface RowWriter {
+        /**
+         * Writes the columns of a row.
+         *
+         * @param writer copy writer with the row started
+         * @param row row number
+         * @throws SQLException exception
+         */
+        void writeRow(CopyWriter writer, long row) throws SQLException;
+    }
+
+    /**
+     * Receives progress after each committed chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called after a chunk is committed.
+         *
+         * @param rows total rows committed
+         * @param bytes total bytes committed
+         * @param elapsedNanos time since the load started
+         */
+        void onProgress(long rows, long bytes, long elapsedNanos);
+    }
+
+    /**
+     * A range of rows.
+     */
+    public static final class Range implements Comparable<Range> {
+        private final long start;
+        private final long end;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the first row.
+         *
+         * @return the first row
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Returns the row after the last row.
+         *
+         * @return the row after the last row
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        public int compareTo(Range o) {
+            return Long.compare(start, o.start);
+        }
+
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+
+    /**
+     * A failed chunk.
+     */
+    public static final class Failure {
+        private final Range range;
+        private final Exception exception;
+
+        Failure(Range range, Exception exception) {
+            this.range = range;
+            this.exception = exception;
+        }
+
+        /**
+         * Returns the range, or null if the connection could not be opened.
+         *
+         * @return the range
+         */
+        public Range getRange() {
+            return range;
+        }
+
+        /**
+         * Returns the exception.
+         *
+         * @return the exception
+         */
+        public Exception getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * The result of a load.
+     */
+    public static final class Result {
+        private final long rows;
+        private final List<Range> committed;
+        private final List<Failure> failures;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Result(long rows, List<Range> committed, List<Failure> failures, long bytes, long elapsedNanos) {
+            this.rows = rows;
+            this.committed = committed;
+            this.failures = failures;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the committed ranges in order.
+         *
+         * @return the committed ranges
+         */
+        public List<Range> getCommittedRanges() {
+            return committed;
+        }
+
+        /**
+         * Returns the ranges that were not committed, including ranges that were never attempted.
+         *
+         * @return the pending ranges
+         */
+        public List<Range> getPendingRanges() {
+            return pendingRanges(rows, committed);
+        }
+
+        /**
+         * Returns the failures.
+         *
+         * @return the failures
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Returns whether all rows were committed.
+         *
+         * @return whether all rows were committed
+         */
+        public boolean isComplete() {
+            return getRowCount() == rows;
+        }
+
+        /**
+         * Returns the number of rows committed.
+         *
+         * @return the number of rows
+         */
+        public long getRowCount() {
+            long count = 0;
+            for (Range r : committed) {
+                count += r.end - r.start;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the number of bytes committed.
+         *
+         * @return the number of bytes
+         */
+        public long getByteCount() {
+            return bytes;
+        }
+
+        /**
+         * Returns the elapsed time in nanoseconds.
+         *
+         * @return the elapsed time
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the rows committed per second.
+         *
+         * @return the rows per second
+         */
+        public double getRowsPerSecond() {
+            return perSecond(getRowCount(), elapsedNanos);
+        }
+
+        /**
+         * Returns the bytes committed per second.
+         *
+         * @return the bytes per second
+         */
+        public double getBytesPerSecond() {
+            return perSecond(bytes, elapsedNanos);
+        }
+    }
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final ColumnType[] columns;
+    private int threads = 4;
+    private int initialChunkSize = 10000;
+    private int minChunkSize = 1000;
+    private int maxChunkSize = 1000000;
+    private long targetChunkMillis = 1000;
+    private ProgressListener listener;
+
+    /**
+     * Creates a loader.
+     *
+     * @param dataSource data source for connections
+     * @param sql <code>COPY ... FROM STDIN WITH (FORMAT BINARY)</code> statement
+     * @param columns column types
+     */
+    public BulkLoader(DataSource dataSource, String sql, ColumnType... columns) {
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Sets the number of connections.
+     *
+     * @param threads number of connections
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the number of rows in the first chunk of each connection.
+     *
+     * @param initialChunkSize number of rows
+     */
+    public void setInitialChunkSize(int initialChunkSize) {
+        if (initialChunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be at least 1");
+        }
+        this.initialChunkSize = initialChunkSize;
+    }
+
+    /**
+     * Sets the minimum and maximum number of rows in a chunk.
+     *
+     * @param minChunkSize minimum number of rows
+     * @param maxChunkSize maximum number of rows
+     */
+    public void setChunkSizeLimits(int minChunkSize, int maxChunkSize) {
+        if (minChunkSize < 1 || maxChunkSize < minChunkSize) {
+            throw new IllegalArgumentException("invalid chunk size limits");
+        }
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Sets the target time for copying and committing a chunk.
+     *
+     * @param targetChunkMillis target time in milliseconds
+     */
+    public void setTargetChunkMillis(long targetChunkMillis) {
+        if (targetChunkMillis < 1) {
+            throw new IllegalArgumentException("target must be at least 1 ms");
+        }
+        this.targetChunkMillis = targetChunkMillis;
+    }
+
+    /**
+     * Sets a listener for progress.
+     *
+     * @param listener progress listener
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Loads rows.
+     * <p>
+     * The row writer is called concurrently from the worker threads.
+     *
+     * @param rows number of rows
+     * @param rowWriter writes the columns of each row, which must be thread-safe
+     * @return the result
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Result load(long rows, RowWriter rowWriter) throws InterruptedException {
+        final AtomicLong next = new AtomicLong();
+        final List<Range> committed = Collections.synchronizedList(new ArrayList<Range>());
+        final List<Failure> failures = Collections.synchronizedList(new ArrayList<Failure>());
+        final AtomicLong committedRows = new AtomicLong();
+        final AtomicLong committedBytes = new AtomicLong();
+        final long startTime = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    runWorker(rows, rowWriter, next, committed, failures, committedRows, committedBytes, startTime);
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failures.add(new Failure(null, cause instanceof Exception ? (Exception) cause : e));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        List<Range> sorted = new ArrayList<>(committed);
+        Collections.sort(sorted);
+        return new Result(rows, Collections.unmodifiableList(sorted), Collections.unmodifiableList(new ArrayList<>(failures)), committedBytes.get(), System.nanoTime() - startTime);
+    }
+
+    private void runWorker(long rows, RowWriter rowWriter, AtomicLong next, List<Range> committed, List<Failure> failures, AtomicLong committedRows, AtomicLong committedBytes, long startTime) {
+        Connection conn;
+        try {
+            conn = dataSource.getConnection();
+        } catch (SQLException e) {
+            failures.add(new Failure(null, e));
+            return;
+        }
+
+        // restore auto-commit when the connection is returned to a pool
+        boolean restoreAutoCommit = false;
+        try {
+            if (conn.getAutoCommit()) {
+                conn.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            PGConnection pgConn = conn.unwrap(PGConnection.class);
+            long chunkSize = initialChunkSize;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = next.getAndAdd(chunkSize);
+                if (start >= rows) {
+                    break;
+                }
+                Range range = new Range(start, Math.min(start + chunkSize, rows));
+
+                long chunkStart = System.nanoTime();
+                long bytes;
+                try {
+                    bytes = copyChunk(pgConn, rowWriter, range);
+                    conn.commit();
+                } catch (Exception e) {
+                    failures.add(new Failure(range, e));
+                    try {
+                        conn.rollback();
+                    } catch (SQLException re) {
+                        e.addSuppressed(re);
+                    }
+                    // connection state is unknown, so leave remaining rows to other workers
+                    break;
+                }
+                long chunkNanos = System.nanoTime() - chunkStart;
+
+                committed.add(range);
+                long totalRows = committedRows.addAndGet(range.end - range.start);
+                long totalBytes = committedBytes.addAndGet(bytes);
+                if (listener != null) {
+                    synchronized (listener) {
+                        listener.onProgress(totalRows, totalBytes, System.nanoTime() - startTime);
+                    }
+                }
+
+                chunkSize = nextChunkSize(range.end - range.start, chunkNanos, targetChunkMillis, minChunkSize, maxChunkSize);
+            }
+        } catch (SQLException e) {
+            failures.add(new Failure(null, e));
+        } finally {
+            try {
+                if (restoreAutoCommit) {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                // ignore
+            }
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
+    private long copyChunk(PGConnection conn, RowWriter rowWriter, Range range) throws SQLException {
+        CopyIn copyIn = conn.getCopyAPI().copyIn(sql);
+        CopyWriter writer = new CopyWriter(copyIn, columns);
+        try {
+            for (long i = range.start; i < range.end; i++) {
+                writer.startRow();
+                rowWriter.writeRow(writer, i);
+            }
+            writer.endCopy();
+        } catch (SQLException | RuntimeException e) {
+            if (copyIn.isActive()) {
+                try {
+                    copyIn.cancelCopy();
+                } catch (SQLException ce) {
+                    e.addSuppressed(ce);
+                }
+            }
+            throw e;
+        }
+        return writer.getByteCount();
+    }
+
+    static long nextChunkSize(long rows, long nanos, long targetMillis, long min, long max) {
+        // grow at most 2x per chunk to avoid overshooting on a fast first chunk
+        long target = nanos <= 0 ? rows * 2 : (long) (rows * (targetMillis * 1e6 / nanos));
+        target = Math.min(target, rows * 2);
+        return Math.max(min, Math.min(max, target));
+    }
+
+    static List<Range> pendingRanges(long rows, List<Range> committed) {
+        List<Range> pending = new ArrayList<>();
+        long position = 0;
+        for (Range r : committed) {
+            if (r.start > position) {
+                pending.add(new Range(position, r.start));
+            }
+            position = Math.max(position, r.end);
+        }
+        if (position < rows) {
+            pending.add(new Range(position, rows));
+        }
+        return pending;
+    }
+
+    static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+}
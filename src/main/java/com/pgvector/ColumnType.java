@@ -0,0 +1,66 @@
+package com.pgvector;
+
+/**
+ * A column type for binary <code>COPY</code>.
+ */
+public enum ColumnType {
+    /**
+     * <code>boolean</code>
+     */
+    BOOLEAN("boolean"),
+    /**
+     * <code>smallint</code>
+     */
+    SMALLINT("smallint"),
+    /**
+     * <code>integer</code>
+     */
+    INTEGER("integer"),
+    /**
+     * <code>bigint</code>
+     */
+    BIGINT("bigint"),
+    /**
+     * <code>real</code>
+     */
+    REAL("real"),
+    /**
+     * <code>double precision</code>
+     */
+    DOUBLE("double precision"),
+    /**
+     * <code>text</code>
+     */
+    TEXT("text"),
+    /**
+     * <code>vector</code>
+     */
+    VECTOR("vector"),
+    /**
+     * <code>halfvec</code>
+     */
+    HALFVEC("halfvec"),
+    /**
+     * <code>sparsevec</code>
+     */
+    SPARSEVEC("sparsevec"),
+    /**
+     * <code>bit</code>
+     */
+    BIT("bit");
+
+    private final String typeName;
+
+    ColumnType(String typeName) {
+        this.typeName = typeName;
+    }
+
+    /**
+     * Returns the Postgres type name.
+     *
+     * @return the type name
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+}
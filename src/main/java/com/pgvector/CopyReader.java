@@ -0,0 +1,471 @@
+package com.pgvector;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.util.ByteConverter;
+
+/**
+ * A reader for <code>COPY ... TO STDOUT WITH (FORMAT BINARY)</code>.
+ * <p>
+ * Column indexes start at 1. Arrays returned for a column are reused for the
+ * following rows, so copy them if they need to be kept.
+ */
+public class CopyReader {
+    private final CopyOut copyOut;
+    private final ColumnType[] columns;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final float[][] floatArrays;
+    private final int[][] intArrays;
+    private final byte[][] byteArrays;
+    private final int[] sizes;
+    private final int[] dimensions;
+    private final long[] decodedRows;
+    private byte[] data = new byte[65536];
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean finished;
+    private long rowCount;
+
+    /**
+     * Creates a reader.
+     *
+     * @param copyOut copy operation
+     * @param columns column types
+     */
+    public CopyReader(CopyOut copyOut, ColumnType... columns) {
+        this.copyOut = copyOut;
+        this.columns = columns.clone();
+        this.offsets = new int[columns.length];
+        this.lengths = new int[columns.length];
+        this.floatArrays = new float[columns.length][];
+        this.intArrays = new int[columns.length][];
+        this.byteArrays = new byte[columns.length][];
+        this.sizes = new int[columns.length];
+        this.dimensions = new int[columns.length];
+        this.decodedRows = new long[columns.length];
+    }
+
+    /**
+     * Moves to the next row.
+     *
+     * @return whether there is a row
+     * @throws SQLException exception
+     */
+    public boolean next() throws SQLException {
+        if (finished) {
+            return false;
+        }
+
+        // keep unread bytes at the start of the buffer
+        if (position > 0) {
+            System.arraycopy(data, position, data, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+
+        if (!started) {
+            readHeader();
+            started = true;
+        }
+
+        if (!fill(2)) {
+            if (limit == position) {
+                finished = true;
+                return false;
+            }
+            throw new SQLException("unexpected end of copy data");
+        }
+
+        int fieldCount = ByteConverter.int2(data, position);
+        position += 2;
+        if (fieldCount == -1) {
+            finish();
+            return false;
+        }
+        if (fieldCount != columns.length) {
+            throw new SQLException("expected " + columns.length + " columns, got " + fieldCount);
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            require(4);
+            int length = ByteConverter.int4(data, position);
+            position += 4;
+            if (length > 0) {
+                require(length);
+            }
+            offsets[i] = position;
+            lengths[i] = length;
+            position += Math.max(length, 0);
+        }
+
+        rowCount++;
+        return true;
+    }
+
+    /**
+     * Returns whether the value is null.
+     *
+     * @param columnIndex column index
+     * @return whether the value is null
+     * @throws SQLException exception
+     */
+    public boolean isNull(int columnIndex) throws SQLException {
+        return lengths[checkIndex(columnIndex)] < 0;
+    }
+
+    /**
+     * Returns a boolean value, or false if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.BOOLEAN, 1);
+        return i >= 0 && data[offsets[i]] != 0;
+    }
+
+    /**
+     * Returns a smallint value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public short getShort(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.SMALLINT, 2);
+        return i < 0 ? 0 : ByteConverter.int2(data, offsets[i]);
+    }
+
+    /**
+     * Returns an integer value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public int getInt(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.INTEGER, 4);
+        return i < 0 ? 0 : ByteConverter.int4(data, offsets[i]);
+    }
+
+    /**
+     * Returns a bigint value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public long getLong(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.BIGINT, 8);
+        return i < 0 ? 0 : ByteConverter.int8(data, offsets[i]);
+    }
+
+    /**
+     * Returns a real value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public float getFloat(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.REAL, 4);
+        return i < 0 ? 0 : ByteConverter.float4(data, offsets[i]);
+    }
+
+    /**
+     * Returns a double precision value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public double getDouble(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.DOUBLE, 8);
+        return i < 0 ? 0 : ByteConverter.float8(data, offsets[i]);
+    }
+
+    /**
+     * Returns a text value.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public String getText(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.TEXT, 0);
+        return i < 0 ? null : new String(data, offsets[i], lengths[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a vector value as a reused array.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public float[] getVector(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.VECTOR, 4);
+        if (i < 0) {
+            return null;
+        }
+        if (decodedRows[i] != rowCount) {
+            int offset = offsets[i];
+            int dim = readVectorHeader(offset, 4, lengths[i]);
+            float[] v = floatArray(i, dim);
+            VectorCodec.readFloats(data, offset + 4, v, 0, dim);
+            decodedRows[i] = rowCount;
+        }
+        return floatArrays[i];
+    }
+
+    /**
+     * Returns a half vector value as a reused array.
+     *
+     * @param columnIndex column index
+     * @return the value
+     * @throws SQLException exception
+     */
+    public float[] getHalfvec(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.HALFVEC, 4);
+        if (i < 0) {
+            return null;
+        }
+        if (decodedRows[i] != rowCount) {
+            int offset = offsets[i];
+            int dim = readVectorHeader(offset, 2, lengths[i]);
+            float[] v = floatArray(i, dim);
+            for (int j = 0; j < dim; j++) {
+                v[j] = HalfFloat.toFloat(ByteConverter.int2(data, offset + 4 + j * 2));
+            }
+            decodedRows[i] = rowCount;
+        }
+        return floatArrays[i];
+    }
+
+    /**
+     * Returns the number of dimensions of a sparse vector value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the number of dimensions
+     * @throws SQLException exception
+     */
+    public int getSparsevecDimensions(int columnIndex) throws SQLException {
+        int i = decodeSparsevec(columnIndex);
+        return i < 0 ? 0 : dimensions[i];
+    }
+
+    /**
+     * Returns the number of non-zero elements of a sparse vector value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the number of non-zero elements
+     * @throws SQLException exception
+     */
+    public int getSparsevecNnz(int columnIndex) throws SQLException {
+        int i = decodeSparsevec(columnIndex);
+        return i < 0 ? 0 : sizes[i];
+    }
+
+    /**
+     * Returns the non-zero indices of a sparse vector value as a reused array.
+     * <p>
+     * Only the first <code>getSparsevecNnz</code> elements are valid.
+     *
+     * @param columnIndex column index
+     * @return the non-zero indices
+     * @throws SQLException exception
+     */
+    public int[] getSparsevecIndices(int columnIndex) throws SQLException {
+        int i = decodeSparsevec(columnIndex);
+        return i < 0 ? null : intArrays[i];
+    }
+
+    /**
+     * Returns the non-zero values of a sparse vector value as a reused array.
+     * <p>
+     * Only the first <code>getSparsevecNnz</code> elements are valid.
+     *
+     * @param columnIndex column index
+     * @return the non-zero values
+     * @throws SQLException exception
+     */
+    public float[] getSparsevecValues(int columnIndex) throws SQLException {
+        int i = decodeSparsevec(columnIndex);
+        return i < 0 ? null : floatArrays[i];
+    }
+
+    /**
+     * Returns the length of a bit string value, or 0 if null.
+     *
+     * @param columnIndex column index
+     * @return the number of bits
+     * @throws SQLException exception
+     */
+    public int getBitLength(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.BIT, 4);
+        return i < 0 ? 0 : ByteConverter.int4(data, offsets[i]);
+    }
+
+    /**
+     * Returns the bytes of a bit string value as a reused array.
+     *
+     * @param columnIndex column index
+     * @return the packed bits, most significant bit first
+     * @throws SQLException exception
+     */
+    public byte[] getBit(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.BIT, 4);
+        if (i < 0) {
+            return null;
+        }
+        if (decodedRows[i] != rowCount) {
+            int length = lengths[i] - 4;
+            byte[] b = byteArrays[i];
+            if (b == null || b.length != length) {
+                b = new byte[length];
+                byteArrays[i] = b;
+            }
+            System.arraycopy(data, offsets[i] + 4, b, 0, length);
+            decodedRows[i] = rowCount;
+        }
+        return byteArrays[i];
+    }
+
+    /**
+     * Returns the number of rows read.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private int decodeSparsevec(int columnIndex) throws SQLException {
+        int i = field(columnIndex, ColumnType.SPARSEVEC, 12);
+        if (i < 0 || decodedRows[i] == rowCount) {
+            return i;
+        }
+
+        int offset = offsets[i];
+        int nnz = ByteConverter.int4(data, offset + 4);
+        if (ByteConverter.int4(data, offset + 8) != 0) {
+            throw new SQLException("expected unused to be 0");
+        }
+        if (nnz < 0 || lengths[i] != 12 + nnz * 8) {
+            throw new SQLException("invalid sparsevec length");
+        }
+
+        int[] indices = intArrays[i];
+        if (indices == null || indices.length < nnz) {
+            indices = new int[nnz];
+            intArrays[i] = indices;
+        }
+        float[] values = floatArrays[i];
+        if (values == null || values.length < nnz) {
+            values = new float[nnz];
+            floatArrays[i] = values;
+        }
+        VectorCodec.readInts(data, offset + 12, indices, 0, nnz);
+        VectorCodec.readFloats(data, offset + 12 + nnz * 4, values, 0, nnz);
+
+        dimensions[i] = ByteConverter.int4(data, offset);
+        sizes[i] = nnz;
+        decodedRows[i] = rowCount;
+        return i;
+    }
+
+    private int readVectorHeader(int offset, int elementSize, int length) throws SQLException {
+        int dim = ByteConverter.int2(data, offset);
+        if (ByteConverter.int2(data, offset + 2) != 0) {
+            throw new SQLException("expected unused to be 0");
+        }
+        if (dim < 0 || length != 4 + dim * elementSize) {
+            throw new SQLException("invalid vector length");
+        }
+        return dim;
+    }
+
+    private float[] floatArray(int i, int dim) {
+        float[] v = floatArrays[i];
+        if (v == null || v.length != dim) {
+            v = new float[dim];
+            floatArrays[i] = v;
+        }
+        return v;
+    }
+
+    private int field(int columnIndex, ColumnType type, int minLength) throws SQLException {
+        int i = checkIndex(columnIndex);
+        if (columns[i] != type) {
+            throw new SQLException("expected " + columns[i].getTypeName() + " for column " + columnIndex + ", got " + type.getTypeName());
+        }
+        if (lengths[i] < 0) {
+            return -1;
+        }
+        if (lengths[i] < minLength) {
+            throw new SQLException("invalid " + type.getTypeName() + " length");
+        }
+        return i;
+    }
+
+    private int checkIndex(int columnIndex) throws SQLException {
+        if (rowCount == 0 || finished) {
+            throw new SQLException("no current row");
+        }
+        if (columnIndex < 1 || columnIndex > columns.length) {
+            throw new SQLException("invalid column index: " + columnIndex);
+        }
+        return columnIndex - 1;
+    }
+
+    private void readHeader() throws SQLException {
+        require(19);
+        for (int i = 0; i < CopyWriter.SIGNATURE.length; i++) {
+            if (data[position + i] != CopyWriter.SIGNATURE[i]) {
+                throw new SQLException("invalid copy signature");
+            }
+        }
+        int flags = ByteConverter.int4(data, position + 11);
+        if ((flags & (1 << 16)) != 0) {
+            throw new SQLException("copy with oids not supported");
+        }
+        int extensionLength = ByteConverter.int4(data, position + 15);
+        position += 19;
+        require(extensionLength);
+        position += extensionLength;
+    }
+
+    private void finish() throws SQLException {
+        finished = true;
+        // read until the operation completes so the connection can be used again
+        while (copyOut.readFromCopy() != null) {
+        }
+    }
+
+    private void require(int length) throws SQLException {
+        if (!fill(length)) {
+            throw new SQLException("unexpected end of copy data");
+        }
+    }
+
+    private boolean fill(int length) throws SQLException {
+        while (limit - position < length) {
+            byte[] chunk = copyOut.readFromCopy();
+            if (chunk == null) {
+                return false;
+            }
+            if (limit + chunk.length > data.length) {
+                byte[] newData = new byte[Math.max(data.length * 2, limit + chunk.length)];
+                System.arraycopy(data, 0, newData, 0, limit);
+                data = newData;
+            }
+            System.arraycopy(chunk, 0, data, limit, chunk.length);
+            limit += chunk.length;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,440 @@
+package com.pgvector;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.ByteConverter;
+
+/**
+ * A writer for <code>COPY ... FROM STDIN WITH (FORMAT BINARY)</code>.
+ * <p>
+ * Rows are encoded into a reusable buffer that is sent to the server when full.
+ */
+public class CopyWriter {
+    // https://www.postgresql.org/docs/current/sql-copy.html
+    static final byte[] SIGNATURE = new byte[] {80, 71, 67, 79, 80, 89, 10, (byte) 255, 13, 10, 0};
+
+    private final CopyIn copyIn;
+    private final ColumnType[] columns;
+    private byte[] buffer;
+    private int position;
+    private int column;
+    private long rowCount;
+    private long byteCount;
+
+    /**
+     * Creates a writer.
+     *
+     * @param copyIn copy operation
+     * @param columns column types
+     */
+    public CopyWriter(CopyIn copyIn, ColumnType... columns) {
+        this(copyIn, 65536, columns);
+    }
+
+    /**
+     * Creates a writer with a buffer size.
+     *
+     * @param copyIn copy operation
+     * @param bufferSize buffer size in bytes
+     * @param columns column types
+     */
+    public CopyWriter(CopyIn copyIn, int bufferSize, ColumnType... columns) {
+        if (columns.length == 0 || columns.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid number of columns");
+        }
+
+        this.copyIn = copyIn;
+        this.columns = columns.clone();
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+        this.column = columns.length;
+
+        System.arraycopy(SIGNATURE, 0, buffer, 0, SIGNATURE.length);
+        // flags and header extension length
+        ByteConverter.int4(buffer, 11, 0);
+        ByteConverter.int4(buffer, 15, 0);
+        position = 19;
+    }
+
+    /**
+     * Starts a row.
+     *
+     * @throws SQLException exception
+     */
+    public void startRow() throws SQLException {
+        checkRowComplete();
+        ensure(2);
+        ByteConverter.int2(buffer, position, columns.length);
+        position += 2;
+        column = 0;
+        rowCount++;
+    }
+
+    /**
+     * Writes a null value.
+     *
+     * @throws SQLException exception
+     */
+    public void writeNull() throws SQLException {
+        nextColumn(null);
+        ensure(4);
+        ByteConverter.int4(buffer, position, -1);
+        position += 4;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeBoolean(boolean v) throws SQLException {
+        startField(ColumnType.BOOLEAN, 1);
+        buffer[position++] = (byte) (v ? 1 : 0);
+    }
+
+    /**
+     * Writes a smallint value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeShort(short v) throws SQLException {
+        startField(ColumnType.SMALLINT, 2);
+        ByteConverter.int2(buffer, position, v);
+        position += 2;
+    }
+
+    /**
+     * Writes an integer value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeInt(int v) throws SQLException {
+        startField(ColumnType.INTEGER, 4);
+        ByteConverter.int4(buffer, position, v);
+        position += 4;
+    }
+
+    /**
+     * Writes a bigint value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeLong(long v) throws SQLException {
+        startField(ColumnType.BIGINT, 8);
+        ByteConverter.int8(buffer, position, v);
+        position += 8;
+    }
+
+    /**
+     * Writes a real value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeFloat(float v) throws SQLException {
+        startField(ColumnType.REAL, 4);
+        ByteConverter.float4(buffer, position, v);
+        position += 4;
+    }
+
+    /**
+     * Writes a double precision value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeDouble(double v) throws SQLException {
+        startField(ColumnType.DOUBLE, 8);
+        ByteConverter.float8(buffer, position, v);
+        position += 8;
+    }
+
+    /**
+     * Writes a text value.
+     *
+     * @param v value
+     * @throws SQLException exception
+     */
+    public void writeText(String v) throws SQLException {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+
+        byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+        startField(ColumnType.TEXT, bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes a vector value.
+     *
+     * @param v float array
+     * @throws SQLException exception
+     */
+    public void writeVector(float[] v) throws SQLException {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+
+        writeVector(v, 0, v.length);
+    }
+
+    /**
+     * Writes a vector value from part of an array.
+     *
+     * @param v float array
+     * @param offset offset of the first element
+     * @param length number of elements
+     * @throws SQLException exception
+     */
+    public void writeVector(float[] v, int offset, int length) throws SQLException {
+        startField(ColumnType.VECTOR, 4 + length * 4);
+        ByteConverter.int2(buffer, position, length);
+        ByteConverter.int2(buffer, position + 2, 0);
+        VectorCodec.writeFloats(v, offset, buffer, position + 4, length);
+        position += 4 + length * 4;
+    }
+
+    /**
+     * Writes a vector value.
+     *
+     * @param v vector
+     * @throws SQLException exception
+     */
+    public void writeVector(PGvector v) throws SQLException {
+        if (v == null || v.lengthInBytes() == 0) {
+            writeNull();
+            return;
+        }
+
+        int length = v.lengthInBytes();
+        startField(ColumnType.VECTOR, length);
+        v.toBytes(buffer, position);
+        position += length;
+    }
+
+    /**
+     * Writes a half vector value.
+     *
+     * @param v float array
+     * @throws SQLException exception
+     */
+    public void writeHalfvec(float[] v) throws SQLException {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+
+        writeHalfvec(v, 0, v.length);
+    }
+
+    /**
+     * Writes a half vector value from part of an array.
+     *
+     * @param v float array
+     * @param offset offset of the first element
+     * @param length number of elements
+     * @throws SQLException exception
+     */
+    public void writeHalfvec(float[] v, int offset, int length) throws SQLException {
+        startField(ColumnType.HALFVEC, 4 + length * 2);
+        ByteConverter.int2(buffer, position, length);
+        ByteConverter.int2(buffer, position + 2, 0);
+        position += 4;
+        for (int i = 0; i < length; i++) {
+            ByteConverter.int2(buffer, position, HalfFloat.fromFloat(v[offset + i]));
+            position += 2;
+        }
+    }
+
+    /**
+     * Writes a half vector value.
+     *
+     * @param v half vector
+     * @throws SQLException exception
+     */
+    public void writeHalfvec(PGhalfvec v) throws SQLException {
+        if (v == null || v.lengthInBytes() == 0) {
+            writeNull();
+            return;
+        }
+
+        int length = v.lengthInBytes();
+        startField(ColumnType.HALFVEC, length);
+        v.toBytes(buffer, position);
+        position += length;
+    }
+
+    /**
+     * Writes a sparse vector value.
+     * <p>
+     * Indices start at 0 and must be in ascending order.
+     *
+     * @param dimensions number of dimensions
+     * @param indices non-zero indices
+     * @param values non-zero values
+     * @param nnz number of non-zero elements
+     * @throws SQLException exception
+     */
+    public void writeSparsevec(int dimensions, int[] indices, float[] values, int nnz) throws SQLException {
+        startField(ColumnType.SPARSEVEC, 12 + nnz * 8);
+        ByteConverter.int4(buffer, position, dimensions);
+        ByteConverter.int4(buffer, position + 4, nnz);
+        ByteConverter.int4(buffer, position + 8, 0);
+        VectorCodec.writeInts(indices, 0, buffer, position + 12, nnz);
+        VectorCodec.writeFloats(values, 0, buffer, position + 12 + nnz * 4, nnz);
+        position += 12 + nnz * 8;
+    }
+
+    /**
+     * Writes a sparse vector value.
+     *
+     * @param v sparse vector
+     * @throws SQLException exception
+     */
+    public void writeSparsevec(PGsparsevec v) throws SQLException {
+        if (v == null || v.lengthInBytes() == 0) {
+            writeNull();
+            return;
+        }
+
+        int length = v.lengthInBytes();
+        startField(ColumnType.SPARSEVEC, length);
+        v.toBytes(buffer, position);
+        position += length;
+    }
+
+    /**
+     * Writes a bit string value.
+     *
+     * @param data packed bits, most significant bit first
+     * @param length number of bits
+     * @throws SQLException exception
+     */
+    public void writeBit(byte[] data, int length) throws SQLException {
+        if (data == null) {
+            writeNull();
+            return;
+        }
+
+        int dataLength = (length + 7) / 8;
+        startField(ColumnType.BIT, 4 + dataLength);
+        ByteConverter.int4(buffer, position, length);
+        System.arraycopy(data, 0, buffer, position + 4, dataLength);
+        position += 4 + dataLength;
+    }
+
+    /**
+     * Writes a bit string value.
+     *
+     * @param v bit string
+     * @throws SQLException exception
+     */
+    public void writeBit(PGbit v) throws SQLException {
+        if (v == null || v.lengthInBytes() == 0) {
+            writeNull();
+            return;
+        }
+
+        int length = v.lengthInBytes();
+        startField(ColumnType.BIT, length);
+        v.toBytes(buffer, position);
+        position += length;
+    }
+
+    /**
+     * Sends buffered rows to the server.
+     *
+     * @throws SQLException exception
+     */
+    public void flush() throws SQLException {
+        if (position > 0) {
+            copyIn.writeToCopy(buffer, 0, position);
+            byteCount += position;
+            position = 0;
+        }
+    }
+
+    /**
+     * Writes the trailer and finishes the copy operation.
+     *
+     * @return the number of rows copied
+     * @throws SQLException exception
+     */
+    public long endCopy() throws SQLException {
+        checkRowComplete();
+        ensure(2);
+        ByteConverter.int2(buffer, position, -1);
+        position += 2;
+        flush();
+        return copyIn.endCopy();
+    }
+
+    /**
+     * Cancels the copy operation.
+     *
+     * @throws SQLException exception
+     */
+    public void cancelCopy() throws SQLException {
+        position = 0;
+        column = columns.length;
+        copyIn.cancelCopy();
+    }
+
+    /**
+     * Returns the number of rows written.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of bytes sent to the server.
+     *
+     * @return the number of bytes
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    private void startField(ColumnType type, int length) throws SQLException {
+        nextColumn(type);
+        ensure(4 + length);
+        ByteConverter.int4(buffer, position, length);
+        position += 4;
+    }
+
+    private void nextColumn(ColumnType type) throws SQLException {
+        if (column >= columns.length) {
+            throw new SQLException("expected startRow");
+        }
+        if (type != null && columns[column] != type) {
+            throw new SQLException("expected " + columns[column].getTypeName() + " for column " + (column + 1) + ", got " + type.getTypeName());
+        }
+        column++;
+    }
+
+    private void checkRowComplete() throws SQLException {
+        if (column != columns.length) {
+            throw new SQLException("expected " + columns.length + " columns, got " + column);
+        }
+    }
+
+    private void ensure(int length) throws SQLException {
+        if (position + length > buffer.length) {
+            flush();
+            if (length > buffer.length) {
+                buffer = new byte[length];
+            }
+        }
+    }
+}
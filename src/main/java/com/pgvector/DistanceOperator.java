@@ -0,0 +1,339 @@
+package com.pgvector;
+
+/**
+ * A distance operator.
+ * <p>
+ * Distances are computed in the client with the same arithmetic as the server
+ * and return what the operator returns, so {@link #INNER_PRODUCT} is the negative
+ * inner product. Servers built with vectorized floating point may differ in the
+ * last bits.
+ */
+public enum DistanceOperator {
+    /**
+     * L2 distance (<code>&lt;-&gt;</code>)
+     */
+    L2("<->"),
+    /**
+     * Negative inner product (<code>&lt;#&gt;</code>)
+     */
+    INNER_PRODUCT("<#>"),
+    /**
+     * Cosine distance (<code>&lt;=&gt;</code>)
+     */
+    COSINE("<=>"),
+    /**
+     * L1 distance (<code>&lt;+&gt;</code>)
+     */
+    L1("<+>"),
+    /**
+     * Hamming distance (<code>&lt;~&gt;</code>)
+     */
+    HAMMING("<~>"),
+    /**
+     * Jaccard distance (<code>&lt;%&gt;</code>)
+     */
+    JACCARD("<%>");
+
+    private final String operator;
+
+    DistanceOperator(String operator) {
+        this.operator = operator;
+    }
+
+    /**
+     * Returns the SQL operator.
+     *
+     * @return the operator
+     */
+    public String getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the distance between two vectors.
+     *
+     * @param a float array
+     * @param b float array
+     * @return the distance
+     */
+    public double distance(float[] a, float[] b) {
+        Distances.checkDimensions("vector", a.length, b.length);
+        return dense(a, 0, b, 0, a.length, false, "vector");
+    }
+
+    /**
+     * Returns the distance between two vectors.
+     *
+     * @param a vector
+     * @param b vector
+     * @return the distance
+     */
+    public double distance(PGvector a, PGvector b) {
+        float[] av = a.toArray();
+        float[] bv = b.toArray();
+        Distances.checkDimensions("vector", av.length, bv.length);
+        return dense(av, 0, bv, 0, av.length, false, "vector");
+    }
+
+    /**
+     * Returns the distance between two half vectors.
+     *
+     * @param a half vector
+     * @param b half vector
+     * @return the distance
+     */
+    public double distance(PGhalfvec a, PGhalfvec b) {
+        float[] av = a.toArray();
+        float[] bv = b.toArray();
+        Distances.checkDimensions("halfvec", av.length, bv.length);
+        return dense(av, 0, bv, 0, av.length, true, "halfvec");
+    }
+
+    /**
+     * Returns the distance between two sparse vectors.
+     *
+     * @param a sparse vector
+     * @param b sparse vector
+     * @return the distance
+     */
+    public double distance(PGsparsevec a, PGsparsevec b) {
+        Distances.checkDimensions("sparsevec", a.getDimensions(), b.getDimensions());
+        return sparse(a.indexArray(), a.valueArray(), a.getNnz(), b.indexArray(), b.valueArray(), b.getNnz());
+    }
+
+    /**
+     * Returns the distance between a sparse vector and a vector without
+     * creating a dense array.
+     *
+     * @param a sparse vector
+     * @param b float array
+     * @return the distance
+     */
+    public double distance(PGsparsevec a, float[] b) {
+        Distances.checkDimensions("sparsevec", a.getDimensions(), b.length);
+        return sparseDense(a.indexArray(), a.valueArray(), a.getNnz(), b, 0, b.length);
+    }
+
+    /**
+     * Returns the distance between two bit strings.
+     *
+     * @param a bit string
+     * @param b bit string
+     * @return the distance
+     */
+    public double distance(PGbit a, PGbit b) {
+        Distances.checkLengths(a.length(), b.length());
+        return bit(a.toByteArray(), b.toByteArray(), a.toByteArray().length);
+    }
+
+    /**
+     * Computes the distances from a query to many vectors without allocating.
+     * <p>
+     * Null vectors have a distance of NaN.
+     *
+     * @param query float array
+     * @param vectors float arrays
+     * @param out distances
+     */
+    public void distances(float[] query, float[][] vectors, double[] out) {
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = vectors[i];
+            if (v == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkDimensions("vector", query.length, v.length);
+                out[i] = dense(query, 0, v, 0, v.length, false, "vector");
+            }
+        }
+    }
+
+    /**
+     * Computes the distances from a query to vectors stored consecutively in a matrix.
+     *
+     * @param query float array
+     * @param matrix vectors with the same dimensions as the query, one after another
+     * @param count number of vectors
+     * @param out distances
+     */
+    public void distances(float[] query, float[] matrix, int count, double[] out) {
+        int dimensions = query.length;
+        if ((long) count * dimensions > matrix.length) {
+            throw new IllegalArgumentException("matrix too small for " + count + " vectors");
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = dense(query, 0, matrix, i * dimensions, dimensions, false, "vector");
+        }
+    }
+
+    /**
+     * Computes the distances from a query to many vectors without allocating.
+     * <p>
+     * Null vectors have a distance of NaN.
+     *
+     * @param query vector
+     * @param vectors vectors
+     * @param out distances
+     */
+    public void distances(PGvector query, PGvector[] vectors, double[] out) {
+        float[] q = query.toArray();
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = vectors[i] == null ? null : vectors[i].toArray();
+            if (v == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkDimensions("vector", q.length, v.length);
+                out[i] = dense(q, 0, v, 0, v.length, false, "vector");
+            }
+        }
+    }
+
+    /**
+     * Computes the distances from a query to many half vectors without allocating.
+     * <p>
+     * Null vectors have a distance of NaN.
+     *
+     * @param query half vector
+     * @param vectors half vectors
+     * @param out distances
+     */
+    public void distances(PGhalfvec query, PGhalfvec[] vectors, double[] out) {
+        float[] q = query.toArray();
+        for (int i = 0; i < vectors.length; i++) {
+            float[] v = vectors[i] == null ? null : vectors[i].toArray();
+            if (v == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkDimensions("halfvec", q.length, v.length);
+                out[i] = dense(q, 0, v, 0, v.length, true, "halfvec");
+            }
+        }
+    }
+
+    /**
+     * Computes the distances from a query to many sparse vectors without allocating.
+     * <p>
+     * Null vectors have a distance of NaN.
+     *
+     * @param query sparse vector
+     * @param vectors sparse vectors
+     * @param out distances
+     */
+    public void distances(PGsparsevec query, PGsparsevec[] vectors, double[] out) {
+        int[] qi = query.indexArray();
+        float[] qx = query.valueArray();
+        int qn = query.getNnz();
+        for (int i = 0; i < vectors.length; i++) {
+            PGsparsevec v = vectors[i];
+            if (v == null || v.indexArray() == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkDimensions("sparsevec", query.getDimensions(), v.getDimensions());
+                out[i] = sparse(qi, qx, qn, v.indexArray(), v.valueArray(), v.getNnz());
+            }
+        }
+    }
+
+    /**
+     * Computes the distances from a query vector to many sparse vectors without
+     * allocating.
+     * <p>
+     * Null vectors have a distance of NaN.
+     *
+     * @param query float array
+     * @param vectors sparse vectors
+     * @param out distances
+     */
+    public void distances(float[] query, PGsparsevec[] vectors, double[] out) {
+        for (int i = 0; i < vectors.length; i++) {
+            PGsparsevec v = vectors[i];
+            if (v == null || v.indexArray() == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkDimensions("sparsevec", v.getDimensions(), query.length);
+                out[i] = sparseDense(v.indexArray(), v.valueArray(), v.getNnz(), query, 0, query.length);
+            }
+        }
+    }
+
+    /**
+     * Computes the distances from a query to many bit strings without allocating.
+     * <p>
+     * Null bit strings have a distance of NaN.
+     *
+     * @param query bit string
+     * @param vectors bit strings
+     * @param out distances
+     */
+    public void distances(PGbit query, PGbit[] vectors, double[] out) {
+        byte[] q = query.toByteArray();
+        for (int i = 0; i < vectors.length; i++) {
+            PGbit v = vectors[i];
+            if (v == null || v.toByteArray() == null) {
+                out[i] = Double.NaN;
+            } else {
+                Distances.checkLengths(query.length(), v.length());
+                out[i] = bit(q, v.toByteArray(), q.length);
+            }
+        }
+    }
+
+    double dense(float[] a, int aOffset, float[] b, int bOffset, int n, boolean half, String type) {
+        switch (this) {
+            case L2:
+                return Math.sqrt((double) Distances.l2Squared(a, aOffset, b, bOffset, n, half));
+            case INNER_PRODUCT:
+                return -(double) Distances.innerProduct(a, aOffset, b, bOffset, n, half);
+            case COSINE:
+                return Distances.cosine(a, aOffset, b, bOffset, n, half);
+            case L1:
+                return (double) Distances.l1(a, aOffset, b, bOffset, n, half);
+            default:
+                throw unsupported(type);
+        }
+    }
+
+    private double sparse(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        switch (this) {
+            case L2:
+                return Math.sqrt((double) Distances.sparseL2Squared(ai, ax, an, bi, bx, bn));
+            case INNER_PRODUCT:
+                return -(double) Distances.sparseInnerProduct(ai, ax, an, bi, bx, bn);
+            case COSINE:
+                return Distances.sparseCosine(ai, ax, an, bi, bx, bn);
+            case L1:
+                return (double) Distances.sparseL1(ai, ax, an, bi, bx, bn);
+            default:
+                throw unsupported("sparsevec");
+        }
+    }
+
+    private double sparseDense(int[] ai, float[] ax, int an, float[] b, int bOffset, int n) {
+        switch (this) {
+            case L2:
+                return Math.sqrt((double) Distances.sparseDenseL2Squared(ai, ax, an, b, bOffset, n));
+            case INNER_PRODUCT:
+                return -(double) Distances.sparseDenseInnerProduct(ai, ax, an, b, bOffset);
+            case COSINE:
+                return Distances.sparseDenseCosine(ai, ax, an, b, bOffset, n);
+            case L1:
+                return (double) Distances.sparseDenseL1(ai, ax, an, b, bOffset, n);
+            default:
+                throw unsupported("sparsevec");
+        }
+    }
+
+    double bit(byte[] a, byte[] b, int n) {
+        switch (this) {
+            case HAMMING:
+                return (double) Distances.hamming(a, b, n);
+            case JACCARD:
+                return Distances.jaccard(a, b, n);
+            default:
+                throw unsupported("bit");
+        }
+    }
+
+    private IllegalArgumentException unsupported(String type) {
+        return new IllegalArgumentException("operator " + operator + " not supported for " + type);
+    }
+}
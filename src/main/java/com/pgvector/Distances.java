@@ -0,0 +1,322 @@
+package com.pgvector;
+
+/**
+ * Distance kernels with the same arithmetic as the server.
+ * <p>
+ * Sums are accumulated in float in element order and the result is widened to
+ * double, like the scalar code in pgvector. Half vector elements are rounded
+ * to half precision first.
+ */
+final class Distances {
+    // gallop when one sparse vector has this many times more elements
+    private static final int GALLOP_RATIO = 16;
+
+    private Distances() {
+    }
+
+    static float l2Squared(float[] a, int aOffset, float[] b, int bOffset, int n, boolean half) {
+        float distance = 0.0f;
+        if (half) {
+            for (int i = 0; i < n; i++) {
+                float diff = half(a[aOffset + i]) - half(b[bOffset + i]);
+                distance += diff * diff;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                float diff = a[aOffset + i] - b[bOffset + i];
+                distance += diff * diff;
+            }
+        }
+        return distance;
+    }
+
+    static float innerProduct(float[] a, int aOffset, float[] b, int bOffset, int n, boolean half) {
+        float distance = 0.0f;
+        if (half) {
+            for (int i = 0; i < n; i++) {
+                distance += half(a[aOffset + i]) * half(b[bOffset + i]);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                distance += a[aOffset + i] * b[bOffset + i];
+            }
+        }
+        return distance;
+    }
+
+    static double cosine(float[] a, int aOffset, float[] b, int bOffset, int n, boolean half) {
+        float similarity = 0.0f;
+        float norma = 0.0f;
+        float normb = 0.0f;
+        if (half) {
+            for (int i = 0; i < n; i++) {
+                float ax = half(a[aOffset + i]);
+                float bx = half(b[bOffset + i]);
+                similarity += ax * bx;
+                norma += ax * ax;
+                normb += bx * bx;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                float ax = a[aOffset + i];
+                float bx = b[bOffset + i];
+                similarity += ax * bx;
+                norma += ax * ax;
+                normb += bx * bx;
+            }
+        }
+        return cosineDistance(similarity, norma, normb);
+    }
+
+    static float l1(float[] a, int aOffset, float[] b, int bOffset, int n, boolean half) {
+        float distance = 0.0f;
+        if (half) {
+            for (int i = 0; i < n; i++) {
+                distance += Math.abs(half(a[aOffset + i]) - half(b[bOffset + i]));
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                distance += Math.abs(a[aOffset + i] - b[bOffset + i]);
+            }
+        }
+        return distance;
+    }
+
+    static float sparseL2Squared(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        float distance = 0.0f;
+        int bpos = 0;
+        for (int i = 0; i < an; i++) {
+            int aIndex = ai[i];
+            int bIndex = -1;
+            for (int j = bpos; j < bn; j++) {
+                bIndex = bi[j];
+                if (aIndex == bIndex) {
+                    float diff = ax[i] - bx[j];
+                    distance += diff * diff;
+                } else if (aIndex > bIndex) {
+                    distance += bx[j] * bx[j];
+                }
+                if (aIndex >= bIndex) {
+                    bpos = j + 1;
+                }
+                if (bIndex >= aIndex) {
+                    break;
+                }
+            }
+            if (aIndex != bIndex) {
+                distance += ax[i] * ax[i];
+            }
+        }
+        for (int j = bpos; j < bn; j++) {
+            distance += bx[j] * bx[j];
+        }
+        return distance;
+    }
+
+    static float sparseInnerProduct(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        if ((long) an * GALLOP_RATIO < bn) {
+            return gallopInnerProduct(ai, ax, an, bi, bx, bn);
+        } else if ((long) bn * GALLOP_RATIO < an) {
+            return gallopInnerProduct(bi, bx, bn, ai, ax, an);
+        }
+
+        float distance = 0.0f;
+        int bpos = 0;
+        for (int i = 0; i < an; i++) {
+            int aIndex = ai[i];
+            for (int j = bpos; j < bn; j++) {
+                int bIndex = bi[j];
+                if (aIndex == bIndex) {
+                    distance += ax[i] * bx[j];
+                }
+                if (aIndex >= bIndex) {
+                    bpos = j + 1;
+                }
+                if (bIndex >= aIndex) {
+                    break;
+                }
+            }
+        }
+        return distance;
+    }
+
+    // matches are found in index order, so the sum is the same as the merge
+    private static float gallopInnerProduct(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        float distance = 0.0f;
+        int bpos = 0;
+        for (int i = 0; i < an && bpos < bn; i++) {
+            bpos = gallop(bi, bpos, bn, ai[i]);
+            if (bpos < bn && bi[bpos] == ai[i]) {
+                distance += ax[i] * bx[bpos];
+                bpos++;
+            }
+        }
+        return distance;
+    }
+
+    // returns the first position from start with an index of at least key
+    private static int gallop(int[] indices, int start, int end, int key) {
+        int low = start;
+        int step = 1;
+        int high = start;
+        while (high < end && indices[high] < key) {
+            low = high + 1;
+            high = start + step;
+            step <<= 1;
+        }
+        if (high > end) {
+            high = end;
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indices[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static double sparseCosine(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        float similarity = sparseInnerProduct(ai, ax, an, bi, bx, bn);
+        float norma = 0.0f;
+        float normb = 0.0f;
+        for (int i = 0; i < an; i++) {
+            norma += ax[i] * ax[i];
+        }
+        for (int j = 0; j < bn; j++) {
+            normb += bx[j] * bx[j];
+        }
+        return cosineDistance(similarity, norma, normb);
+    }
+
+    static float sparseL1(int[] ai, float[] ax, int an, int[] bi, float[] bx, int bn) {
+        float distance = 0.0f;
+        int bpos = 0;
+        for (int i = 0; i < an; i++) {
+            int aIndex = ai[i];
+            int bIndex = -1;
+            for (int j = bpos; j < bn; j++) {
+                bIndex = bi[j];
+                if (aIndex == bIndex) {
+                    distance += Math.abs(ax[i] - bx[j]);
+                } else if (aIndex > bIndex) {
+                    distance += Math.abs(bx[j]);
+                }
+                if (aIndex >= bIndex) {
+                    bpos = j + 1;
+                }
+                if (bIndex >= aIndex) {
+                    break;
+                }
+            }
+            if (aIndex != bIndex) {
+                distance += Math.abs(ax[i]);
+            }
+        }
+        for (int j = bpos; j < bn; j++) {
+            distance += Math.abs(bx[j]);
+        }
+        return distance;
+    }
+
+    static float sparseDenseL2Squared(int[] ai, float[] ax, int an, float[] b, int bOffset, int n) {
+        float distance = 0.0f;
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            float diff;
+            if (j < an && ai[j] == i) {
+                diff = ax[j++] - b[bOffset + i];
+            } else {
+                diff = -b[bOffset + i];
+            }
+            distance += diff * diff;
+        }
+        return distance;
+    }
+
+    static float sparseDenseInnerProduct(int[] ai, float[] ax, int an, float[] b, int bOffset) {
+        float distance = 0.0f;
+        for (int i = 0; i < an; i++) {
+            distance += ax[i] * b[bOffset + ai[i]];
+        }
+        return distance;
+    }
+
+    static double sparseDenseCosine(int[] ai, float[] ax, int an, float[] b, int bOffset, int n) {
+        float similarity = sparseDenseInnerProduct(ai, ax, an, b, bOffset);
+        float norma = 0.0f;
+        float normb = 0.0f;
+        for (int i = 0; i < an; i++) {
+            norma += ax[i] * ax[i];
+        }
+        for (int i = 0; i < n; i++) {
+            normb += b[bOffset + i] * b[bOffset + i];
+        }
+        return cosineDistance(similarity, norma, normb);
+    }
+
+    static float sparseDenseL1(int[] ai, float[] ax, int an, float[] b, int bOffset, int n) {
+        float distance = 0.0f;
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (j < an && ai[j] == i) {
+                distance += Math.abs(ax[j++] - b[bOffset + i]);
+            } else {
+                distance += Math.abs(b[bOffset + i]);
+            }
+        }
+        return distance;
+    }
+
+    static long hamming(byte[] a, byte[] b, int n) {
+        long distance = 0;
+        for (int i = 0; i < n; i++) {
+            distance += Integer.bitCount((a[i] ^ b[i]) & 0xff);
+        }
+        return distance;
+    }
+
+    static double jaccard(byte[] a, byte[] b, int n) {
+        long ab = 0;
+        long aa = 0;
+        long bb = 0;
+        for (int i = 0; i < n; i++) {
+            ab += Integer.bitCount(a[i] & b[i] & 0xff);
+            aa += Integer.bitCount(a[i] & 0xff);
+            bb += Integer.bitCount(b[i] & 0xff);
+        }
+        if (ab == 0) {
+            return 1;
+        }
+        return 1 - (ab / ((double) (aa + bb - ab)));
+    }
+
+    static void checkDimensions(String type, int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("different " + type + " dimensions " + a + " and " + b);
+        }
+    }
+
+    static void checkLengths(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("different bit lengths " + a + " and " + b);
+        }
+    }
+
+    private static double cosineDistance(float similarity, float norma, float normb) {
+        // use sqrt(a * b) over sqrt(a) * sqrt(b)
+        double s = similarity / Math.sqrt((double) norma * (double) normb);
+        if (s > 1) {
+            s = 1.0;
+        } else if (s < -1) {
+            s = -1.0;
+        }
+        return 1.0 - s;
+    }
+
+    private static float half(float f) {
+        return HalfFloat.toFloat(HalfFloat.fromFloat(f));
+    }
+}
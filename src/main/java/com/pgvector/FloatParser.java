@@ -0,0 +1,238 @@
+package com.pgvector;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses text representations of vectors without intermediate strings.
+ * <p>
+ * Elements are parsed with a fast path for decimals with at most 19 significant
+ * digits and small exponents, which covers the output of the server. The fast path
+ * computes a correctly rounded double and only narrows it to float when that cannot
+ * double round, so results match Float.parseFloat. Other inputs use Float.parseFloat.
+ */
+final class FloatParser {
+    private static final double[] POWERS_OF_TEN = new double[] {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT = 1L << 53;
+
+    private FloatParser() {
+    }
+
+    /**
+     * Parses a vector of the form <code>[1,2,3]</code>.
+     */
+    static float[] parseVector(CharSequence s) {
+        int start = 1;
+        int end = s.length() - 1;
+        float[] vec = new float[countElements(s, start, end)];
+        if (vec.length > 0) {
+            parseElements(s, start, end, vec, 0);
+        }
+        return vec;
+    }
+
+    /**
+     * Counts comma-separated elements.
+     */
+    static int countElements(CharSequence s, int start, int end) {
+        if (isBlank(s, start, end)) {
+            return 0;
+        }
+
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses comma-separated elements into an array with room for the exact number of elements.
+     */
+    static void parseElements(CharSequence s, int start, int end, float[] vec, int offset) {
+        int elementStart = start;
+        int j = offset;
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == ',') {
+                vec[j++] = parseFloat(s, elementStart, i);
+                elementStart = i + 1;
+            }
+        }
+        vec[j] = parseFloat(s, elementStart, end);
+    }
+
+    /**
+     * Parses a float with the same result as Float.parseFloat.
+     */
+    static float parseFloat(CharSequence s, int start, int end) {
+        int i = start;
+        int e = end;
+        while (i < e && s.charAt(i) <= ' ') {
+            i++;
+        }
+        while (e > i && s.charAt(e - 1) <= ' ') {
+            e--;
+        }
+
+        boolean negative = false;
+        if (i < e) {
+            char c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+
+        for (; i < e; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            anyDigits = true;
+            if (digits > 0 || c != '0') {
+                if (digits == 19) {
+                    return fallback(s, start, end);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+            }
+        }
+
+        if (i < e && s.charAt(i) == '.') {
+            i++;
+            for (; i < e; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                anyDigits = true;
+                if (digits > 0 || c != '0') {
+                    if (digits == 19) {
+                        return fallback(s, start, end);
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                }
+                exponent--;
+            }
+        }
+
+        if (!anyDigits) {
+            return fallback(s, start, end);
+        }
+
+        if (i < e && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < e && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int expStart = i;
+            int exp = 0;
+            for (; i < e; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9' || i - expStart == 4) {
+                    break;
+                }
+                exp = exp * 10 + (c - '0');
+            }
+            if (i == expStart) {
+                return fallback(s, start, end);
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+
+        if (i != e) {
+            return fallback(s, start, end);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+
+        double d;
+        if (mantissa >= MAX_EXACT) {
+            return fallback(s, start, end);
+        } else if (exponent >= 0 && exponent <= 22) {
+            d = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && exponent >= -22) {
+            d = mantissa / POWERS_OF_TEN[-exponent];
+        } else if (exponent > 22 && exponent <= 22 + 15 && mantissa * POWERS_OF_TEN[exponent - 22] < MAX_EXACT) {
+            // move part of the exponent into the mantissa while it stays exact
+            d = (mantissa * POWERS_OF_TEN[exponent - 22]) * POWERS_OF_TEN[22];
+        } else {
+            return fallback(s, start, end);
+        }
+
+        float f = (float) d;
+        if (d != f) {
+            // a double exactly halfway between two floats may have been rounded there
+            float g = d > f ? Math.nextUp(f) : Math.nextDown(f);
+            if (d == ((double) f + (double) g) / 2) {
+                return fallback(s, start, end);
+            }
+        }
+        return negative ? -f : f;
+    }
+
+    /**
+     * Returns the bytes of a text representation, which is always ASCII, as characters.
+     */
+    static CharSequence ascii(byte[] bytes) {
+        return new AsciiSequence(bytes, 0, bytes.length);
+    }
+
+    private static float fallback(CharSequence s, int start, int end) {
+        return Float.parseFloat(s.subSequence(start, end).toString());
+    }
+
+    private static boolean isBlank(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The bytes of a text representation, which is always ASCII.
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+
+        AsciiSequence(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int length() {
+            return end - start;
+        }
+
+        public char charAt(int index) {
+            return (char) (bytes[start + index] & 0xff);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiSequence(bytes, this.start + start, this.start + end);
+        }
+
+        public String toString() {
+            return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pgvector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Conversions between float and IEEE 754 half precision.
+ * <p>
+ * Uses Float.floatToFloat16/float16ToFloat on Java 20+, which are intrinsics
+ * on supported hardware, and a software implementation otherwise.
+ */
+final class HalfFloat {
+    private static final MethodHandle FROM_FLOAT = findConversion("floatToFloat16", short.class, float.class);
+    private static final MethodHandle TO_FLOAT = findConversion("float16ToFloat", float.class, short.class);
+
+    private HalfFloat() {
+    }
+
+    /**
+     * Converts a float to half precision, rounding to nearest even.
+     */
+    static short fromFloat(float f) {
+        if (FROM_FLOAT != null) {
+            try {
+                return (short) FROM_FLOAT.invokeExact(f);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return fromFloatSoftware(f);
+    }
+
+    /**
+     * Converts a half precision value to a float.
+     */
+    static float toFloat(short h) {
+        if (TO_FLOAT != null) {
+            try {
+                return (float) TO_FLOAT.invokeExact(h);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return toFloatSoftware(h);
+    }
+
+    static short fromFloatSoftware(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+
+        if (Float.isNaN(f)) {
+            return (short) (sign | 0x7c00 | 0x0200 | ((bits >>> 13) & 0x03ff));
+        }
+
+        float abs = Math.abs(f);
+
+        // max half value plus half an ulp
+        if (abs >= 0x1.ffep15f) {
+            return (short) (sign | 0x7c00);
+        }
+
+        // half the min subnormal half value or less
+        if (abs <= 0x1.0p-25f) {
+            return (short) sign;
+        }
+
+        int exp = Math.getExponent(f);
+        int shift = 13;
+        int significand = bits & 0x007fffff;
+        if (exp < -14) {
+            // subnormal half, so include the implicit bit
+            shift += -14 - exp;
+            exp = -15;
+            significand |= 0x00800000;
+        }
+
+        int half = significand >> shift;
+        int round = significand & (1 << (shift - 1));
+        int sticky = significand & ((1 << (shift - 1)) - 1);
+        if (round != 0 && ((half & 1) != 0 || sticky != 0)) {
+            // may carry into the exponent, which is still correct
+            half++;
+        }
+
+        return (short) (sign | (((exp + 15) << 10) + half));
+    }
+
+    static float toFloatSoftware(short h) {
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1f;
+        int significand = h & 0x03ff;
+
+        if (exp == 0) {
+            float f = 0x1.0p-24f * significand;
+            return sign == 0 ? f : -f;
+        } else if (exp == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (significand << 13));
+        }
+
+        return Float.intBitsToFloat(sign | ((exp - 15 + 127) << 23) | (significand << 13));
+    }
+
+    private static MethodHandle findConversion(String name, Class<?> returnType, Class<?> parameterType) {
+        try {
+            return MethodHandles.publicLookup().findStatic(Float.class, name, MethodType.methodType(returnType, parameterType));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.pgvector;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import org.hibernate.HibernateException;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractClassJavaType;
+import org.hibernate.type.descriptor.java.MutableMutabilityPlan;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.type.descriptor.jdbc.JdbcTypeIndicators;
+import org.postgresql.util.PGobject;
+
+/**
+ * A Hibernate Java type for vectors.
+ * <p>
+ * Values are compared with <code>equals</code> and copied with
+ * <code>clone</code> for dirty checking.
+ *
+ * @param <T> vector class
+ */
+public class HibernateJavaType<T extends PGobject> extends AbstractClassJavaType<T> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The vector type.
+     */
+    public static final HibernateJavaType<PGvector> VECTOR = new HibernateJavaType<>(PGvector.class, HibernateJdbcType.VECTOR, PGvector::new);
+
+    /**
+     * The halfvec type.
+     */
+    public static final HibernateJavaType<PGhalfvec> HALFVEC = new HibernateJavaType<>(PGhalfvec.class, HibernateJdbcType.HALFVEC, PGhalfvec::new);
+
+    /**
+     * The sparsevec type.
+     */
+    public static final HibernateJavaType<PGsparsevec> SPARSEVEC = new HibernateJavaType<>(PGsparsevec.class, HibernateJdbcType.SPARSEVEC, PGsparsevec::new);
+
+    /**
+     * The bit type.
+     */
+    public static final HibernateJavaType<PGbit> BIT = new HibernateJavaType<>(PGbit.class, HibernateJdbcType.BIT, PGbit::new);
+
+    @FunctionalInterface
+    private interface Parser<T> extends Serializable {
+        T parse(String s) throws SQLException;
+    }
+
+    private final HibernateJdbcType jdbcType;
+    private final Parser<T> parser;
+
+    private HibernateJavaType(Class<T> type, HibernateJdbcType jdbcType, Parser<T> parser) {
+        super(type, new CloneMutabilityPlan<T>());
+        this.jdbcType = jdbcType;
+        this.parser = parser;
+    }
+
+    @Override
+    public JdbcType getRecommendedJdbcType(JdbcTypeIndicators indicators) {
+        return jdbcType;
+    }
+
+    @Override
+    public String toString(T value) {
+        return value.getValue();
+    }
+
+    @Override
+    public T fromString(CharSequence string) {
+        return parse(string.toString());
+    }
+
+    @Override
+    public <X> X unwrap(T value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (type == String.class) {
+            return type.cast(value.getValue());
+        }
+        throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> T wrap(X value, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (getJavaTypeClass().isInstance(value)) {
+            return getJavaTypeClass().cast(value);
+        }
+        if (value instanceof PGobject) {
+            return parse(((PGobject) value).getValue());
+        }
+        if (value instanceof String) {
+            return parse((String) value);
+        }
+        throw unknownWrap(value.getClass());
+    }
+
+    private T parse(String s) {
+        try {
+            return parser.parse(s);
+        } catch (SQLException e) {
+            throw new HibernateException(e);
+        }
+    }
+
+    private static final class CloneMutabilityPlan<T extends PGobject> extends MutableMutabilityPlan<T> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected T deepCopyNotNull(T value) {
+            try {
+                return (T) value.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new HibernateException(e);
+            }
+        }
+    }
+}
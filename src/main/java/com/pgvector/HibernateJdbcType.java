@@ -0,0 +1,126 @@
+package com.pgvector;
+
+import java.io.Serializable;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.ValueBinder;
+import org.hibernate.type.descriptor.ValueExtractor;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.JavaType;
+import org.hibernate.type.descriptor.jdbc.BasicBinder;
+import org.hibernate.type.descriptor.jdbc.BasicExtractor;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.postgresql.util.PGobject;
+
+/**
+ * A Hibernate JDBC type for vectors.
+ * <p>
+ * Values are bound and read with the binary representation when the type is
+ * registered on the connection, for instance with the
+ * <code>datatype.vector=com.pgvector.PGvector</code> connection property, and
+ * with the text representation otherwise.
+ */
+public class HibernateJdbcType implements JdbcType {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The vector type.
+     */
+    public static final HibernateJdbcType VECTOR = new HibernateJdbcType("vector", SqlTypes.VECTOR, PGvector.class, (rs, i) -> {
+        PGvector v = new PGvector();
+        return v.readFrom(rs, i) ? v : null;
+    });
+
+    /**
+     * The halfvec type.
+     */
+    public static final HibernateJdbcType HALFVEC = new HibernateJdbcType("halfvec", SqlTypes.OTHER, PGhalfvec.class, (rs, i) -> {
+        PGhalfvec v = new PGhalfvec();
+        return v.readFrom(rs, i) ? v : null;
+    });
+
+    /**
+     * The sparsevec type.
+     */
+    public static final HibernateJdbcType SPARSEVEC = new HibernateJdbcType("sparsevec", SqlTypes.OTHER, PGsparsevec.class, (rs, i) -> {
+        PGsparsevec v = new PGsparsevec();
+        return v.readFrom(rs, i) ? v : null;
+    });
+
+    /**
+     * The bit type.
+     */
+    public static final HibernateJdbcType BIT = new HibernateJdbcType("bit", SqlTypes.OTHER, PGbit.class, (rs, i) -> {
+        PGbit v = new PGbit();
+        return v.readFrom(rs, i) ? v : null;
+    });
+
+    @FunctionalInterface
+    private interface Reader extends Serializable {
+        PGobject read(ResultSet rs, int columnIndex) throws SQLException;
+    }
+
+    private final String typeName;
+    private final int jdbcTypeCode;
+    private final Class<? extends PGobject> type;
+    private final Reader reader;
+
+    private HibernateJdbcType(String typeName, int jdbcTypeCode, Class<? extends PGobject> type, Reader reader) {
+        this.typeName = typeName;
+        this.jdbcTypeCode = jdbcTypeCode;
+        this.type = type;
+        this.reader = reader;
+    }
+
+    @Override
+    public int getJdbcTypeCode() {
+        return jdbcTypeCode;
+    }
+
+    @Override
+    public String getFriendlyName() {
+        return typeName;
+    }
+
+    @Override
+    public <X> ValueBinder<X> getBinder(JavaType<X> javaType) {
+        return new BasicBinder<X>(javaType, this) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void doBind(PreparedStatement st, X value, int index, WrapperOptions options) throws SQLException {
+                st.setObject(index, javaType.unwrap(value, type, options));
+            }
+
+            @Override
+            protected void doBind(CallableStatement st, X value, String name, WrapperOptions options) throws SQLException {
+                st.setObject(name, javaType.unwrap(value, type, options));
+            }
+        };
+    }
+
+    @Override
+    public <X> ValueExtractor<X> getExtractor(JavaType<X> javaType) {
+        return new BasicExtractor<X>(javaType, this) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected X doExtract(ResultSet rs, int paramIndex, WrapperOptions options) throws SQLException {
+                return javaType.wrap(reader.read(rs, paramIndex), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, int index, WrapperOptions options) throws SQLException {
+                return javaType.wrap(statement.getObject(index), options);
+            }
+
+            @Override
+            protected X doExtract(CallableStatement statement, String name, WrapperOptions options) throws SQLException {
+                return javaType.wrap(statement.getObject(name), options);
+            }
+        };
+    }
+}
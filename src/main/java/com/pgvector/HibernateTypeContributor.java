@@ -0,0 +1,29 @@
+package com.pgvector;
+
+import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.boot.model.TypeContributor;
+import org.hibernate.service.ServiceRegistry;
+
+/**
+ * Contributes the vector types to Hibernate.
+ * <p>
+ * Register this with the <code>hibernate.type_contributors</code> setting so
+ * entities can have {@link PGvector}, {@link PGhalfvec}, {@link PGsparsevec},
+ * and {@link PGbit} attributes. It is not registered automatically, since it
+ * requires Hibernate 7+.
+ */
+public class HibernateTypeContributor implements TypeContributor {
+    /**
+     * @hidden
+     */
+    public HibernateTypeContributor() {
+    }
+
+    @Override
+    public void contribute(TypeContributions typeContributions, ServiceRegistry serviceRegistry) {
+        typeContributions.contributeJavaType(HibernateJavaType.VECTOR);
+        typeContributions.contributeJavaType(HibernateJavaType.HALFVEC);
+        typeContributions.contributeJavaType(HibernateJavaType.SPARSEVEC);
+        typeContributions.contributeJavaType(HibernateJavaType.BIT);
+    }
+}
@@ -0,0 +1,771 @@
+package com.pgvector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory HNSW index.
+ * <p>
+ * Distances are the same as the operators in the server, and the defaults for
+ * <code>m</code>, <code>ef_construction</code>, and <code>ef_search</code> are
+ * the same as pgvector. Searches can run concurrently with each other, and
+ * inserts and deletes wait for them. Deleted vectors are marked and still used
+ * to navigate the graph until it is rebuilt. With cosine distance, zero vectors
+ * are not indexed, like the server.
+ */
+public class HnswIndex {
+    /**
+     * The result of a search.
+     */
+    public static final class Result {
+        private final long[] ids;
+        private final double[] distances;
+
+        Result(long[] ids, double[] distances) {
+            this.ids = ids;
+            this.distances = distances;
+        }
+
+        /**
+         * Returns the ids, nearest first.
+         *
+         * @return the ids
+         */
+        public long[] getIds() {
+            return ids;
+        }
+
+        /**
+         * Returns the distances, like the operator returns them.
+         *
+         * @return the distances
+         */
+        public double[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Returns the number of results.
+         *
+         * @return the number of results
+         */
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    private final ColumnType type;
+    private final int dimensions;
+    private final DistanceOperator operator;
+    private final String typeName;
+    private final int bytes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Visited> visited = new ThreadLocal<>();
+    private final Random random = new Random();
+    private int m = 16;
+    private int efConstruction = 64;
+    private volatile int efSearch = 40;
+
+    private long[] ids = new long[16];
+    private float[][] vectors;
+    private byte[][] bits;
+    // neighbors of each node by level, with the count first
+    private int[][][] neighbors = new int[16][][];
+    private boolean[] deleted = new boolean[16];
+    private final Map<Long, Integer> nodes = new HashMap<>();
+    private int count;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * Creates an index.
+     *
+     * @param type vector, halfvec, or bit
+     * @param dimensions number of dimensions, or number of bits for bit
+     * @param operator distance operator
+     */
+    public HnswIndex(ColumnType type, int dimensions, DistanceOperator operator) {
+        if (type == ColumnType.VECTOR || type == ColumnType.HALFVEC) {
+            operator.dense(new float[0], 0, new float[0], 0, 0, false, type.getTypeName());
+            vectors = new float[16][];
+        } else if (type == ColumnType.BIT) {
+            operator.bit(new byte[0], new byte[0], 0);
+            bits = new byte[16][];
+        } else {
+            throw new IllegalArgumentException("unsupported type " + type.getTypeName());
+        }
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("expected dimensions to be at least 1");
+        }
+        this.type = type;
+        this.dimensions = dimensions;
+        this.operator = operator;
+        this.typeName = type.getTypeName();
+        this.bytes = (dimensions + 7) / 8;
+    }
+
+    /**
+     * Sets the maximum number of connections per layer. Must be set before
+     * adding vectors. The default is 16.
+     *
+     * @param m maximum number of connections
+     */
+    public void setM(int m) {
+        if (m < 2 || m > 100) {
+            throw new IllegalArgumentException("m must be between 2 and 100");
+        }
+        lock.writeLock().lock();
+        try {
+            if (count > 0) {
+                throw new IllegalStateException("m must be set before adding vectors");
+            }
+            this.m = m;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the size of the dynamic candidate list for adding vectors. The
+     * default is 64.
+     *
+     * @param efConstruction size of the candidate list
+     */
+    public void setEfConstruction(int efConstruction) {
+        if (efConstruction < 4 || efConstruction > 1000) {
+            throw new IllegalArgumentException("ef_construction must be between 4 and 1000");
+        }
+        lock.writeLock().lock();
+        try {
+            this.efConstruction = efConstruction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the size of the dynamic candidate list for search. The default is 40.
+     *
+     * @param efSearch size of the candidate list
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1 || efSearch > 1000) {
+            throw new IllegalArgumentException("ef_search must be between 1 and 1000");
+        }
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * Adds or replaces a vector or half vector.
+     *
+     * @param id id
+     * @param v float array
+     * @return whether the vector was indexed
+     */
+    public boolean add(long id, float[] v) {
+        if (type == ColumnType.BIT) {
+            throw new IllegalArgumentException("expected bit string");
+        }
+        Distances.checkDimensions(typeName, dimensions, v.length);
+        float[] copy = type == ColumnType.HALFVEC ? roundHalf(v) : v.clone();
+        if (operator == DistanceOperator.COSINE && isZero(copy)) {
+            remove(id);
+            return false;
+        }
+        insert(id, copy, null);
+        return true;
+    }
+
+    /**
+     * Adds or replaces a vector.
+     *
+     * @param id id
+     * @param v vector
+     * @return whether the vector was indexed
+     */
+    public boolean add(long id, PGvector v) {
+        checkType(ColumnType.VECTOR);
+        return add(id, v.toArray());
+    }
+
+    /**
+     * Adds or replaces a half vector.
+     *
+     * @param id id
+     * @param v half vector
+     * @return whether the vector was indexed
+     */
+    public boolean add(long id, PGhalfvec v) {
+        checkType(ColumnType.HALFVEC);
+        return add(id, v.toArray());
+    }
+
+    /**
+     * Adds or replaces a bit string.
+     *
+     * @param id id
+     * @param v bit string
+     * @return whether the bit string was indexed
+     */
+    public boolean add(long id, PGbit v) {
+        checkType(ColumnType.BIT);
+        Distances.checkLengths(dimensions, v.length());
+        insert(id, null, v.toByteArray().clone());
+        return true;
+    }
+
+    /**
+     * Adds or replaces the rows of a result set.
+     * <p>
+     * Rows with null values are skipped.
+     *
+     * @param rs result set
+     * @param idColumn index of a bigint or integer column
+     * @param vectorColumn index of the vector column
+     * @return the number of vectors indexed
+     * @throws SQLException exception
+     */
+    public int load(ResultSet rs, int idColumn, int vectorColumn) throws SQLException {
+        int loaded = 0;
+        if (type == ColumnType.BIT) {
+            PGbit v = new PGbit();
+            while (rs.next()) {
+                if (v.readFrom(rs, vectorColumn) && add(rs.getLong(idColumn), v)) {
+                    loaded++;
+                }
+            }
+        } else {
+            // reused for each row
+            PGvector v = new PGvector();
+            PGhalfvec h = new PGhalfvec();
+            while (rs.next()) {
+                float[] a;
+                if (type == ColumnType.VECTOR) {
+                    a = v.readFrom(rs, vectorColumn) ? v.toArray() : null;
+                } else {
+                    a = h.readFrom(rs, vectorColumn) ? h.toArray() : null;
+                }
+                if (a != null && add(rs.getLong(idColumn), a)) {
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes a vector.
+     *
+     * @param id id
+     * @return whether the vector was removed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodes.remove(id);
+            if (node == null) {
+                return false;
+            }
+            deleted[node] = true;
+            deletedCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns whether an id is indexed.
+     *
+     * @param id id
+     * @return whether the id is indexed
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return nodes.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the nearest vectors or half vectors.
+     *
+     * @param query float array
+     * @param k number of results
+     * @return the result
+     */
+    public Result search(float[] query, int k) {
+        if (type == ColumnType.BIT) {
+            throw new IllegalArgumentException("expected bit string");
+        }
+        Distances.checkDimensions(typeName, dimensions, query.length);
+        return search(type == ColumnType.HALFVEC ? roundHalf(query) : query, null, k);
+    }
+
+    /**
+     * Returns the nearest bit strings.
+     *
+     * @param query bit string
+     * @param k number of results
+     * @return the result
+     */
+    public Result search(PGbit query, int k) {
+        checkType(ColumnType.BIT);
+        Distances.checkLengths(dimensions, query.length());
+        return search(null, query.toByteArray(), k);
+    }
+
+    /**
+     * Returns the number of vectors.
+     *
+     * @return the number of vectors
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of removed vectors that are still in the graph.
+     *
+     * @return the number of removed vectors
+     */
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the graph without removed vectors.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            long[] oldIds = ids;
+            float[][] oldVectors = vectors;
+            byte[][] oldBits = bits;
+            boolean[] oldDeleted = deleted;
+            int oldCount = count;
+
+            int capacity = Math.max(16, oldCount - deletedCount);
+            ids = new long[capacity];
+            vectors = oldVectors == null ? null : new float[capacity][];
+            bits = oldBits == null ? null : new byte[capacity][];
+            neighbors = new int[capacity][][];
+            deleted = new boolean[capacity];
+            nodes.clear();
+            count = 0;
+            deletedCount = 0;
+            entryPoint = -1;
+            maxLevel = -1;
+            for (int i = 0; i < oldCount; i++) {
+                if (!oldDeleted[i]) {
+                    insertLocked(oldIds[i], oldVectors == null ? null : oldVectors[i], oldBits == null ? null : oldBits[i]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(long id, float[] v, byte[] b) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodes.remove(id);
+            if (existing != null) {
+                deleted[existing] = true;
+                deletedCount++;
+            }
+            insertLocked(id, v, b);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insertLocked(long id, float[] v, byte[] b) {
+        int node = count;
+        if (node == ids.length) {
+            grow();
+        }
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) / Math.log(m));
+        ids[node] = id;
+        if (vectors != null) {
+            vectors[node] = v;
+        } else {
+            bits[node] = b;
+        }
+        neighbors[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            neighbors[node][l] = new int[maxConnections(l) + 1];
+        }
+        count++;
+        nodes.put(id, node);
+
+        if (entryPoint == -1) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        Visited seen = visited(count);
+        int ep = entryPoint;
+        double epDistance = distance(v, b, ep);
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedy(v, b, ep, epDistance, l);
+            epDistance = distance(v, b, ep);
+        }
+        Heap entry = new Heap(1, false);
+        entry.push(epDistance, ep);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            Heap found = searchLayer(v, b, entry, efConstruction, l, seen);
+            int[] selected = selectNeighbors(found, maxConnections(l));
+            int[] links = neighbors[node][l];
+            for (int s : selected) {
+                links[++links[0]] = s;
+                connect(s, node, l);
+            }
+            entry = found;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    private Result search(float[] v, byte[] b, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1) {
+                return new Result(new long[0], new double[0]);
+            }
+            int ep = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                ep = greedy(v, b, ep, distance(v, b, ep), l);
+            }
+            Heap entry = new Heap(1, false);
+            entry.push(distance(v, b, ep), ep);
+            Heap found = searchLayer(v, b, entry, Math.max(efSearch, k), 0, visited(count));
+
+            int n = found.size();
+            int[] order = new int[n];
+            double[] orderDistances = new double[n];
+            for (int i = n - 1; i >= 0; i--) {
+                orderDistances[i] = found.topDistance();
+                order[i] = found.pop();
+            }
+            long[] resultIds = new long[Math.min(k, n)];
+            double[] resultDistances = new double[resultIds.length];
+            int size = 0;
+            for (int i = 0; i < n && size < resultIds.length; i++) {
+                if (!deleted[order[i]]) {
+                    resultIds[size] = ids[order[i]];
+                    resultDistances[size] = orderDistances[i];
+                    size++;
+                }
+            }
+            return new Result(Arrays.copyOf(resultIds, size), Arrays.copyOf(resultDistances, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // returns the nearest node found by moving to closer neighbors
+    private int greedy(float[] v, byte[] b, int ep, double epDistance, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] links = neighbors[ep][level];
+            for (int i = 1; i <= links[0]; i++) {
+                int e = links[i];
+                double d = distance(v, b, e);
+                if (d < epDistance) {
+                    epDistance = d;
+                    ep = e;
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    // returns up to ef nearest nodes as a max heap
+    private Heap searchLayer(float[] v, byte[] b, Heap entry, int ef, int level, Visited seen) {
+        seen.clear();
+        Heap candidates = new Heap(Math.max(ef, entry.size()), true);
+        Heap found = new Heap(ef + 1, false);
+        for (int i = 0; i < entry.size(); i++) {
+            int node = entry.nodes[i];
+            seen.add(node);
+            candidates.push(entry.distances[i], node);
+            found.push(entry.distances[i], node);
+            if (found.size() > ef) {
+                found.pop();
+            }
+        }
+        while (candidates.size() > 0) {
+            double d = candidates.topDistance();
+            int c = candidates.pop();
+            if (found.size() >= ef && d > found.topDistance()) {
+                break;
+            }
+            int[] links = neighbors[c][level];
+            for (int i = 1; i <= links[0]; i++) {
+                int e = links[i];
+                if (seen.add(e)) {
+                    double ed = distance(v, b, e);
+                    if (found.size() < ef || ed < found.topDistance()) {
+                        candidates.push(ed, e);
+                        found.push(ed, e);
+                        if (found.size() > ef) {
+                            found.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // keeps candidates that are closer to the new node than to selected neighbors
+    private int[] selectNeighbors(Heap found, int max) {
+        int n = found.size();
+        int[] sorted = new int[n];
+        double[] sortedDistances = new double[n];
+        Heap copy = found.copy();
+        for (int i = n - 1; i >= 0; i--) {
+            sortedDistances[i] = copy.topDistance();
+            sorted[i] = copy.pop();
+        }
+        return selectNeighbors(sorted, sortedDistances, n, max);
+    }
+
+    private int[] selectNeighbors(int[] sorted, double[] sortedDistances, int n, int max) {
+        int[] selected = new int[Math.min(n, max)];
+        int size = 0;
+        for (int i = 0; i < n && size < selected.length; i++) {
+            int e = sorted[i];
+            boolean keep = true;
+            for (int j = 0; j < size; j++) {
+                if (nodeDistance(e, selected[j]) < sortedDistances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[size++] = e;
+            }
+        }
+        return Arrays.copyOf(selected, size);
+    }
+
+    private void connect(int from, int to, int level) {
+        int[] links = neighbors[from][level];
+        int max = links.length - 1;
+        if (links[0] < max) {
+            links[++links[0]] = to;
+            return;
+        }
+
+        // shrink the connections of the neighbor
+        int n = links[0] + 1;
+        Heap heap = new Heap(n, false);
+        for (int i = 1; i <= links[0]; i++) {
+            heap.push(nodeDistance(from, links[i]), links[i]);
+        }
+        heap.push(nodeDistance(from, to), to);
+        int[] sorted = new int[n];
+        double[] sortedDistances = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sortedDistances[i] = heap.topDistance();
+            sorted[i] = heap.pop();
+        }
+        int[] selected = selectNeighbors(sorted, sortedDistances, n, max);
+        links[0] = selected.length;
+        System.arraycopy(selected, 0, links, 1, selected.length);
+    }
+
+    private double distance(float[] v, byte[] b, int node) {
+        if (v != null) {
+            return operator.dense(v, 0, vectors[node], 0, dimensions, false, typeName);
+        } else {
+            return operator.bit(b, bits[node], bytes);
+        }
+    }
+
+    private double nodeDistance(int a, int b) {
+        return distance(vectors == null ? null : vectors[a], bits == null ? null : bits[a], b);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? m * 2 : m;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        if (vectors != null) {
+            vectors = Arrays.copyOf(vectors, capacity);
+        } else {
+            bits = Arrays.copyOf(bits, capacity);
+        }
+        neighbors = Arrays.copyOf(neighbors, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+    }
+
+    private Visited visited(int capacity) {
+        Visited v = visited.get();
+        if (v == null || v.marks.length < capacity) {
+            v = new Visited(Math.max(capacity, 16) * 2);
+            visited.set(v);
+        }
+        return v;
+    }
+
+    private void checkType(ColumnType given) {
+        if (type != given) {
+            throw new IllegalArgumentException("expected " + typeName + ", got " + given.getTypeName());
+        }
+    }
+
+    private static float[] roundHalf(float[] v) {
+        float[] r = new float[v.length];
+        for (int i = 0; i < v.length; i++) {
+            r[i] = HalfFloat.toFloat(HalfFloat.fromFloat(v[i]));
+        }
+        return r;
+    }
+
+    private static boolean isZero(float[] v) {
+        for (float f : v) {
+            if (f != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // nodes visited by a search, cleared by starting a new generation
+    private static final class Visited {
+        private final int[] marks;
+        private int generation;
+
+        Visited(int capacity) {
+            marks = new int[capacity];
+        }
+
+        void clear() {
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    // binary heap of nodes by distance
+    private static final class Heap {
+        private final boolean min;
+        private double[] distances;
+        private int[] nodes;
+        private int size;
+
+        Heap(int capacity, boolean min) {
+            this.min = min;
+            this.distances = new double[Math.max(capacity, 1)];
+            this.nodes = new int[distances.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        double topDistance() {
+            return distances[0];
+        }
+
+        void push(double distance, int node) {
+            if (size == distances.length) {
+                distances = Arrays.copyOf(distances, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                distances[i] = distances[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            distances[i] = distance;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            double distance = distances[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!before(distances[child], distance)) {
+                    break;
+                }
+                distances[i] = distances[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            distances[i] = distance;
+            nodes[i] = node;
+            return top;
+        }
+
+        Heap copy() {
+            Heap h = new Heap(distances.length, min);
+            System.arraycopy(distances, 0, h.distances, 0, size);
+            System.arraycopy(nodes, 0, h.nodes, 0, size);
+            h.size = size;
+            return h;
+        }
+
+        private boolean before(double a, double b) {
+            return min ? a < b : a > b;
+        }
+    }
+}
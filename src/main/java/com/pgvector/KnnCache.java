@@ -0,0 +1,357 @@
+package com.pgvector;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.postgresql.util.PGBinaryObject;
+
+/**
+ * A cache of nearest neighbor results.
+ * <p>
+ * Results are keyed by the binary representation of the query, the operator,
+ * the number of results, and any filters. The least recently used results are
+ * evicted when the total weight is exceeded, and results expire after a time
+ * to live. Results for a table are invalidated by notifications on a
+ * <code>LISTEN</code> channel with the table name as the payload, or all
+ * results with an empty payload.
+ *
+ * @param <T> result type
+ */
+public class KnnCache<T> {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+    /**
+     * Loads a result on a miss.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        /**
+         * Loads a result.
+         *
+         * @return the result
+         * @throws SQLException exception
+         */
+        T load() throws SQLException;
+    }
+
+    /**
+     * A cache key.
+     */
+    public static final class Key {
+        private final String table;
+        private final byte[] query;
+        private final DistanceOperator operator;
+        private final int k;
+        private final Object[] filters;
+        private final int hash;
+
+        Key(String table, byte[] query, DistanceOperator operator, int k, Object[] filters) {
+            this.table = table;
+            this.query = query;
+            this.operator = operator;
+            this.k = k;
+            this.filters = filters;
+            int h = Arrays.hashCode(query);
+            h = 31 * h + operator.hashCode();
+            h = 31 * h + k;
+            h = 31 * h + Arrays.hashCode(filters);
+            this.hash = 31 * h + table.hashCode();
+        }
+
+        /**
+         * Returns the table.
+         *
+         * @return the table
+         */
+        public String getTable() {
+            return table;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                && k == other.k
+                && operator == other.operator
+                && table.equals(other.table)
+                && Arrays.equals(query, other.query)
+                && Arrays.equals(filters, other.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long weight;
+        private final long expiresAt;
+
+        Entry(T value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private ToLongFunction<T> weigher = value -> 1;
+    private long weight;
+    // incremented on invalidation so loads that started before are not stored
+    private long generation;
+    private long hits;
+    private long misses;
+    LongSupplier clock = System::nanoTime;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxWeight maximum total weight, which is the number of results by default
+     * @param ttlMillis time to live in milliseconds, or 0 for no expiration
+     */
+    public KnnCache(long maxWeight, long ttlMillis) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("max weight must be at least 1");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttl must not be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1000000L;
+    }
+
+    /**
+     * Sets the function for the weight of a result, like the number of rows.
+     * The default is 1.
+     *
+     * @param weigher weight function
+     */
+    public synchronized void setWeigher(ToLongFunction<T> weigher) {
+        this.weigher = Objects.requireNonNull(weigher);
+    }
+
+    /**
+     * Creates a key.
+     *
+     * @param table table name
+     * @param query vector, halfvec, sparsevec, or bit
+     * @param operator distance operator
+     * @param k number of results
+     * @param filters other query parameters
+     * @return the key
+     */
+    public static Key key(String table, PGBinaryObject query, DistanceOperator operator, int k, Object... filters) {
+        byte[] bytes = new byte[query.lengthInBytes()];
+        query.toBytes(bytes, 0);
+        return new Key(Objects.requireNonNull(table), bytes, Objects.requireNonNull(operator), k, filters.clone());
+    }
+
+    /**
+     * Returns a result, or null if not cached.
+     *
+     * @param key key
+     * @return the result
+     */
+    public synchronized T get(Key key) {
+        Entry<T> entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Returns a result, loading and caching it on a miss.
+     * <p>
+     * A result is not cached if the cache was invalidated while loading.
+     *
+     * @param key key
+     * @param loader loader
+     * @return the result
+     * @throws SQLException exception
+     */
+    public T get(Key key, Loader<T> loader) throws SQLException {
+        long start;
+        synchronized (this) {
+            T value = get(key);
+            if (value != null) {
+                return value;
+            }
+            start = generation;
+        }
+        T value = loader.load();
+        synchronized (this) {
+            if (generation == start && value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Caches a result.
+     *
+     * @param key key
+     * @param value result
+     */
+    public synchronized void put(Key key, T value) {
+        long w = weigher.applyAsLong(value);
+        if (w < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        remove(key);
+        if (w > maxWeight) {
+            return;
+        }
+        long expiresAt = ttlNanos == 0 ? 0 : clock.getAsLong() + ttlNanos;
+        entries.put(key, new Entry<>(value, w, expiresAt));
+        weight += w;
+        Iterator<Entry<T>> it = entries.values().iterator();
+        while (weight > maxWeight) {
+            weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all results for a table.
+     *
+     * @param table table name
+     */
+    public synchronized void invalidate(String table) {
+        generation++;
+        Iterator<Map.Entry<Key, Entry<T>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry<T>> e = it.next();
+            if (e.getKey().table.equals(table)) {
+                weight -= e.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Starts listening on a channel. Use a connection that is not used for
+     * other queries while polling.
+     *
+     * @param conn connection
+     * @param channel channel name
+     * @throws SQLException exception
+     */
+    public void listen(Connection conn, String channel) throws SQLException {
+        if (channel == null || !IDENTIFIER.matcher(channel).matches()) {
+            throw new IllegalArgumentException("invalid identifier " + channel);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("LISTEN " + channel);
+        }
+    }
+
+    /**
+     * Waits for notifications and invalidates results.
+     *
+     * @param conn connection that is listening
+     * @param timeoutMillis time to wait in milliseconds, or 0 to wait until a notification arrives
+     * @return the number of notifications
+     * @throws SQLException exception
+     */
+    public int poll(Connection conn, int timeoutMillis) throws SQLException {
+        PGNotification[] notifications = conn.unwrap(PGConnection.class).getNotifications(timeoutMillis);
+        if (notifications == null) {
+            return 0;
+        }
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            if (payload == null || payload.isEmpty()) {
+                invalidateAll();
+            } else {
+                invalidate(payload);
+            }
+        }
+        return notifications.length;
+    }
+
+    /**
+     * Returns the number of results.
+     *
+     * @return the number of results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total weight.
+     *
+     * @return the total weight
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the number of hits.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of misses.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    private boolean isExpired(Entry<T> entry) {
+        return entry.expiresAt != 0 && clock.getAsLong() - entry.expiresAt >= 0;
+    }
+
+    private void remove(Key key) {
+        Entry<T> old = entries.remove(key);
+        if (old != null) {
+            weight -= old.weight;
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.pgvector;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
@@ -15,8 +22,25 @@ import org.postgresql.util.PGobject;
  * A bit string.
  */
 public class PGbit extends PGobject implements PGBinaryObject, Serializable, Cloneable {
+    private static final long serialVersionUID = 3145897830557924508L;
+    // length and data are read from the default form of earlier versions, and
+    // newer versions write the binary representation
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("length", int.class),
+        new ObjectStreamField("data", byte[].class),
+        new ObjectStreamField("format", int.class)
+    };
+
     private int length;
     private byte[] data;
+    private boolean lazy;
+    // binary or text representation to decode on first access, which is only
+    // set for lazy values and is volatile so they can be shared by threads
+    private volatile byte[] raw;
+    private int rawOffset;
+    private volatile String text;
+    // cached hash code, or 0 if not computed
+    private transient int hash;
 
     /**
      * @hidden
@@ -50,6 +74,30 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
         data = v;
     }
 
+    /**
+     * Creates a bit string from packed bits.
+     * <p>
+     * The array is used without copying unless there are set bits past the
+     * length in the last byte, which are cleared in a copy like the server does.
+     *
+     * @param v byte array, most significant bit first
+     * @param length number of bits
+     */
+    public PGbit(byte[] v, int length) {
+        this();
+        long bytes = ((long) length + 7) / 8;
+        if (length < 0 || bytes != v.length) {
+            throw new IllegalArgumentException("expected " + bytes + " bytes for " + length + " bits, got " + v.length);
+        }
+        int padding = paddingMask(length);
+        if (padding != 0 && (v[v.length - 1] & padding) != 0) {
+            v = v.clone();
+            v[v.length - 1] &= ~padding;
+        }
+        this.length = length;
+        data = v;
+    }
+
     /**
      * Creates a bit string from a text representation.
      *
@@ -65,14 +113,23 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
      * Sets the value from a text representation of a bit string.
      */
     public void setValue(String s) throws SQLException {
-        if (s == null) {
+        hash = 0;
+        if (lazy) {
+            raw = null;
+            data = null;
+            text = s;
+        } else if (s == null) {
             data = null;
         } else {
-            length = s.length();
-            data = new byte[(length + 7) / 8];
-            for (int i = 0; i < length; i++) {
-                data[i / 8] |= (s.charAt(i) != '0' ? 1 : 0) << (7 - (i % 8));
-            }
+            parse(s);
+        }
+    }
+
+    private void parse(String s) {
+        length = s.length();
+        data = new byte[(length + 7) / 8];
+        for (int i = 0; i < length; i++) {
+            data[i / 8] |= (s.charAt(i) != '0' ? 1 : 0) << (7 - (i % 8));
         }
     }
 
@@ -80,14 +137,14 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
      * Returns the text representation of a bit string.
      */
     public String getValue() {
-        if (data == null) {
+        String t = text;
+        if (t != null) {
+            return t;
+        }
+        if (decode() == null) {
             return null;
         } else {
-            StringBuilder sb = new StringBuilder(length);
-            for (int i = 0; i < length; i++) {
-                sb.append(((data[i / 8] >> (7 - (i % 8))) & 1) == 1 ? '1' : '0');
-            }
-            return sb.toString();
+            return TextFormatter.formatBit(data, length);
         }
     }
 
@@ -95,25 +152,49 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
      * Returns the number of bytes for the binary representation.
      */
     public int lengthInBytes() {
-        return data == null ? 0 : 4 + data.length;
+        byte[] r = raw;
+        if (r != null) {
+            return 4 + (ByteConverter.int4(r, rawOffset) + 7) / 8;
+        }
+        return decode() == null ? 0 : 4 + data.length;
     }
 
     /**
      * Sets the value from a binary representation of a bit string.
      */
     public void setByteValue(byte[] value, int offset) throws SQLException {
+        hash = 0;
+        if (lazy) {
+            text = null;
+            data = null;
+            rawOffset = offset;
+            raw = value;
+        } else {
+            read(value, offset);
+        }
+    }
+
+    private void read(byte[] value, int offset) {
         length = ByteConverter.int4(value, offset);
         data = new byte[(length + 7) / 8];
         for (int i = 0; i < data.length; i++) {
             data[i] = value[offset + 4 + i];
         }
+        if (data.length > 0) {
+            data[data.length - 1] &= ~paddingMask(length);
+        }
     }
 
     /**
      * Writes the binary representation of a bit string.
      */
     public void toBytes(byte[] bytes, int offset) {
-        if (data == null) {
+        byte[] r = raw;
+        if (r != null) {
+            System.arraycopy(r, rawOffset, bytes, offset, 4 + (ByteConverter.int4(r, rawOffset) + 7) / 8);
+            return;
+        }
+        if (decode() == null) {
             return;
         }
 
@@ -123,12 +204,61 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
         }
     }
 
+    /**
+     * Sets the value from a column of the current row of a result set.
+     *
+     * @param rs result set
+     * @param columnIndex column index
+     * @return whether the value is not null
+     * @throws SQLException exception
+     */
+    public boolean readFrom(ResultSet rs, int columnIndex) throws SQLException {
+        byte[] value = rs.getBytes(columnIndex);
+        if (value == null) {
+            setValue(null);
+            return false;
+        }
+        // the first byte of the binary representation is the high byte of the
+        // length, which is never '0' or '1' for the maximum length of 83886080
+        if (value.length == 0 || value[0] == '0' || value[0] == '1') {
+            setValue(new String(value, StandardCharsets.US_ASCII));
+        } else {
+            setByteValue(value, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the Hamming distance.
+     *
+     * @param other bit string
+     * @return the distance
+     */
+    public double hammingDistance(PGbit other) {
+        return DistanceOperator.HAMMING.distance(this, other);
+    }
+
+    /**
+     * Returns the Jaccard distance.
+     *
+     * @param other bit string
+     * @return the distance
+     */
+    public double jaccardDistance(PGbit other) {
+        return DistanceOperator.JACCARD.distance(this, other);
+    }
+
     /**
      * Returns the length.
      *
      * @return an array
      */
     public int length() {
+        byte[] r = raw;
+        if (r != null) {
+            return ByteConverter.int4(r, rawOffset);
+        }
+        decode();
         return length;
     }
 
@@ -138,7 +268,7 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
      * @return an array
      */
     public byte[] toByteArray() {
-        return data;
+        return decode();
     }
 
     /**
@@ -147,6 +277,7 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
      * @return an array
      */
     public boolean[] toArray() {
+        decode();
         boolean[] bits = new boolean[length];
         for (int i = 0; i < length; i++) {
             bits[i] = ((data[i / 8] >> (7 - (i % 8))) & 1) == 1;
@@ -154,6 +285,66 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
         return bits;
     }
 
+    /**
+     * Returns whether the other object is a bit string with the same bits.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof PGbit)) {
+            return false;
+        }
+        PGbit other = (PGbit) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        if (decode() == null || other.decode() == null) {
+            return data == other.data;
+        }
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < data.length; i++) {
+            if (maskedByte(i) != other.maskedByte(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code of the bits. It is cached until the value is set, so
+     * changes to the array are not reflected.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && decode() != null) {
+            h = length;
+            for (int i = 0; i < data.length; i++) {
+                h = 31 * h + maskedByte(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    // bits past the length in the last byte
+    private static int paddingMask(int length) {
+        return length % 8 == 0 ? 0 : 0xFF >>> (length % 8);
+    }
+
+    // ignores bits past the length in the last byte
+    private int maskedByte(int i) {
+        int b = data[i] & 0xFF;
+        if (i == data.length - 1 && length % 8 != 0) {
+            b &= 0xFF << (8 - length % 8);
+        }
+        return b;
+    }
+
     /**
      * Registers the bit type.
      *
@@ -163,4 +354,95 @@ public class PGbit extends PGobject implements PGBinaryObject, Serializable, Clo
     public static void registerType(Connection conn) throws SQLException {
         conn.unwrap(PGConnection.class).addDataType("bit", PGbit.class);
     }
+
+    /**
+     * Registers the bit type with lazy decoding.
+     *
+     * @param conn connection
+     * @throws SQLException exception
+     */
+    public static void registerLazyType(Connection conn) throws SQLException {
+        conn.unwrap(PGConnection.class).addDataType("bit", PGbit.Lazy.class);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("format", 1);
+        out.writeFields();
+        if (raw == null && decode() == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        byte[] bytes = new byte[lengthInBytes()];
+        toBytes(bytes, 0);
+        out.writeBoolean(true);
+        out.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        lazy = this instanceof Lazy;
+        if (fields.get("format", 0) == 0) {
+            length = fields.get("length", 0);
+            data = (byte[]) fields.get("data", null);
+            return;
+        }
+        if (!in.readBoolean()) {
+            return;
+        }
+        byte[] header = new byte[4];
+        in.readFully(header);
+        int length = ByteConverter.int4(header, 0);
+        if (length < 0) {
+            throw new InvalidObjectException("invalid length");
+        }
+        byte[] bytes = Arrays.copyOf(header, 4 + (int) (((long) length + 7) / 8));
+        in.readFully(bytes, 4, bytes.length - 4);
+        try {
+            setByteValue(bytes, 0);
+        } catch (SQLException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    // returns the data
+    private byte[] decode() {
+        if (raw != null || text != null) {
+            decodeLazy();
+        }
+        return data;
+    }
+
+    // synchronized for values shared by threads before they are decoded, and
+    // raw and text are cleared after data is filled so other threads see it
+    private synchronized void decodeLazy() {
+        if (raw != null) {
+            read(raw, rawOffset);
+            raw = null;
+        } else if (text != null) {
+            parse(text);
+            text = null;
+        }
+    }
+
+    /**
+     * A bit string that keeps the representation from the server and decodes it
+     * on first access.
+     * <p>
+     * The text representation is returned and the binary representation is
+     * written unchanged until the bit string is decoded. The binary
+     * representation is kept by reference. The bit string is decoded once,
+     * even when it is shared by threads.
+     */
+    public static class Lazy extends PGbit {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @hidden
+         */
+        public Lazy() {
+            super();
+            super.lazy = true;
+        }
+    }
 }
@@ -1,23 +1,46 @@
 package com.pgvector;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import org.postgresql.PGConnection;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
 
 /**
  * A half vector.
  */
-public class PGhalfvec extends PGobject implements Serializable, Cloneable {
-    /*
-     * Use float and text format for now since Float.float16ToFloat/floatToFloat16
-     * are not available until Java 20.
-     */
+public class PGhalfvec extends PGobject implements PGBinaryObject, Serializable, Cloneable {
+    private static final long serialVersionUID = -5950246972325991707L;
+    // vec is read from the default form of earlier versions, and newer versions
+    // write the binary representation
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("vec", float[].class),
+        new ObjectStreamField("format", int.class)
+    };
+
     private float[] vec;
+    // whether vec was allocated here and can be reused
+    private boolean owned;
+    private boolean lazy;
+    // binary or text representation to decode on first access, which is only
+    // set for lazy values and is volatile so they can be shared by threads
+    private volatile byte[] raw;
+    private int rawOffset;
+    private volatile String text;
+    // cached hash code, or 0 if not computed
+    private transient int hash;
 
     /**
      * @hidden
@@ -48,6 +71,7 @@ public class PGhalfvec extends PGobject implements Serializable, Cloneable {
             vec = null;
         } else {
             vec = new float[v.size()];
+            owned = true;
             int i = 0;
             for (T f : v) {
                 vec[i++] = f.floatValue();
@@ -70,14 +94,17 @@ public class PGhalfvec extends PGobject implements Serializable, Cloneable {
      * Sets the value from a text representation of a half vector.
      */
     public void setValue(String s) throws SQLException {
-        if (s == null) {
+        hash = 0;
+        if (lazy) {
+            raw = null;
+            vec = null;
+            text = s;
+        } else if (s == null) {
             vec = null;
         } else {
-            String[] sp = s.substring(1, s.length() - 1).split(",");
-            vec = new float[sp.length];
-            for (int i = 0; i < sp.length; i++) {
-                vec[i] = Float.parseFloat(sp[i]);
-            }
+            // do not overwrite arrays that were returned
+            owned = false;
+            parse(s);
         }
     }
 
@@ -85,19 +112,344 @@ public class PGhalfvec extends PGobject implements Serializable, Cloneable {
      * Returns the text representation of a half vector.
      */
     public String getValue() {
-        if (vec == null) {
+        String t = text;
+        if (t != null) {
+            return t;
+        }
+        if (decode() == null) {
             return null;
         } else {
-            return Arrays.toString(vec).replace(" ", "");
+            return TextFormatter.formatVector(vec);
+        }
+    }
+
+    /**
+     * Returns the number of bytes for the binary representation.
+     */
+    public int lengthInBytes() {
+        byte[] r = raw;
+        if (r != null) {
+            return 4 + ByteConverter.int2(r, rawOffset) * 2;
+        }
+        return decode() == null ? 0 : 4 + vec.length * 2;
+    }
+
+    /**
+     * Sets the value from a binary representation of a half vector.
+     */
+    public void setByteValue(byte[] value, int offset) throws SQLException {
+        setByteValue(value, offset, false);
+    }
+
+    private void setByteValue(byte[] value, int offset, boolean reuse) throws SQLException {
+        int dim = ByteConverter.int2(value, offset);
+
+        int unused = ByteConverter.int2(value, offset + 2);
+        if (unused != 0) {
+            throw new SQLException("expected unused to be 0");
+        }
+
+        hash = 0;
+        if (lazy) {
+            text = null;
+            vec = null;
+            rawOffset = offset;
+            raw = value;
+        } else {
+            if (!reuse) {
+                // do not overwrite arrays that were returned
+                owned = false;
+            }
+            readHalves(value, offset);
+        }
+    }
+
+    /**
+     * Writes the binary representation of a half vector.
+     * <p>
+     * Elements are rounded to half precision.
+     */
+    public void toBytes(byte[] bytes, int offset) {
+        byte[] r = raw;
+        if (r != null) {
+            System.arraycopy(r, rawOffset, bytes, offset, 4 + ByteConverter.int2(r, rawOffset) * 2);
+            return;
+        }
+        if (decode() == null) {
+            return;
+        }
+
+        // server will error on overflow due to unconsumed buffer
+        // could set to Short.MAX_VALUE for friendlier error message
+        ByteConverter.int2(bytes, offset, vec.length);
+        ByteConverter.int2(bytes, offset + 2, 0);
+        for (int i = 0; i < vec.length; i++) {
+            ByteConverter.int2(bytes, offset + 4 + i * 2, HalfFloat.fromFloat(vec[i]));
         }
     }
 
+    /**
+     * Returns the L2 distance.
+     *
+     * @param other half vector
+     * @return the distance
+     */
+    public double l2Distance(PGhalfvec other) {
+        return DistanceOperator.L2.distance(this, other);
+    }
+
+    /**
+     * Returns the squared L2 distance.
+     *
+     * @param other half vector
+     * @return the distance
+     */
+    public double l2SquaredDistance(PGhalfvec other) {
+        float[] a = toArray();
+        float[] b = other.toArray();
+        Distances.checkDimensions("halfvec", a.length, b.length);
+        return (double) Distances.l2Squared(a, 0, b, 0, a.length, true);
+    }
+
+    /**
+     * Returns the inner product.
+     *
+     * @param other half vector
+     * @return the inner product
+     */
+    public double innerProduct(PGhalfvec other) {
+        return -DistanceOperator.INNER_PRODUCT.distance(this, other);
+    }
+
+    /**
+     * Returns the cosine distance.
+     *
+     * @param other half vector
+     * @return the distance
+     */
+    public double cosineDistance(PGhalfvec other) {
+        return DistanceOperator.COSINE.distance(this, other);
+    }
+
+    /**
+     * Returns the L1 distance.
+     *
+     * @param other half vector
+     * @return the distance
+     */
+    public double l1Distance(PGhalfvec other) {
+        return DistanceOperator.L1.distance(this, other);
+    }
+
+    /**
+     * Sets the value from part of an array.
+     * <p>
+     * Elements are copied into the internal array, which is reused when it has
+     * the same length and was not passed to a constructor, so arrays previously
+     * returned by this half vector may be overwritten.
+     *
+     * @param v float array
+     * @param offset offset of the first element
+     * @param length number of elements
+     */
+    public void set(float[] v, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > v.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (lazy) {
+            raw = null;
+            text = null;
+        }
+        hash = 0;
+        System.arraycopy(v, offset, buffer(length), 0, length);
+    }
+
+    /**
+     * Sets the value from a column of the current row of a result set, reusing
+     * the internal array like {@link #set}.
+     *
+     * @param rs result set
+     * @param columnIndex column index
+     * @return whether the value is not null
+     * @throws SQLException exception
+     */
+    public boolean readFrom(ResultSet rs, int columnIndex) throws SQLException {
+        byte[] value = rs.getBytes(columnIndex);
+        if (value == null) {
+            setValue(null);
+            return false;
+        }
+        // the first byte of the binary representation is the high byte of the
+        // dimensions, which is never '[' for the maximum of 16000 dimensions
+        if (value.length > 0 && value[0] == '[') {
+            if (lazy) {
+                setValue(new String(value, StandardCharsets.US_ASCII));
+            } else {
+                hash = 0;
+                parse(FloatParser.ascii(value));
+            }
+        } else {
+            setByteValue(value, 0, true);
+        }
+        return true;
+    }
+
     /**
      * Returns an array.
      *
      * @return an array
      */
     public float[] toArray() {
+        return decode();
+    }
+
+    /**
+     * Returns whether the other object is a half vector with the same elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof PGhalfvec)) {
+            return false;
+        }
+        PGhalfvec other = (PGhalfvec) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        return Arrays.equals(decode(), other.decode());
+    }
+
+    /**
+     * Returns a hash code of the elements. It is cached until the value is set,
+     * so changes to the array are not reflected.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(decode());
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a copy that does not share the array with this half vector.
+     */
+    @Override
+    public synchronized Object clone() throws CloneNotSupportedException {
+        PGhalfvec v = (PGhalfvec) super.clone();
+        if (v.vec != null) {
+            v.vec = vec.clone();
+            v.owned = true;
+        }
+        return v;
+    }
+
+    private void parse(CharSequence s) {
+        int end = s.length() - 1;
+        float[] v = buffer(FloatParser.countElements(s, 1, end));
+        if (v.length > 0) {
+            FloatParser.parseElements(s, 1, end, v, 0);
+        }
+    }
+
+    private float[] buffer(int length) {
+        if (!owned || vec == null || vec.length != length) {
+            vec = new float[length];
+            owned = true;
+        }
         return vec;
     }
+
+    private float[] decode() {
+        if (raw != null || text != null) {
+            decodeLazy();
+        }
+        return vec;
+    }
+
+    // synchronized for values shared by threads before they are decoded, and
+    // raw and text are cleared after vec is filled so other threads see it
+    private synchronized void decodeLazy() {
+        if (raw != null) {
+            readHalves(raw, rawOffset);
+            raw = null;
+        } else if (text != null) {
+            parse(text);
+            text = null;
+        }
+    }
+
+    private void readHalves(byte[] value, int offset) {
+        int dim = ByteConverter.int2(value, offset);
+        float[] v = buffer(dim);
+        for (int i = 0; i < dim; i++) {
+            v[i] = HalfFloat.toFloat(ByteConverter.int2(value, offset + 4 + i * 2));
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("format", 1);
+        out.writeFields();
+        float[] v = decode();
+        if (v == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        // write single precision like vector, since elements are only rounded
+        // to half precision when sent to the server
+        byte[] bytes = new byte[4 + v.length * 4];
+        ByteConverter.int2(bytes, 0, v.length);
+        VectorCodec.writeFloats(v, 0, bytes, 4, v.length);
+        out.writeBoolean(true);
+        out.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        lazy = this instanceof Lazy;
+        if (fields.get("format", 0) == 0) {
+            vec = (float[]) fields.get("vec", null);
+            return;
+        }
+        if (!in.readBoolean()) {
+            return;
+        }
+        byte[] header = new byte[4];
+        in.readFully(header);
+        int dim = ByteConverter.int2(header, 0);
+        if (dim < 0) {
+            throw new InvalidObjectException("invalid dimensions");
+        }
+        byte[] bytes = new byte[dim * 4];
+        in.readFully(bytes);
+        vec = new float[dim];
+        owned = true;
+        VectorCodec.readFloats(bytes, 0, vec, 0, dim);
+    }
+
+    /**
+     * A half vector that keeps the representation from the server and decodes
+     * it on first access.
+     * <p>
+     * The text representation is returned and the binary representation is
+     * written unchanged until the half vector is decoded. The binary
+     * representation is kept by reference. The half vector is decoded once,
+     * even when it is shared by threads.
+     */
+    public static class Lazy extends PGhalfvec {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @hidden
+         */
+        public Lazy() {
+            super();
+            super.lazy = true;
+        }
+    }
 }
@@ -1,10 +1,17 @@
 package com.pgvector;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -17,9 +24,29 @@ import org.postgresql.util.PGobject;
  * A sparse vector.
  */
 public class PGsparsevec extends PGobject implements PGBinaryObject, Serializable, Cloneable {
+    private static final long serialVersionUID = 804935926339800491L;
+    // dimensions, indices, and values are read from the default form of earlier
+    // versions, and newer versions write indices as differences
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("dimensions", int.class),
+        new ObjectStreamField("indices", int[].class),
+        new ObjectStreamField("values", float[].class),
+        new ObjectStreamField("format", int.class)
+    };
+
     private int dimensions;
     private int[] indices;
     private float[] values;
+    // arrays can have more elements than nnz when reused
+    private int nnz;
+    private boolean lazy;
+    // binary or text representation to decode on first access, which is only
+    // set for lazy values and is volatile so they can be shared by threads
+    private volatile byte[] raw;
+    private int rawOffset;
+    private volatile String text;
+    // cached hash code, or 0 if not computed
+    private transient int hash;
 
     /**
      * @hidden
@@ -46,6 +73,7 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
         dimensions = v.length;
         indices = new int[nnz];
         values = new float[nnz];
+        this.nnz = nnz;
 
         int j = 0;
         for (int i = 0; i < v.length; i++) {
@@ -78,6 +106,7 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
             dimensions = v.size();
             indices = new int[nnz];
             values = new float[nnz];
+            this.nnz = nnz;
 
             int i = 0;
             int j = 0;
@@ -116,6 +145,7 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
         int nnz = elements.size();
         indices = new int[nnz];
         values = new float[nnz];
+        this.nnz = nnz;
 
         int i = 0;
         for (Map.Entry<Integer, T> e : elements) {
@@ -142,21 +172,33 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * Sets the value from a text representation of a sparse vector.
      */
     public void setValue(String s) throws SQLException {
-        if (s == null) {
+        hash = 0;
+        if (lazy) {
+            raw = null;
+            indices = null;
+            text = s;
+        } else if (s == null) {
             indices = null;
         } else {
-            String[] sp = s.split("/", 2);
-            String[] elements = sp[0].substring(1, sp[0].length() - 1).split(",");
-
-            dimensions = Integer.parseInt(sp[1]);
-            indices = new int[elements.length];
-            values = new float[elements.length];
+            parse(s);
+        }
+    }
 
-            for (int i = 0; i < elements.length; i++) {
-                String[] ep = elements[i].split(":", 2);
-                indices[i] = Integer.parseInt(ep[0]) - 1;
-                values[i] = Float.parseFloat(ep[1]);
-            }
+    private void parse(String s) {
+        String[] sp = s.split("/", 2);
+        String inner = sp[0].substring(1, sp[0].length() - 1);
+        // no elements for a vector with only zeros
+        String[] elements = inner.isEmpty() ? new String[0] : inner.split(",");
+
+        dimensions = Integer.parseInt(sp[1]);
+        indices = new int[elements.length];
+        values = new float[elements.length];
+        nnz = elements.length;
+
+        for (int i = 0; i < elements.length; i++) {
+            String[] ep = elements[i].split(":", 2);
+            indices[i] = Integer.parseInt(ep[0]) - 1;
+            values[i] = Float.parseFloat(ep[1]);
         }
     }
 
@@ -164,25 +206,14 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * Returns the text representation of a sparse vector.
      */
     public String getValue() {
-        if (indices == null) {
+        String t = text;
+        if (t != null) {
+            return t;
+        }
+        if (decode() == null) {
             return null;
         } else {
-            StringBuilder sb = new StringBuilder(13 + 27 * indices.length);
-            sb.append('{');
-
-            for (int i = 0; i < indices.length; i++) {
-                if (i > 0) {
-                    sb.append(',');
-                }
-                sb.append(indices[i] + 1);
-                sb.append(':');
-                sb.append(values[i]);
-            }
-
-            sb.append('}');
-            sb.append('/');
-            sb.append(dimensions);
-            return sb.toString();
+            return TextFormatter.formatSparsevec(dimensions, indices, values, nnz);
         }
     }
 
@@ -190,51 +221,448 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * Returns the number of bytes for the binary representation.
      */
     public int lengthInBytes() {
-        return indices == null ? 0 : 12 + indices.length * 4 + values.length * 4;
+        byte[] r = raw;
+        if (r != null) {
+            return 12 + ByteConverter.int4(r, rawOffset + 4) * 8;
+        }
+        return decode() == null ? 0 : 12 + nnz * 8;
     }
 
     /**
      * Sets the value from a binary representation of a sparse vector.
      */
     public void setByteValue(byte[] value, int offset) throws SQLException {
-        dimensions = ByteConverter.int4(value, offset);
-        int nnz = ByteConverter.int4(value, offset + 4);
+        setByteValue(value, offset, false);
+    }
 
+    private void setByteValue(byte[] value, int offset, boolean reuse) throws SQLException {
         int unused = ByteConverter.int4(value, offset + 8);
         if (unused != 0) {
             throw new SQLException("expected unused to be 0");
         }
 
-        indices = new int[nnz];
-        for (int i = 0; i < nnz; i++) {
-            indices[i] = ByteConverter.int4(value, offset + 12 + i * 4);
+        hash = 0;
+        if (lazy) {
+            text = null;
+            indices = null;
+            rawOffset = offset;
+            raw = value;
+        } else {
+            if (!reuse) {
+                // do not overwrite arrays that were returned
+                indices = null;
+            }
+            read(value, offset);
         }
+    }
 
-        values = new float[nnz];
-        for (int i = 0; i < nnz; i++) {
-            values[i] = ByteConverter.float4(value, offset + 12 + nnz * 4 + i * 4);
+    private void read(byte[] value, int offset) {
+        dimensions = ByteConverter.int4(value, offset);
+        int nnz = ByteConverter.int4(value, offset + 4);
+
+        reserve(nnz);
+        VectorCodec.readInts(value, offset + 12, indices, 0, nnz);
+        VectorCodec.readFloats(value, offset + 12 + nnz * 4, values, 0, nnz);
+    }
+
+    /**
+     * Sets the value from arrays of non-zero elements.
+     * <p>
+     * Elements are copied into the internal arrays, which are reused when they
+     * have enough room, so arrays previously returned by this sparse vector may
+     * be overwritten.
+     *
+     * @param indices non-zero indices in ascending order, starting at 0
+     * @param values non-zero values
+     * @param nnz number of non-zero elements
+     * @param dimensions number of dimensions
+     */
+    public void setSparse(int[] indices, float[] values, int nnz, int dimensions) {
+        if (nnz < 0 || nnz > indices.length || nnz > values.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (lazy) {
+            raw = null;
+            text = null;
         }
+        hash = 0;
+        reserve(nnz);
+        System.arraycopy(indices, 0, this.indices, 0, nnz);
+        System.arraycopy(values, 0, this.values, 0, nnz);
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Sets the value from a column of the current row of a result set, reusing
+     * the internal arrays like {@link #setSparse}.
+     *
+     * @param rs result set
+     * @param columnIndex column index
+     * @return whether the value is not null
+     * @throws SQLException exception
+     */
+    public boolean readFrom(ResultSet rs, int columnIndex) throws SQLException {
+        byte[] value = rs.getBytes(columnIndex);
+        if (value == null) {
+            setValue(null);
+            return false;
+        }
+        // the first byte of the binary representation is the high byte of the
+        // dimensions, which is never '{' for the maximum of 1000000000 dimensions
+        if (value.length > 0 && value[0] == '{') {
+            setValue(new String(value, StandardCharsets.US_ASCII));
+        } else {
+            setByteValue(value, 0, true);
+        }
+        return true;
+    }
+
+    static PGsparsevec create(int[] indices, float[] values, int nnz, int dimensions) {
+        PGsparsevec v = new PGsparsevec();
+        v.indices = indices;
+        v.values = values;
+        v.nnz = nnz;
+        v.dimensions = dimensions;
+        return v;
+    }
+
+    private void reserve(int nnz) {
+        if (indices == null || indices.length < nnz || values.length < nnz) {
+            indices = new int[nnz];
+            values = new float[nnz];
+        }
+        this.nnz = nnz;
     }
 
     /**
      * Writes the binary representation of a sparse vector.
      */
     public void toBytes(byte[] bytes, int offset) {
-        if (indices == null) {
+        byte[] r = raw;
+        if (r != null) {
+            System.arraycopy(r, rawOffset, bytes, offset, 12 + ByteConverter.int4(r, rawOffset + 4) * 8);
+            return;
+        }
+        if (decode() == null) {
             return;
         }
 
         // server will error on overflow due to unconsumed buffer
         // could set to Integer.MAX_VALUE for friendlier error message
         ByteConverter.int4(bytes, offset, dimensions);
-        ByteConverter.int4(bytes, offset + 4, indices.length);
+        ByteConverter.int4(bytes, offset + 4, nnz);
         ByteConverter.int4(bytes, offset + 8, 0);
-        for (int i = 0; i < indices.length; i++) {
-            ByteConverter.int4(bytes, offset + 12 + i * 4, indices[i]);
+        VectorCodec.writeInts(indices, 0, bytes, offset + 12, nnz);
+        VectorCodec.writeFloats(values, 0, bytes, offset + 12 + nnz * 4, nnz);
+    }
+
+    /**
+     * Returns the L2 distance.
+     *
+     * @param other sparse vector
+     * @return the distance
+     */
+    public double l2Distance(PGsparsevec other) {
+        return DistanceOperator.L2.distance(this, other);
+    }
+
+    /**
+     * Returns the squared L2 distance.
+     *
+     * @param other sparse vector
+     * @return the distance
+     */
+    public double l2SquaredDistance(PGsparsevec other) {
+        decode();
+        other.decode();
+        Distances.checkDimensions("sparsevec", dimensions, other.dimensions);
+        return (double) Distances.sparseL2Squared(indices, values, nnz, other.indices, other.values, other.nnz);
+    }
+
+    /**
+     * Returns the inner product.
+     *
+     * @param other sparse vector
+     * @return the inner product
+     */
+    public double innerProduct(PGsparsevec other) {
+        return -DistanceOperator.INNER_PRODUCT.distance(this, other);
+    }
+
+    /**
+     * Returns the cosine distance.
+     *
+     * @param other sparse vector
+     * @return the distance
+     */
+    public double cosineDistance(PGsparsevec other) {
+        return DistanceOperator.COSINE.distance(this, other);
+    }
+
+    /**
+     * Returns the L1 distance.
+     *
+     * @param other sparse vector
+     * @return the distance
+     */
+    public double l1Distance(PGsparsevec other) {
+        return DistanceOperator.L1.distance(this, other);
+    }
+
+    /**
+     * Returns the L2 distance to a vector.
+     *
+     * @param other float array
+     * @return the distance
+     */
+    public double l2Distance(float[] other) {
+        return DistanceOperator.L2.distance(this, other);
+    }
+
+    /**
+     * Returns the inner product with a vector.
+     *
+     * @param other float array
+     * @return the inner product
+     */
+    public double innerProduct(float[] other) {
+        return -DistanceOperator.INNER_PRODUCT.distance(this, other);
+    }
+
+    /**
+     * Returns the cosine distance to a vector.
+     *
+     * @param other float array
+     * @return the distance
+     */
+    public double cosineDistance(float[] other) {
+        return DistanceOperator.COSINE.distance(this, other);
+    }
+
+    /**
+     * Returns the sum with another sparse vector. Elements that add up to 0
+     * are removed.
+     *
+     * @param other sparse vector
+     * @return the sum
+     */
+    public PGsparsevec add(PGsparsevec other) {
+        decode();
+        other.decode();
+        Distances.checkDimensions("sparsevec", dimensions, other.dimensions);
+        int[] ri = new int[nnz + other.nnz];
+        float[] rx = new float[nnz + other.nnz];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < nnz || j < other.nnz) {
+            int index;
+            float value;
+            if (j == other.nnz || (i < nnz && indices[i] < other.indices[j])) {
+                index = indices[i];
+                value = values[i++];
+            } else if (i == nnz || other.indices[j] < indices[i]) {
+                index = other.indices[j];
+                value = other.values[j++];
+            } else {
+                index = indices[i];
+                value = values[i++] + other.values[j++];
+            }
+            if (value != 0) {
+                ri[n] = index;
+                rx[n] = value;
+                n++;
+            }
         }
-        for (int i = 0; i < values.length; i++) {
-            ByteConverter.float4(bytes, offset + 12 + indices.length * 4 + i * 4, values[i]);
+        return create(ri, rx, n, dimensions);
+    }
+
+    /**
+     * Returns the sparse vector multiplied by a factor. Elements that become 0
+     * are removed.
+     *
+     * @param factor factor
+     * @return the product
+     */
+    public PGsparsevec scale(float factor) {
+        decode();
+        int[] ri = new int[nnz];
+        float[] rx = new float[nnz];
+        int n = 0;
+        for (int i = 0; i < nnz; i++) {
+            float value = values[i] * factor;
+            if (value != 0) {
+                ri[n] = indices[i];
+                rx[n] = value;
+                n++;
+            }
         }
+        return create(ri, rx, n, dimensions);
+    }
+
+    /**
+     * Keeps the elements with the largest magnitudes. Ties keep the lower
+     * indices.
+     *
+     * @param k maximum number of non-zero elements
+     * @return the result
+     */
+    public PruneResult pruneTopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be at least 0");
+        }
+        decode();
+        if (k >= nnz) {
+            return prune(0.0f, nnz);
+        }
+        if (k == 0) {
+            return prune(Float.POSITIVE_INFINITY, 0);
+        }
+        float[] magnitudes = new float[nnz];
+        for (int i = 0; i < nnz; i++) {
+            magnitudes[i] = Math.abs(values[i]);
+        }
+        return prune(select(magnitudes, nnz - k), k);
+    }
+
+    /**
+     * Removes elements with magnitudes below a threshold.
+     *
+     * @param threshold minimum magnitude
+     * @return the result
+     */
+    public PruneResult pruneBelow(float threshold) {
+        decode();
+        return prune(threshold, nnz);
+    }
+
+    /**
+     * Removes elements with magnitudes below a fraction of the largest
+     * magnitude.
+     *
+     * @param fraction fraction of the largest magnitude, from 0 to 1
+     * @return the result
+     */
+    public PruneResult pruneRelative(float fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        }
+        decode();
+        float max = 0.0f;
+        for (int i = 0; i < nnz; i++) {
+            max = Math.max(max, Math.abs(values[i]));
+        }
+        return prune(max * fraction, nnz);
+    }
+
+    /**
+     * Keeps the fewest elements with the largest magnitudes that retain a
+     * fraction of the squared L2 norm.
+     *
+     * @param fraction fraction of the squared L2 norm, from 0 to 1
+     * @return the result
+     */
+    public PruneResult pruneMass(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        }
+        decode();
+        double[] squares = new double[nnz];
+        double total = 0;
+        for (int i = 0; i < nnz; i++) {
+            squares[i] = (double) values[i] * values[i];
+            total += squares[i];
+        }
+        Arrays.sort(squares);
+        double target = total * fraction;
+        double sum = 0;
+        int k = 0;
+        for (int i = nnz - 1; i >= 0 && sum < target; i--) {
+            sum += squares[i];
+            k++;
+        }
+        return pruneTopK(k);
+    }
+
+    // keeps up to limit elements with magnitudes of at least threshold
+    private PruneResult prune(float threshold, int limit) {
+        int greater = 0;
+        for (int i = 0; i < nnz; i++) {
+            if (Math.abs(values[i]) > threshold) {
+                greater++;
+            }
+        }
+        // elements equal to the threshold fill the rest in index order
+        int ties = limit - greater;
+
+        int[] ri = new int[Math.min(limit, nnz)];
+        float[] rx = new float[ri.length];
+        int n = 0;
+        double total = 0;
+        double kept = 0;
+        for (int i = 0; i < nnz; i++) {
+            float value = values[i];
+            float magnitude = Math.abs(value);
+            double square = (double) value * value;
+            total += square;
+            if (n < ri.length && (magnitude > threshold || (magnitude == threshold && ties-- > 0))) {
+                ri[n] = indices[i];
+                rx[n] = value;
+                n++;
+                kept += square;
+            }
+        }
+        PGsparsevec v = create(Arrays.copyOf(ri, n), Arrays.copyOf(rx, n), n, dimensions);
+        return new PruneResult(v, total == 0 ? 1.0 : kept / total, nnz - n);
+    }
+
+    // returns the element that would be at position k if sorted, reordering the array
+    private static float select(float[] a, int k) {
+        int low = 0;
+        int high = a.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            // median of three
+            if (a[mid] < a[low]) {
+                swap(a, mid, low);
+            }
+            if (a[high] < a[low]) {
+                swap(a, high, low);
+            }
+            if (a[high] < a[mid]) {
+                swap(a, high, mid);
+            }
+            float pivot = a[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return a[k];
+            }
+        }
+        return a[k];
+    }
+
+    private static void swap(float[] a, int i, int j) {
+        float t = a[i];
+        a[i] = a[j];
+        a[j] = t;
     }
 
     /**
@@ -243,12 +671,12 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * @return an array
      */
     public float[] toArray() {
-        if (indices == null) {
+        if (decode() == null) {
             return null;
         }
 
         float[] vec = new float[dimensions];
-        for (int i = 0; i < indices.length; i++) {
+        for (int i = 0; i < nnz; i++) {
             vec[indices[i]] = values[i];
         }
         return vec;
@@ -260,15 +688,36 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * @return the number of dimensions
      */
     public int getDimensions() {
+        byte[] r = raw;
+        if (r != null) {
+            return ByteConverter.int4(r, rawOffset);
+        }
+        decode();
         return dimensions;
     }
 
+    /**
+     * Returns the number of non-zero elements.
+     *
+     * @return the number of non-zero elements
+     */
+    public int getNnz() {
+        byte[] r = raw;
+        if (r != null) {
+            return ByteConverter.int4(r, rawOffset + 4);
+        }
+        return decode() == null ? 0 : nnz;
+    }
+
     /**
      * Returns the non-zero indices.
      *
      * @return the non-zero indices
      */
     public int[] getIndices() {
+        if (decode() != null) {
+            trim();
+        }
         return indices;
     }
 
@@ -278,6 +727,254 @@ public class PGsparsevec extends PGobject implements PGBinaryObject, Serializabl
      * @return the non-zero values
      */
     public float[] getValues() {
+        if (decode() != null) {
+            trim();
+        }
         return values;
     }
+
+    // may have more elements than nnz
+    int[] indexArray() {
+        return decode();
+    }
+
+    // may have more elements than nnz
+    float[] valueArray() {
+        decode();
+        return values;
+    }
+
+    private void trim() {
+        if (indices.length != nnz) {
+            indices = Arrays.copyOf(indices, nnz);
+        }
+        if (values.length != nnz) {
+            values = Arrays.copyOf(values, nnz);
+        }
+    }
+
+    /**
+     * Returns whether the other object is a sparse vector with the same
+     * dimensions and non-zero elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof PGsparsevec)) {
+            return false;
+        }
+        PGsparsevec other = (PGsparsevec) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        if (decode() == null || other.decode() == null) {
+            return indices == other.indices;
+        }
+        if (dimensions != other.dimensions || nnz != other.nnz) {
+            return false;
+        }
+        for (int i = 0; i < nnz; i++) {
+            if (indices[i] != other.indices[i] || Float.floatToIntBits(values[i]) != Float.floatToIntBits(other.values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code of the dimensions and non-zero elements. It is cached
+     * until the value is set, so changes to the arrays are not reflected.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && decode() != null) {
+            h = dimensions;
+            for (int i = 0; i < nnz; i++) {
+                h = 31 * h + indices[i];
+                h = 31 * h + Float.floatToIntBits(values[i]);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a copy that does not share arrays with this sparse vector.
+     */
+    @Override
+    public synchronized Object clone() throws CloneNotSupportedException {
+        PGsparsevec v = (PGsparsevec) super.clone();
+        if (v.indices != null) {
+            v.indices = Arrays.copyOf(indices, nnz);
+            v.values = Arrays.copyOf(values, nnz);
+        }
+        return v;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("format", 1);
+        out.writeFields();
+        if (decode() == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeInt(dimensions);
+        out.writeInt(nnz);
+        // indices as differences from the previous index in 7-bit groups
+        byte[] bytes = new byte[nnz * 5 + nnz * 4];
+        int pos = 0;
+        int previous = 0;
+        for (int i = 0; i < nnz; i++) {
+            int delta = indices[i] - previous;
+            previous = indices[i];
+            while ((delta & ~0x7F) != 0) {
+                bytes[pos++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[pos++] = (byte) delta;
+        }
+        out.writeInt(pos);
+        VectorCodec.writeFloats(values, 0, bytes, pos, nnz);
+        out.write(bytes, 0, pos + nnz * 4);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        lazy = this instanceof Lazy;
+        if (fields.get("format", 0) == 0) {
+            dimensions = fields.get("dimensions", 0);
+            indices = (int[]) fields.get("indices", null);
+            values = (float[]) fields.get("values", null);
+            nnz = indices == null ? 0 : indices.length;
+            return;
+        }
+        if (!in.readBoolean()) {
+            return;
+        }
+        int dimensions = in.readInt();
+        int nnz = in.readInt();
+        int indexBytes = in.readInt();
+        if (nnz < 0 || nnz > dimensions || indexBytes < nnz || indexBytes > nnz * 5) {
+            throw new InvalidObjectException("invalid sparse vector");
+        }
+        byte[] bytes = new byte[indexBytes + nnz * 4];
+        in.readFully(bytes);
+        int[] indices = new int[nnz];
+        int pos = 0;
+        long index = 0;
+        for (int i = 0; i < nnz; i++) {
+            int delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (pos == indexBytes || shift > 28) {
+                    throw new InvalidObjectException("invalid sparse vector");
+                }
+                byte b = bytes[pos++];
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            index += delta & 0xFFFFFFFFL;
+            if (index >= dimensions || (i > 0 && delta == 0)) {
+                throw new InvalidObjectException("invalid sparse vector");
+            }
+            indices[i] = (int) index;
+        }
+        float[] values = new float[nnz];
+        VectorCodec.readFloats(bytes, indexBytes, values, 0, nnz);
+        this.dimensions = dimensions;
+        this.indices = indices;
+        this.values = values;
+        this.nnz = nnz;
+    }
+
+    // returns the indices
+    private int[] decode() {
+        if (raw != null || text != null) {
+            decodeLazy();
+        }
+        return indices;
+    }
+
+    // synchronized for values shared by threads before they are decoded, and
+    // raw and text are cleared after the arrays are filled so other threads
+    // see them
+    private synchronized void decodeLazy() {
+        if (raw != null) {
+            read(raw, rawOffset);
+            raw = null;
+        } else if (text != null) {
+            parse(text);
+            text = null;
+        }
+    }
+
+    /**
+     * The result of pruning a sparse vector.
+     */
+    public static final class PruneResult {
+        private final PGsparsevec vector;
+        private final double retainedMass;
+        private final int removedCount;
+
+        PruneResult(PGsparsevec vector, double retainedMass, int removedCount) {
+            this.vector = vector;
+            this.retainedMass = retainedMass;
+            this.removedCount = removedCount;
+        }
+
+        /**
+         * Returns the pruned sparse vector.
+         *
+         * @return the sparse vector
+         */
+        public PGsparsevec getVector() {
+            return vector;
+        }
+
+        /**
+         * Returns the fraction of the squared L2 norm that was kept, or 1 if
+         * there were no non-zero elements.
+         *
+         * @return the fraction
+         */
+        public double getRetainedMass() {
+            return retainedMass;
+        }
+
+        /**
+         * Returns the number of elements that were removed.
+         *
+         * @return the number of elements
+         */
+        public int getRemovedCount() {
+            return removedCount;
+        }
+    }
+
+    /**
+     * A sparse vector that keeps the representation from the server and decodes
+     * it on first access.
+     * <p>
+     * The text representation is returned and the binary representation is
+     * written unchanged until the sparse vector is decoded. The binary
+     * representation is kept by reference. The sparse vector is decoded once,
+     * even when it is shared by threads.
+     */
+    public static class Lazy extends PGsparsevec {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @hidden
+         */
+        public Lazy() {
+            super();
+            super.lazy = true;
+        }
+    }
 }
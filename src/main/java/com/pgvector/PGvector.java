@@ -1,7 +1,14 @@
 package com.pgvector;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
@@ -15,7 +22,25 @@ import org.postgresql.util.PGobject;
  * A vector.
  */
 public class PGvector extends PGobject implements PGBinaryObject, Serializable, Cloneable {
+    private static final long serialVersionUID = -2781569541135406297L;
+    // vec is read from the default form of earlier versions, and newer versions
+    // write the binary representation
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("vec", float[].class),
+        new ObjectStreamField("format", int.class)
+    };
+
     private float[] vec;
+    // whether vec was allocated here and can be reused
+    private boolean owned;
+    private boolean lazy;
+    // binary or text representation to decode on first access, which is only
+    // set for lazy values and is volatile so they can be shared by threads
+    private volatile byte[] raw;
+    private int rawOffset;
+    private volatile String text;
+    // cached hash code, or 0 if not computed
+    private transient int hash;
 
     /**
      * @hidden
@@ -46,6 +71,7 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
             vec = null;
         } else {
             vec = new float[v.size()];
+            owned = true;
             int i = 0;
             for (T f : v) {
                 vec[i++] = f.floatValue();
@@ -68,14 +94,17 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
      * Sets the value from a text representation of a vector.
      */
     public void setValue(String s) throws SQLException {
-        if (s == null) {
+        hash = 0;
+        if (lazy) {
+            raw = null;
+            vec = null;
+            text = s;
+        } else if (s == null) {
             vec = null;
         } else {
-            String[] sp = s.substring(1, s.length() - 1).split(",");
-            vec = new float[sp.length];
-            for (int i = 0; i < sp.length; i++) {
-                vec[i] = Float.parseFloat(sp[i]);
-            }
+            // do not overwrite arrays that were returned
+            owned = false;
+            parse(s);
         }
     }
 
@@ -83,10 +112,14 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
      * Returns the text representation of a vector.
      */
     public String getValue() {
-        if (vec == null) {
+        String t = text;
+        if (t != null) {
+            return t;
+        }
+        if (decode() == null) {
             return null;
         } else {
-            return Arrays.toString(vec).replace(" ", "");
+            return TextFormatter.formatVector(vec);
         }
     }
 
@@ -94,13 +127,21 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
      * Returns the number of bytes for the binary representation.
      */
     public int lengthInBytes() {
-        return vec == null ? 0 : 4 + vec.length * 4;
+        byte[] r = raw;
+        if (r != null) {
+            return 4 + ByteConverter.int2(r, rawOffset) * 4;
+        }
+        return decode() == null ? 0 : 4 + vec.length * 4;
     }
 
     /**
      * Sets the value from a binary representation of a vector.
      */
     public void setByteValue(byte[] value, int offset) throws SQLException {
+        setByteValue(value, offset, false);
+    }
+
+    private void setByteValue(byte[] value, int offset, boolean reuse) throws SQLException {
         int dim = ByteConverter.int2(value, offset);
 
         int unused = ByteConverter.int2(value, offset + 2);
@@ -108,9 +149,18 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
             throw new SQLException("expected unused to be 0");
         }
 
-        vec = new float[dim];
-        for (int i = 0; i < dim; i++) {
-            vec[i] = ByteConverter.float4(value, offset + 4 + i * 4);
+        hash = 0;
+        if (lazy) {
+            text = null;
+            vec = null;
+            rawOffset = offset;
+            raw = value;
+        } else {
+            if (!reuse) {
+                // do not overwrite arrays that were returned
+                owned = false;
+            }
+            VectorCodec.readFloats(value, offset + 4, buffer(dim), 0, dim);
         }
     }
 
@@ -118,7 +168,12 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
      * Writes the binary representation of a vector.
      */
     public void toBytes(byte[] bytes, int offset) {
-        if (vec == null) {
+        byte[] r = raw;
+        if (r != null) {
+            System.arraycopy(r, rawOffset, bytes, offset, 4 + ByteConverter.int2(r, rawOffset) * 4);
+            return;
+        }
+        if (decode() == null) {
             return;
         }
 
@@ -126,9 +181,113 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
         // could set to Short.MAX_VALUE for friendlier error message
         ByteConverter.int2(bytes, offset, vec.length);
         ByteConverter.int2(bytes, offset + 2, 0);
-        for (int i = 0; i < vec.length; i++) {
-            ByteConverter.float4(bytes, offset + 4 + i * 4, vec[i]);
+        VectorCodec.writeFloats(vec, 0, bytes, offset + 4, vec.length);
+    }
+
+    /**
+     * Returns the L2 distance.
+     *
+     * @param other vector
+     * @return the distance
+     */
+    public double l2Distance(PGvector other) {
+        return DistanceOperator.L2.distance(this, other);
+    }
+
+    /**
+     * Returns the squared L2 distance.
+     *
+     * @param other vector
+     * @return the distance
+     */
+    public double l2SquaredDistance(PGvector other) {
+        float[] a = toArray();
+        float[] b = other.toArray();
+        Distances.checkDimensions("vector", a.length, b.length);
+        return (double) Distances.l2Squared(a, 0, b, 0, a.length, false);
+    }
+
+    /**
+     * Returns the inner product.
+     *
+     * @param other vector
+     * @return the inner product
+     */
+    public double innerProduct(PGvector other) {
+        return -DistanceOperator.INNER_PRODUCT.distance(this, other);
+    }
+
+    /**
+     * Returns the cosine distance.
+     *
+     * @param other vector
+     * @return the distance
+     */
+    public double cosineDistance(PGvector other) {
+        return DistanceOperator.COSINE.distance(this, other);
+    }
+
+    /**
+     * Returns the L1 distance.
+     *
+     * @param other vector
+     * @return the distance
+     */
+    public double l1Distance(PGvector other) {
+        return DistanceOperator.L1.distance(this, other);
+    }
+
+    /**
+     * Sets the value from part of an array.
+     * <p>
+     * Elements are copied into the internal array, which is reused when it has
+     * the same length and was not passed to a constructor, so arrays previously
+     * returned by this vector may be overwritten.
+     *
+     * @param v float array
+     * @param offset offset of the first element
+     * @param length number of elements
+     */
+    public void set(float[] v, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > v.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (lazy) {
+            raw = null;
+            text = null;
         }
+        hash = 0;
+        System.arraycopy(v, offset, buffer(length), 0, length);
+    }
+
+    /**
+     * Sets the value from a column of the current row of a result set, reusing
+     * the internal array like {@link #set}.
+     *
+     * @param rs result set
+     * @param columnIndex column index
+     * @return whether the value is not null
+     * @throws SQLException exception
+     */
+    public boolean readFrom(ResultSet rs, int columnIndex) throws SQLException {
+        byte[] value = rs.getBytes(columnIndex);
+        if (value == null) {
+            setValue(null);
+            return false;
+        }
+        // the first byte of the binary representation is the high byte of the
+        // dimensions, which is never '[' for the maximum of 16000 dimensions
+        if (value.length > 0 && value[0] == '[') {
+            if (lazy) {
+                setValue(new String(value, StandardCharsets.US_ASCII));
+            } else {
+                hash = 0;
+                parse(FloatParser.ascii(value));
+            }
+        } else {
+            setByteValue(value, 0, true);
+        }
+        return true;
     }
 
     /**
@@ -137,9 +296,90 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
      * @return an array
      */
     public float[] toArray() {
+        return decode();
+    }
+
+    /**
+     * Returns whether the other object is a vector with the same elements.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof PGvector)) {
+            return false;
+        }
+        PGvector other = (PGvector) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+        return Arrays.equals(decode(), other.decode());
+    }
+
+    /**
+     * Returns a hash code of the elements. It is cached until the value is set,
+     * so changes to the array are not reflected.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(decode());
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns a copy that does not share the array with this vector.
+     */
+    @Override
+    public synchronized Object clone() throws CloneNotSupportedException {
+        PGvector v = (PGvector) super.clone();
+        if (v.vec != null) {
+            v.vec = vec.clone();
+            v.owned = true;
+        }
+        return v;
+    }
+
+    private void parse(CharSequence s) {
+        int end = s.length() - 1;
+        float[] v = buffer(FloatParser.countElements(s, 1, end));
+        if (v.length > 0) {
+            FloatParser.parseElements(s, 1, end, v, 0);
+        }
+    }
+
+    private float[] buffer(int length) {
+        if (!owned || vec == null || vec.length != length) {
+            vec = new float[length];
+            owned = true;
+        }
+        return vec;
+    }
+
+    private float[] decode() {
+        if (raw != null || text != null) {
+            decodeLazy();
+        }
         return vec;
     }
 
+    // synchronized for values shared by threads before they are decoded, and
+    // raw and text are cleared after vec is filled so other threads see it
+    private synchronized void decodeLazy() {
+        if (raw != null) {
+            int dim = ByteConverter.int2(raw, rawOffset);
+            VectorCodec.readFloats(raw, rawOffset + 4, buffer(dim), 0, dim);
+            raw = null;
+        } else if (text != null) {
+            parse(text);
+            text = null;
+        }
+    }
+
     /**
      * Registers the vector type.
      *
@@ -150,6 +390,16 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
         conn.unwrap(PGConnection.class).addDataType("vector", PGvector.class);
     }
 
+    /**
+     * Registers the vector type with lazy decoding.
+     *
+     * @param conn connection
+     * @throws SQLException exception
+     */
+    public static void addLazyVectorType(Connection conn) throws SQLException {
+        conn.unwrap(PGConnection.class).addDataType("vector", PGvector.Lazy.class);
+    }
+
     /**
      * Registers the vector, halfvec, and sparsevec types.
      *
@@ -162,4 +412,77 @@ public class PGvector extends PGobject implements PGBinaryObject, Serializable,
         conn.unwrap(PGConnection.class).addDataType("halfvec", PGhalfvec.class);
         conn.unwrap(PGConnection.class).addDataType("sparsevec", PGsparsevec.class);
     }
+
+    /**
+     * Registers the vector, halfvec, and sparsevec types with lazy decoding.
+     *
+     * @param conn connection
+     * @throws SQLException exception
+     */
+    public static void registerLazyTypes(Connection conn) throws SQLException {
+        // bit type should be registered separately
+        addLazyVectorType(conn);
+        conn.unwrap(PGConnection.class).addDataType("halfvec", PGhalfvec.Lazy.class);
+        conn.unwrap(PGConnection.class).addDataType("sparsevec", PGsparsevec.Lazy.class);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("format", 1);
+        out.writeFields();
+        if (raw == null && decode() == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        byte[] bytes = new byte[lengthInBytes()];
+        toBytes(bytes, 0);
+        out.writeBoolean(true);
+        out.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        lazy = this instanceof Lazy;
+        if (fields.get("format", 0) == 0) {
+            vec = (float[]) fields.get("vec", null);
+            return;
+        }
+        if (!in.readBoolean()) {
+            return;
+        }
+        byte[] header = new byte[4];
+        in.readFully(header);
+        int dim = ByteConverter.int2(header, 0);
+        if (dim < 0) {
+            throw new InvalidObjectException("invalid dimensions");
+        }
+        byte[] bytes = Arrays.copyOf(header, 4 + dim * 4);
+        in.readFully(bytes, 4, bytes.length - 4);
+        try {
+            setByteValue(bytes, 0);
+        } catch (SQLException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    /**
+     * A vector that keeps the representation from the server and decodes it on
+     * first access.
+     * <p>
+     * The text representation is returned and the binary representation is
+     * written unchanged until the vector is decoded. The binary representation
+     * is kept by reference. The vector is decoded once, even when it is shared
+     * by threads.
+     */
+    public static class Lazy extends PGvector {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @hidden
+         */
+        public Lazy() {
+            super();
+            super.lazy = true;
+        }
+    }
 }
@@ -0,0 +1,293 @@
+package com.pgvector;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * A search that fetches candidates with a quantized index and reranks them
+ * with full precision.
+ * <p>
+ * Candidates are ordered by the same expression as the index, like
+ * <code>binary_quantize(embedding)::bit(3)</code> or
+ * <code>embedding::halfvec(3)</code>, so the index can be used. With HNSW,
+ * at most <code>hnsw.ef_search</code> candidates are returned, so set it to at
+ * least the number of candidates.
+ */
+public class QuantizedSearch {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    /**
+     * The result of a search.
+     */
+    public static final class Result {
+        private final long[] ids;
+        private final double[] distances;
+        private final int candidates;
+        private final long queryNanos;
+        private final long rerankNanos;
+
+        Result(long[] ids, double[] distances, int candidates, long queryNanos, long rerankNanos) {
+            this.ids = ids;
+            this.distances = distances;
+            this.candidates = candidates;
+            this.queryNanos = queryNanos;
+            this.rerankNanos = rerankNanos;
+        }
+
+        /**
+         * Returns the ids, nearest first.
+         *
+         * @return the ids
+         */
+        public long[] getIds() {
+            return ids;
+        }
+
+        /**
+         * Returns the full precision distances, like the operator returns them.
+         *
+         * @return the distances
+         */
+        public double[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Returns the number of results.
+         *
+         * @return the number of results
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Returns the number of candidates that were reranked, or -1 if reranked
+         * on the server.
+         *
+         * @return the number of candidates
+         */
+        public int getCandidateCount() {
+            return candidates;
+        }
+
+        /**
+         * Returns the time to run the query and read the rows in nanoseconds.
+         * This includes reranking when reranked on the server.
+         *
+         * @return the query time
+         */
+        public long getQueryNanos() {
+            return queryNanos;
+        }
+
+        /**
+         * Returns the time to rerank in the client in nanoseconds, or 0 if
+         * reranked on the server.
+         *
+         * @return the rerank time
+         */
+        public long getRerankNanos() {
+            return rerankNanos;
+        }
+
+        /**
+         * Returns the total time in nanoseconds.
+         *
+         * @return the total time
+         */
+        public long getElapsedNanos() {
+            return queryNanos + rerankNanos;
+        }
+    }
+
+    private final String table;
+    private final String idColumn;
+    private final String vectorColumn;
+    private final int dimensions;
+    private ColumnType quantization = ColumnType.BIT;
+    private DistanceOperator operator = DistanceOperator.L2;
+    private int overfetch = 4;
+    private boolean clientRerank;
+
+    /**
+     * Creates a search.
+     *
+     * @param table table name
+     * @param idColumn name of a bigint or integer column
+     * @param vectorColumn name of a vector column
+     * @param dimensions number of dimensions
+     */
+    public QuantizedSearch(String table, String idColumn, String vectorColumn, int dimensions) {
+        this.table = checkIdentifier(table);
+        this.idColumn = checkIdentifier(idColumn);
+        this.vectorColumn = checkIdentifier(vectorColumn);
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("expected dimensions to be at least 1");
+        }
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Sets the quantization of the index, either bit for
+     * <code>binary_quantize</code> with Hamming distance or halfvec. The default
+     * is bit.
+     *
+     * @param quantization bit or halfvec
+     */
+    public void setQuantization(ColumnType quantization) {
+        if (quantization != ColumnType.BIT && quantization != ColumnType.HALFVEC) {
+            throw new IllegalArgumentException("unsupported quantization " + quantization.getTypeName());
+        }
+        this.quantization = quantization;
+    }
+
+    /**
+     * Sets the operator for reranking, which is also used for the index with
+     * halfvec. The default is L2.
+     *
+     * @param operator L2, inner product, cosine, or L1
+     */
+    public void setOperator(DistanceOperator operator) {
+        if (operator == DistanceOperator.HAMMING || operator == DistanceOperator.JACCARD) {
+            throw new IllegalArgumentException("operator " + operator.getOperator() + " not supported for vector");
+        }
+        this.operator = operator;
+    }
+
+    /**
+     * Sets how many candidates to fetch for each result. The default is 4.
+     *
+     * @param overfetch multiple of the number of results
+     */
+    public void setOverfetch(int overfetch) {
+        if (overfetch < 1) {
+            throw new IllegalArgumentException("overfetch must be at least 1");
+        }
+        this.overfetch = overfetch;
+    }
+
+    /**
+     * Sets whether to rerank in the client instead of the server. Reranking in
+     * the client fetches the vectors of all candidates.
+     *
+     * @param clientRerank whether to rerank in the client
+     */
+    public void setClientRerank(boolean clientRerank) {
+        this.clientRerank = clientRerank;
+    }
+
+    /**
+     * Returns the nearest rows.
+     *
+     * @param conn connection
+     * @param query float array
+     * @param k number of results
+     * @return the result
+     * @throws SQLException exception
+     */
+    public Result search(Connection conn, float[] query, int k) throws SQLException {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        Distances.checkDimensions("vector", dimensions, query.length);
+        int candidates = (int) Math.min((long) k * overfetch, Integer.MAX_VALUE);
+        PGvector q = new PGvector(query);
+
+        long start = System.nanoTime();
+        if (!clientRerank) {
+            try (PreparedStatement stmt = conn.prepareStatement(rerankSql())) {
+                stmt.setObject(1, q);
+                stmt.setObject(2, q);
+                stmt.setInt(3, candidates);
+                stmt.setInt(4, k);
+                long[] ids = new long[k];
+                double[] distances = new double[k];
+                int n = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids[n] = rs.getLong(1);
+                        distances[n] = rs.getDouble(2);
+                        if (!rs.wasNull()) {
+                            n++;
+                        }
+                    }
+                }
+                return new Result(Arrays.copyOf(ids, n), Arrays.copyOf(distances, n), -1, System.nanoTime() - start, 0);
+            }
+        }
+
+        VectorBatch batch = new VectorBatch(ColumnType.VECTOR, dimensions, candidates);
+        try (PreparedStatement stmt = conn.prepareStatement(candidateSql())) {
+            stmt.setObject(1, q);
+            stmt.setInt(2, candidates);
+            try (ResultSet rs = stmt.executeQuery()) {
+                batch.read(rs, 2, 1, 0);
+            }
+        }
+        long queryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int count = batch.size();
+        double[] scores = new double[count];
+        operator.distances(query, batch.getMatrix(), count, scores);
+        int[] order = nearest(scores, count, k);
+        long[] ids = new long[order.length];
+        double[] distances = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ids[i] = batch.getIds()[order[i]];
+            distances[i] = scores[order[i]];
+        }
+        return new Result(ids, distances, count, queryNanos, System.nanoTime() - start);
+    }
+
+    String candidateSql() {
+        return "SELECT " + idColumn + ", " + vectorColumn + " FROM " + table
+            + " ORDER BY " + quantizedOrder() + " LIMIT ?";
+    }
+
+    String rerankSql() {
+        return "SELECT " + idColumn + ", " + vectorColumn + " " + operator.getOperator() + " ? AS distance FROM ("
+            + "SELECT " + idColumn + ", " + vectorColumn + " FROM " + table
+            + " ORDER BY " + quantizedOrder() + " LIMIT ?"
+            + ") candidates ORDER BY distance LIMIT ?";
+    }
+
+    private String quantizedOrder() {
+        if (quantization == ColumnType.BIT) {
+            return "binary_quantize(" + vectorColumn + ")::bit(" + dimensions + ") <~> binary_quantize(?)";
+        } else {
+            return vectorColumn + "::halfvec(" + dimensions + ") " + operator.getOperator() + " ?::halfvec(" + dimensions + ")";
+        }
+    }
+
+    // indexes of the k smallest distances in order, skipping NaN
+    static int[] nearest(double[] distances, int n, int k) {
+        int[] top = new int[Math.min(k, n)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            double d = distances[i];
+            if (Double.isNaN(d) || (size == top.length && d >= distances[top[size - 1]])) {
+                continue;
+            }
+            int j = size < top.length ? size++ : size - 1;
+            while (j > 0 && distances[top[j - 1]] > d) {
+                top[j] = top[j - 1];
+                j--;
+            }
+            top[j] = i;
+        }
+        return size == top.length ? top : Arrays.copyOf(top, size);
+    }
+
+    private static String checkIdentifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("invalid identifier " + name);
+        }
+        return name;
+    }
+}
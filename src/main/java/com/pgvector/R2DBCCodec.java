@@ -0,0 +1,231 @@
+package com.pgvector;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.r2dbc.postgresql.client.EncodedParameter;
+import io.r2dbc.postgresql.codec.Codec;
+import io.r2dbc.postgresql.message.Format;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+import reactor.core.publisher.Mono;
+
+/**
+ * An R2DBC codec for a vector type.
+ * <p>
+ * Parameters are sent with the binary representation, which is written
+ * directly to the buffer. Values are read with the format the server sends.
+ *
+ * @param <T> vector class
+ */
+final class R2DBCCodec<T extends PGobject & PGBinaryObject> implements Codec<T> {
+    // bit and varbit
+    private static final int[] BIT_OIDS = {1560, 1562};
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        void write(T value, ByteBuf buf);
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(ByteBuf buf);
+    }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        T parse(String s) throws SQLException;
+    }
+
+    private final Class<T> type;
+    // the first is used for parameters
+    private final int[] oids;
+    private final boolean decodesObject;
+    private final ByteBufAllocator allocator;
+    private final Writer<T> writer;
+    private final Reader<T> reader;
+    private final Parser<T> parser;
+
+    private R2DBCCodec(Class<T> type, int[] oids, boolean decodesObject, ByteBufAllocator allocator, Writer<T> writer, Reader<T> reader, Parser<T> parser) {
+        this.type = type;
+        this.oids = oids;
+        this.decodesObject = decodesObject;
+        this.allocator = allocator;
+        this.writer = writer;
+        this.reader = reader;
+        this.parser = parser;
+    }
+
+    static R2DBCCodec<PGvector> vector(int oid, ByteBufAllocator allocator) {
+        // the built-in codec returns Vector when no class is requested
+        return new R2DBCCodec<>(PGvector.class, new int[] {oid}, false, allocator, R2DBCCodec::writeVector, R2DBCCodec::readVector, PGvector::new);
+    }
+
+    static R2DBCCodec<PGhalfvec> halfvec(int oid, ByteBufAllocator allocator) {
+        return new R2DBCCodec<>(PGhalfvec.class, new int[] {oid}, true, allocator, R2DBCCodec::writeHalfvec, R2DBCCodec::readHalfvec, PGhalfvec::new);
+    }
+
+    static R2DBCCodec<PGsparsevec> sparsevec(int oid, ByteBufAllocator allocator) {
+        return new R2DBCCodec<>(PGsparsevec.class, new int[] {oid}, true, allocator, R2DBCCodec::writeSparsevec, R2DBCCodec::readSparsevec, PGsparsevec::new);
+    }
+
+    static R2DBCCodec<PGbit> bit(ByteBufAllocator allocator) {
+        return new R2DBCCodec<>(PGbit.class, BIT_OIDS, true, allocator, R2DBCCodec::writeBit, R2DBCCodec::readBit, PGbit::new);
+    }
+
+    @Override
+    public boolean canDecode(int dataType, Format format, Class<?> type) {
+        if (type == Object.class && !decodesObject) {
+            return false;
+        }
+        if (!type.isAssignableFrom(this.type)) {
+            return false;
+        }
+        for (int oid : oids) {
+            if (oid == dataType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canEncode(Object value) {
+        return type.isInstance(value);
+    }
+
+    @Override
+    public boolean canEncodeNull(Class<?> type) {
+        return this.type.isAssignableFrom(type);
+    }
+
+    @Override
+    public T decode(ByteBuf buffer, int dataType, Format format, Class<? extends T> type) {
+        if (buffer == null) {
+            return null;
+        }
+        if (format == Format.FORMAT_TEXT) {
+            try {
+                return parser.parse(buffer.toString(StandardCharsets.US_ASCII));
+            } catch (SQLException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        return reader.read(buffer);
+    }
+
+    @Override
+    public EncodedParameter encode(Object value) {
+        T v = type.cast(value);
+        int length = v.lengthInBytes();
+        if (length == 0) {
+            return encodeNull();
+        }
+        return new EncodedParameter(Format.FORMAT_BINARY, oids[0], Mono.fromSupplier(() -> {
+            ByteBuf buf = allocator.buffer(length);
+            writer.write(v, buf);
+            return buf;
+        }));
+    }
+
+    @Override
+    public EncodedParameter encode(Object value, int dataType) {
+        return encode(value);
+    }
+
+    @Override
+    public EncodedParameter encodeNull() {
+        return new EncodedParameter(Format.FORMAT_BINARY, oids[0], EncodedParameter.NULL_VALUE);
+    }
+
+    void write(T value, ByteBuf buf) {
+        writer.write(value, buf);
+    }
+
+    private static void writeVector(PGvector value, ByteBuf buf) {
+        float[] vec = value.toArray();
+        buf.writeShort(vec.length);
+        buf.writeShort(0);
+        for (float v : vec) {
+            buf.writeFloat(v);
+        }
+    }
+
+    private static PGvector readVector(ByteBuf buf) {
+        int dim = buf.readUnsignedShort();
+        checkUnused(buf.readShort());
+        float[] vec = new float[dim];
+        for (int i = 0; i < dim; i++) {
+            vec[i] = buf.readFloat();
+        }
+        return new PGvector(vec);
+    }
+
+    private static void writeHalfvec(PGhalfvec value, ByteBuf buf) {
+        float[] vec = value.toArray();
+        buf.writeShort(vec.length);
+        buf.writeShort(0);
+        for (float v : vec) {
+            buf.writeShort(HalfFloat.fromFloat(v));
+        }
+    }
+
+    private static PGhalfvec readHalfvec(ByteBuf buf) {
+        int dim = buf.readUnsignedShort();
+        checkUnused(buf.readShort());
+        float[] vec = new float[dim];
+        for (int i = 0; i < dim; i++) {
+            vec[i] = HalfFloat.toFloat(buf.readShort());
+        }
+        return new PGhalfvec(vec);
+    }
+
+    private static void writeSparsevec(PGsparsevec value, ByteBuf buf) {
+        int nnz = value.getNnz();
+        int[] indices = value.indexArray();
+        float[] values = value.valueArray();
+        buf.writeInt(value.getDimensions());
+        buf.writeInt(nnz);
+        buf.writeInt(0);
+        for (int i = 0; i < nnz; i++) {
+            buf.writeInt(indices[i]);
+        }
+        for (int i = 0; i < nnz; i++) {
+            buf.writeFloat(values[i]);
+        }
+    }
+
+    private static PGsparsevec readSparsevec(ByteBuf buf) {
+        int dimensions = buf.readInt();
+        int nnz = buf.readInt();
+        checkUnused(buf.readInt());
+        int[] indices = new int[nnz];
+        float[] values = new float[nnz];
+        for (int i = 0; i < nnz; i++) {
+            indices[i] = buf.readInt();
+        }
+        for (int i = 0; i < nnz; i++) {
+            values[i] = buf.readFloat();
+        }
+        return PGsparsevec.create(indices, values, nnz, dimensions);
+    }
+
+    private static void writeBit(PGbit value, ByteBuf buf) {
+        buf.writeInt(value.length());
+        buf.writeBytes(value.toByteArray());
+    }
+
+    private static PGbit readBit(ByteBuf buf) {
+        int length = buf.readInt();
+        byte[] data = new byte[(int) (((long) length + 7) / 8)];
+        buf.readBytes(data);
+        return new PGbit(data, length);
+    }
+
+    private static void checkUnused(int unused) {
+        if (unused != 0) {
+            throw new IllegalArgumentException("expected unused to be 0");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.pgvector;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.codec.Codec;
+import io.r2dbc.postgresql.codec.CodecRegistry;
+import io.r2dbc.postgresql.extension.CodecRegistrar;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+/**
+ * Registers R2DBC codecs for {@link PGvector}, {@link PGhalfvec},
+ * {@link PGsparsevec}, and {@link PGbit}.
+ * <p>
+ * The registrar is detected by R2DBC PostgreSQL when extensions are
+ * autodetected. Parameters are sent with the binary representation. Codecs
+ * are added after the built-in codecs, so vectors read without a class are
+ * still returned as {@code Vector}.
+ */
+public class R2DBCCodecRegistrar implements CodecRegistrar {
+    private static final String TYPES_SQL = "SELECT oid, typname FROM pg_catalog.pg_type WHERE oid IN (to_regtype('vector')::oid, to_regtype('halfvec')::oid, to_regtype('sparsevec')::oid)";
+
+    /**
+     * Creates a registrar.
+     */
+    public R2DBCCodecRegistrar() {
+    }
+
+    @Override
+    public Publisher<Void> register(PostgresqlConnection connection, ByteBufAllocator allocator, CodecRegistry registry) {
+        // add codecs on subscription, like the codecs for the queried types
+        return Mono.fromRunnable(() -> registry.addLast(R2DBCCodec.bit(allocator)))
+            .thenMany(connection.createStatement(TYPES_SQL).execute())
+            .flatMap(result -> result.map((row, metadata) -> codec(row.get("typname", String.class), row.get("oid", Long.class).intValue(), allocator)))
+            .doOnNext(registry::addLast)
+            .then();
+    }
+
+    private static Codec<?> codec(String typeName, int oid, ByteBufAllocator allocator) {
+        switch (typeName) {
+            case "vector":
+                return R2DBCCodec.vector(oid, allocator);
+            case "halfvec":
+                return R2DBCCodec.halfvec(oid, allocator);
+            case "sparsevec":
+                return R2DBCCodec.sparsevec(oid, allocator);
+            default:
+                throw new IllegalStateException("unexpected type " + typeName);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.pgvector;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of results for queries that are close to previous queries.
+ * <p>
+ * Previous queries are kept in an in-memory HNSW index, and the result of the
+ * nearest one is returned when it is within the threshold. The least recently
+ * used queries are evicted when the maximum number of entries is exceeded.
+ *
+ * @param <T> result type
+ */
+public class SemanticCache<T> {
+    private static final class Entry<T> {
+        private final float[] query;
+        private final T value;
+
+        Entry(float[] query, T value) {
+            this.query = query;
+            this.value = value;
+        }
+    }
+
+    private final int dimensions;
+    private final int maxEntries;
+    private final HnswIndex index;
+    private final LinkedHashMap<Long, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile double threshold;
+    private long nextId;
+    private long hits;
+    private long nearHits;
+    private long misses;
+    private long lookupNanos;
+
+    /**
+     * Creates a cache.
+     *
+     * @param dimensions number of dimensions
+     * @param operator L2, inner product, cosine, or L1
+     * @param threshold maximum distance to reuse a result
+     * @param maxEntries maximum number of entries
+     */
+    public SemanticCache(int dimensions, DistanceOperator operator, double threshold, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("max entries must be at least 1");
+        }
+        this.index = new HnswIndex(ColumnType.VECTOR, dimensions, operator);
+        this.dimensions = dimensions;
+        this.maxEntries = maxEntries;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sets the maximum distance to reuse a result.
+     *
+     * @param threshold maximum distance
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the result of the nearest previous query within the threshold, or
+     * null if there is none.
+     *
+     * @param query float array
+     * @return the result
+     */
+    public T get(float[] query) {
+        Distances.checkDimensions("vector", dimensions, query.length);
+        long start = System.nanoTime();
+        HnswIndex.Result result = index.search(query, 1);
+        synchronized (this) {
+            Entry<T> entry = null;
+            if (result.size() > 0 && result.getDistances()[0] <= threshold) {
+                entry = entries.get(result.getIds()[0]);
+            }
+            if (entry == null) {
+                misses++;
+            } else if (Arrays.equals(entry.query, query)) {
+                hits++;
+            } else {
+                nearHits++;
+            }
+            lookupNanos += System.nanoTime() - start;
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    /**
+     * Returns the result of the nearest previous query within the threshold,
+     * loading and caching it if there is none.
+     *
+     * @param query float array
+     * @param loader loader
+     * @return the result
+     * @throws SQLException exception
+     */
+    public T get(float[] query, KnnCache.Loader<T> loader) throws SQLException {
+        T value = get(query);
+        if (value == null) {
+            value = loader.load();
+            if (value != null) {
+                put(query, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Caches a result.
+     *
+     * @param query float array
+     * @param value result
+     */
+    public void put(float[] query, T value) {
+        long id;
+        synchronized (this) {
+            id = nextId++;
+        }
+        if (!index.add(id, query)) {
+            return;
+        }
+        boolean rebuild;
+        synchronized (this) {
+            entries.put(id, new Entry<>(query.clone(), value));
+            Iterator<Map.Entry<Long, Entry<T>>> it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries) {
+                index.remove(it.next().getKey());
+                it.remove();
+            }
+            // keep memory bounded by removing evicted queries from the graph
+            rebuild = index.getDeletedCount() > maxEntries;
+        }
+        if (rebuild) {
+            index.rebuild();
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    public synchronized void invalidateAll() {
+        for (Long id : entries.keySet()) {
+            index.remove(id);
+        }
+        entries.clear();
+        index.rebuild();
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups with the same query.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups with a different query within the
+     * threshold.
+     *
+     * @return the number of near hits
+     */
+    public synchronized long getNearHitCount() {
+        return nearHits;
+    }
+
+    /**
+     * Returns the number of lookups without a result.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the total time of lookups in nanoseconds.
+     *
+     * @return the lookup time
+     */
+    public synchronized long getLookupNanos() {
+        return lookupNanos;
+    }
+
+    /**
+     * Returns the fraction of lookups that were hits or near hits.
+     *
+     * @return the hit rate
+     */
+    public synchronized double getHitRate() {
+        long total = hits + nearHits + misses;
+        return total == 0 ? 0 : (double) (hits + nearHits) / total;
+    }
+}
@@ -0,0 +1,395 @@
+package com.pgvector;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.TypeInfo;
+import org.postgresql.jdbc.PreferQueryMode;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * An inserter that sends many rows in a single statement with one array
+ * parameter per column.
+ * <p>
+ * Use with a statement like
+ * <code>INSERT INTO items (embedding, category_id) SELECT * FROM unnest(?::vector[], ?::bigint[])</code>.
+ * Arrays are sent with the binary representation, and rows are split into
+ * chunks that stay under the size limit for a protocol message. Statements run
+ * on the connection of the template, so they are part of the current
+ * transaction.
+ * <p>
+ * Binary transfer is enabled for the array types on the connection while the
+ * statements run and restored afterwards. With the simple query mode, arrays
+ * are sent with the text representation.
+ */
+public class SpringBulkInserter {
+    // leave room for the rest of the message under the 1 GB limit
+    private static final long MAX_CHUNK_BYTES = 512L * 1024 * 1024;
+    private static final int ARRAY_HEADER_BYTES = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final ColumnType[] columns;
+    private long maxChunkBytes = 16L * 1024 * 1024;
+    private int maxChunkRows = 100000;
+
+    /**
+     * Creates an inserter.
+     *
+     * @param jdbcTemplate JDBC template
+     * @param sql <code>INSERT ... SELECT * FROM unnest(...)</code> statement with one array parameter per column
+     * @param columns column types
+     */
+    public SpringBulkInserter(JdbcTemplate jdbcTemplate, String sql, ColumnType... columns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+        this.columns = columns.clone();
+    }
+
+    /**
+     * Sets the maximum number of bytes of the parameters of a statement.
+     *
+     * @param maxChunkBytes number of bytes
+     */
+    public void setMaxChunkBytes(long maxChunkBytes) {
+        if (maxChunkBytes < 1 || maxChunkBytes > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("max chunk bytes must be between 1 and " + MAX_CHUNK_BYTES);
+        }
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    /**
+     * Sets the maximum number of rows of a statement.
+     *
+     * @param maxChunkRows number of rows
+     */
+    public void setMaxChunkRows(int maxChunkRows) {
+        if (maxChunkRows < 1) {
+            throw new IllegalArgumentException("max chunk rows must be at least 1");
+        }
+        this.maxChunkRows = maxChunkRows;
+    }
+
+    /**
+     * Inserts rows.
+     * <p>
+     * Values can be null or the class for the column type: {@link Boolean},
+     * {@link Number}, {@link String}, {@link PGvector} or float array,
+     * {@link PGhalfvec} or float array, {@link PGsparsevec}, and {@link PGbit}.
+     *
+     * @param rows rows with a value for each column
+     * @return the number of rows inserted
+     */
+    public long insert(List<Object[]> rows) {
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (row.length != columns.length) {
+                throw new IllegalArgumentException("expected " + columns.length + " values for row " + i + ", got " + row.length);
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Long>) conn -> insert(conn, rows));
+    }
+
+    private long insert(Connection conn, List<Object[]> rows) throws SQLException {
+        BaseConnection base = conn.unwrap(BaseConnection.class);
+        TypeInfo typeInfo = base.getTypeInfo();
+        String[] arrayTypes = new String[columns.length];
+        int[] elementOids = new int[columns.length];
+        int[] arrayOids = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String name = internalName(columns[i]);
+            arrayTypes[i] = "_" + name;
+            elementOids[i] = typeInfo.getPGType(name);
+            arrayOids[i] = typeInfo.getPGArrayType(name);
+            if (elementOids[i] == 0 || arrayOids[i] == 0) {
+                throw new SQLException("unknown type " + name);
+            }
+        }
+
+        // enable binary transfer for the arrays only while the statements run,
+        // since the connection may be returned to a pool and used by others
+        QueryExecutor executor = base.getQueryExecutor();
+        List<Integer> enabled = new ArrayList<>();
+        if (base.getPreferQueryMode() != PreferQueryMode.SIMPLE) {
+            for (int oid : arrayOids) {
+                if (!base.binaryTransferSend(oid)) {
+                    executor.addBinarySendOid(oid);
+                    enabled.add(oid);
+                }
+            }
+        }
+
+        long inserted = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int[] lengths = new int[columns.length];
+            int start = 0;
+            while (start < rows.size()) {
+                int end = chunkEnd(columns, rows, start, maxChunkBytes, maxChunkRows, lengths);
+                for (int i = 0; i < columns.length; i++) {
+                    stmt.setObject(i + 1, new BinaryArray(arrayTypes[i], elementOids[i], columns[i], rows, i, start, end, lengths[i]));
+                }
+                inserted += stmt.executeUpdate();
+                start = end;
+            }
+        } finally {
+            for (int oid : enabled) {
+                executor.removeBinarySendOid(oid);
+            }
+        }
+        return inserted;
+    }
+
+    // returns the end of the chunk and sets the array lengths
+    static int chunkEnd(ColumnType[] columns, List<Object[]> rows, int start, long maxChunkBytes, int maxChunkRows, int[] lengths) {
+        int[] rowLengths = new int[columns.length];
+        long chunkBytes = 0;
+        for (int i = 0; i < columns.length; i++) {
+            lengths[i] = ARRAY_HEADER_BYTES;
+            chunkBytes += ARRAY_HEADER_BYTES;
+        }
+        int end = start;
+        while (end < rows.size() && end - start < maxChunkRows) {
+            Object[] row = rows.get(end);
+            long rowBytes = 0;
+            for (int i = 0; i < columns.length; i++) {
+                rowLengths[i] = 4 + elementLength(columns[i], row[i], i);
+                rowBytes += rowLengths[i];
+            }
+            // always include at least one row
+            if (end > start && chunkBytes + rowBytes > maxChunkBytes) {
+                break;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                lengths[i] += rowLengths[i];
+            }
+            chunkBytes += rowBytes;
+            end++;
+        }
+        return end;
+    }
+
+    private static String internalName(ColumnType type) {
+        switch (type) {
+            case BOOLEAN:
+                return "bool";
+            case SMALLINT:
+                return "int2";
+            case INTEGER:
+                return "int4";
+            case BIGINT:
+                return "int8";
+            case REAL:
+                return "float4";
+            case DOUBLE:
+                return "float8";
+            default:
+                return type.getTypeName();
+        }
+    }
+
+    // returns the length of the binary representation and checks the class
+    private static int elementLength(ColumnType type, Object value, int column) {
+        if (value == null) {
+            return 0;
+        }
+        switch (type) {
+            case BOOLEAN:
+                checkClass(value instanceof Boolean, type, column);
+                return 1;
+            case SMALLINT:
+                checkClass(value instanceof Number, type, column);
+                return 2;
+            case INTEGER:
+            case REAL:
+                checkClass(value instanceof Number, type, column);
+                return 4;
+            case BIGINT:
+            case DOUBLE:
+                checkClass(value instanceof Number, type, column);
+                return 8;
+            case TEXT:
+                checkClass(value instanceof String, type, column);
+                return utf8Length((String) value);
+            default:
+                return binaryObject(type, value, column).lengthInBytes();
+        }
+    }
+
+    private static PGBinaryObject binaryObject(ColumnType type, Object value, int column) {
+        switch (type) {
+            case VECTOR:
+                if (value instanceof float[]) {
+                    return new PGvector((float[]) value);
+                }
+                checkClass(value instanceof PGvector, type, column);
+                break;
+            case HALFVEC:
+                if (value instanceof float[]) {
+                    return new PGhalfvec((float[]) value);
+                }
+                checkClass(value instanceof PGhalfvec, type, column);
+                break;
+            case SPARSEVEC:
+                checkClass(value instanceof PGsparsevec, type, column);
+                break;
+            default:
+                checkClass(value instanceof PGbit, type, column);
+                break;
+        }
+        return (PGBinaryObject) value;
+    }
+
+    private static void checkClass(boolean valid, ColumnType type, int column) {
+        if (!valid) {
+            throw new IllegalArgumentException("unexpected value for " + type.getTypeName() + " column " + column);
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                // unpaired surrogates are encoded as ?
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    // an array of the values of a column, written when the statement is bound
+    static final class BinaryArray extends PGobject implements PGBinaryObject {
+        private static final long serialVersionUID = 1L;
+
+        private final int elementOid;
+        private final ColumnType columnType;
+        private final transient List<Object[]> rows;
+        private final int column;
+        private final int start;
+        private final int end;
+        private final int length;
+
+        BinaryArray(String type, int elementOid, ColumnType columnType, List<Object[]> rows, int column, int start, int end, int length) {
+            this.type = type;
+            this.elementOid = elementOid;
+            this.columnType = columnType;
+            this.rows = rows;
+            this.column = column;
+            this.start = start;
+            this.end = end;
+            this.length = length;
+        }
+
+        public void setByteValue(byte[] value, int offset) throws SQLException {
+            throw new SQLException("arrays are only sent");
+        }
+
+        public int lengthInBytes() {
+            return length;
+        }
+
+        public void toBytes(byte[] bytes, int offset) {
+            boolean hasNull = false;
+            int pos = offset + ARRAY_HEADER_BYTES;
+            for (int r = start; r < end; r++) {
+                Object value = rows.get(r)[column];
+                if (value == null) {
+                    hasNull = true;
+                    ByteConverter.int4(bytes, pos, -1);
+                    pos += 4;
+                    continue;
+                }
+                int n = elementLength(columnType, value, column);
+                ByteConverter.int4(bytes, pos, n);
+                pos += 4;
+                writeElement(value, bytes, pos);
+                pos += n;
+            }
+            ByteConverter.int4(bytes, offset, 1);
+            ByteConverter.int4(bytes, offset + 4, hasNull ? 1 : 0);
+            ByteConverter.int4(bytes, offset + 8, elementOid);
+            ByteConverter.int4(bytes, offset + 12, end - start);
+            ByteConverter.int4(bytes, offset + 16, 1);
+        }
+
+        private void writeElement(Object value, byte[] bytes, int pos) {
+            switch (columnType) {
+                case BOOLEAN:
+                    bytes[pos] = (byte) (((Boolean) value) ? 1 : 0);
+                    break;
+                case SMALLINT:
+                    ByteConverter.int2(bytes, pos, ((Number) value).shortValue());
+                    break;
+                case INTEGER:
+                    ByteConverter.int4(bytes, pos, ((Number) value).intValue());
+                    break;
+                case BIGINT:
+                    ByteConverter.int8(bytes, pos, ((Number) value).longValue());
+                    break;
+                case REAL:
+                    ByteConverter.float4(bytes, pos, ((Number) value).floatValue());
+                    break;
+                case DOUBLE:
+                    ByteConverter.float8(bytes, pos, ((Number) value).doubleValue());
+                    break;
+                case TEXT:
+                    byte[] s = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    System.arraycopy(s, 0, bytes, pos, s.length);
+                    break;
+                default:
+                    binaryObject(columnType, value, column).toBytes(bytes, pos);
+                    break;
+            }
+        }
+
+        // used when binary transfer is not available
+        @Override
+        public String getValue() {
+            StringBuilder sb = new StringBuilder("{");
+            for (int r = start; r < end; r++) {
+                if (r > start) {
+                    sb.append(',');
+                }
+                Object value = rows.get(r)[column];
+                if (value == null) {
+                    sb.append("NULL");
+                } else if (value instanceof Boolean) {
+                    sb.append(((Boolean) value) ? 't' : 'f');
+                } else if (value instanceof Number) {
+                    sb.append(value);
+                } else {
+                    String s = value instanceof String ? (String) value : ((PGobject) binaryObject(columnType, value, column)).getValue();
+                    sb.append('"');
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c == '"' || c == '\\') {
+                            sb.append('\\');
+                        }
+                        sb.append(c);
+                    }
+                    sb.append('"');
+                }
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
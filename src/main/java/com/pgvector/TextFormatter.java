@@ -0,0 +1,360 @@
+package com.pgvector;
+
+import java.math.BigInteger;
+
+/**
+ * Formats text representations into a reusable per-thread buffer.
+ * <p>
+ * Floats are written with the shortest digits that round trip, using the Ryu
+ * algorithm, in the same layout as Float.toString.
+ */
+final class TextFormatter {
+    // maximum length of a formatted float, like -1.17549435E-38
+    static final int MAX_FLOAT_LENGTH = 15;
+    // maximum length of a formatted int
+    static final int MAX_INT_LENGTH = 11;
+
+    private static final int MAX_RETAINED_BUFFER = 1 << 18;
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[1024];
+        }
+    };
+
+    private static final int POW5_INV_BITCOUNT = 59;
+    private static final int POW5_BITCOUNT = 61;
+    private static final long[] POW5_INV_SPLIT = new long[32];
+    private static final long[] POW5_SPLIT = new long[48];
+
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        for (int i = 0; i < POW5_SPLIT.length; i++) {
+            BigInteger pow = five.pow(i);
+            int length = pow.bitLength();
+            POW5_SPLIT[i] = (length > POW5_BITCOUNT ? pow.shiftRight(length - POW5_BITCOUNT) : pow.shiftLeft(POW5_BITCOUNT - length)).longValue();
+            if (i < POW5_INV_SPLIT.length) {
+                POW5_INV_SPLIT[i] = BigInteger.ONE.shiftLeft(length - 1 + POW5_INV_BITCOUNT).divide(pow).add(BigInteger.ONE).longValue();
+            }
+        }
+    }
+
+    private TextFormatter() {
+    }
+
+    /**
+     * Returns the text representation of a vector.
+     */
+    static String formatVector(float[] vec) {
+        char[] buf = buffer(2 + vec.length * (MAX_FLOAT_LENGTH + 1));
+        int pos = 0;
+        buf[pos++] = '[';
+        for (int i = 0; i < vec.length; i++) {
+            if (i > 0) {
+                buf[pos++] = ',';
+            }
+            pos = formatFloat(vec[i], buf, pos);
+        }
+        buf[pos++] = ']';
+        return new String(buf, 0, pos);
+    }
+
+    /**
+     * Returns the text representation of a sparse vector.
+     */
+    static String formatSparsevec(int dimensions, int[] indices, float[] values, int nnz) {
+        char[] buf = buffer(3 + MAX_INT_LENGTH + nnz * (MAX_INT_LENGTH + MAX_FLOAT_LENGTH + 2));
+        int pos = 0;
+        buf[pos++] = '{';
+        for (int i = 0; i < nnz; i++) {
+            if (i > 0) {
+                buf[pos++] = ',';
+            }
+            pos = formatInt(indices[i] + 1, buf, pos);
+            buf[pos++] = ':';
+            pos = formatFloat(values[i], buf, pos);
+        }
+        buf[pos++] = '}';
+        buf[pos++] = '/';
+        pos = formatInt(dimensions, buf, pos);
+        return new String(buf, 0, pos);
+    }
+
+    /**
+     * Returns the text representation of a bit string.
+     */
+    static String formatBit(byte[] data, int length) {
+        char[] buf = buffer(length);
+        for (int i = 0; i < length; i++) {
+            buf[i] = ((data[i / 8] >> (7 - (i % 8))) & 1) == 1 ? '1' : '0';
+        }
+        return new String(buf, 0, length);
+    }
+
+    /**
+     * Returns a buffer for the current thread with at least the given capacity.
+     */
+    static char[] buffer(int capacity) {
+        char[] buf = BUFFER.get();
+        if (buf.length < capacity) {
+            buf = new char[Math.max(capacity, buf.length * 2)];
+            if (buf.length <= MAX_RETAINED_BUFFER) {
+                BUFFER.set(buf);
+            }
+        }
+        return buf;
+    }
+
+    /**
+     * Writes an int and returns the position after it.
+     */
+    static int formatInt(int v, char[] buf, int pos) {
+        if (v == Integer.MIN_VALUE) {
+            String s = Integer.toString(v);
+            s.getChars(0, s.length(), buf, pos);
+            return pos + s.length();
+        }
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int length = decimalLength(v);
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Writes the shortest text that parses to the float and returns the position after it.
+     */
+    static int formatFloat(float f, char[] buf, int pos) {
+        int bits = Float.floatToRawIntBits(f);
+        int ieeeMantissa = bits & 0x7fffff;
+        int ieeeExponent = (bits >>> 23) & 0xff;
+
+        if (ieeeExponent == 0xff) {
+            String s = ieeeMantissa != 0 ? "NaN" : (bits < 0 ? "-Infinity" : "Infinity");
+            s.getChars(0, s.length(), buf, pos);
+            return pos + s.length();
+        }
+
+        if (bits < 0) {
+            buf[pos++] = '-';
+        }
+
+        if (ieeeExponent == 0 && ieeeMantissa == 0) {
+            buf[pos++] = '0';
+            buf[pos++] = '.';
+            buf[pos++] = '0';
+            return pos;
+        }
+
+        // https://github.com/ulfjack/ryu
+        int e2;
+        int m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - 127 - 23 - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - 127 - 23 - 2;
+            m2 = (1 << 23) | ieeeMantissa;
+        }
+        boolean acceptBounds = (m2 & 1) == 0;
+
+        int mv = 4 * m2;
+        int mp = 4 * m2 + 2;
+        int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+        int mm = 4 * m2 - 1 - mmShift;
+
+        long vr;
+        long vp;
+        long vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        int lastRemovedDigit = 0;
+        if (e2 >= 0) {
+            int q = log10Pow2(e2);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(mv, POW5_INV_SPLIT[q], i);
+            vp = mulShift(mp, POW5_INV_SPLIT[q], i);
+            vm = mulShift(mm, POW5_INV_SPLIT[q], i);
+            if (q != 0 && (vp - 1) / 10 <= vm / 10) {
+                int l = POW5_INV_BITCOUNT + pow5bits(q - 1) - 1;
+                lastRemovedDigit = (int) (mulShift(mv, POW5_INV_SPLIT[q - 1], -e2 + q - 1 + l) % 10);
+            }
+            if (q <= 9) {
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = pow5Factor(mv) >= q;
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = pow5Factor(mm) >= q;
+                } else if (pow5Factor(mp) >= q) {
+                    vp--;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(mv, POW5_SPLIT[i], j);
+            vp = mulShift(mp, POW5_SPLIT[i], j);
+            vm = mulShift(mm, POW5_SPLIT[i], j);
+            if (q != 0 && (vp - 1) / 10 <= vm / 10) {
+                j = q - 1 - (pow5bits(i + 1) - POW5_BITCOUNT);
+                lastRemovedDigit = (int) (mulShift(mv, POW5_SPLIT[i + 1], j) % 10);
+            }
+            if (q <= 1) {
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 31) {
+                vrIsTrailingZeros = (mv & ((1 << (q - 1)) - 1)) == 0;
+            }
+        }
+
+        int removed = 0;
+        long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int) (vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // round even if the exact value is .....50..0
+                lastRemovedDigit = 4;
+            }
+            output = vr + ((vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5 ? 1 : 0);
+        } else {
+            while (vp / 10 > vm / 10) {
+                lastRemovedDigit = (int) (vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + (vr == vm || lastRemovedDigit >= 5 ? 1 : 0);
+        }
+
+        return formatDecimal((int) output, e10 + removed, buf, pos);
+    }
+
+    // writes digits * 10^exp like Float.toString
+    private static int formatDecimal(int digits, int exp, char[] buf, int pos) {
+        int length = decimalLength(digits);
+        int sciExp = exp + length - 1;
+
+        if (sciExp >= -3 && sciExp < 7) {
+            if (sciExp < 0) {
+                buf[pos++] = '0';
+                buf[pos++] = '.';
+                for (int i = -1; i > sciExp; i--) {
+                    buf[pos++] = '0';
+                }
+                return writeDigits(digits, length, buf, pos);
+            }
+
+            int integerLength = sciExp + 1;
+            if (length <= integerLength) {
+                pos = writeDigits(digits, length, buf, pos);
+                for (int i = length; i < integerLength; i++) {
+                    buf[pos++] = '0';
+                }
+                buf[pos++] = '.';
+                buf[pos++] = '0';
+                return pos;
+            }
+
+            // write digits and shift the integer part left to make room for the point
+            int end = writeDigits(digits, length, buf, pos + 1);
+            for (int i = 0; i < integerLength; i++) {
+                buf[pos + i] = buf[pos + 1 + i];
+            }
+            buf[pos + integerLength] = '.';
+            return end;
+        }
+
+        int end = writeDigits(digits, length, buf, pos + 1);
+        buf[pos] = buf[pos + 1];
+        buf[pos + 1] = '.';
+        if (length == 1) {
+            buf[end++] = '0';
+        }
+        buf[end++] = 'E';
+        return formatInt(sciExp, buf, end);
+    }
+
+    private static int writeDigits(int v, int length, char[] buf, int pos) {
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return end;
+    }
+
+    private static int decimalLength(int v) {
+        int length = 1;
+        while (v >= 10) {
+            v /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    private static int pow5Factor(int v) {
+        int count = 0;
+        while (v % 5 == 0) {
+            v /= 5;
+            count++;
+        }
+        return count;
+    }
+
+    // ceil(log2(5^e)) for e > 0, 1 for e = 0
+    private static int pow5bits(int e) {
+        return ((e * 1217359) >>> 19) + 1;
+    }
+
+    // floor(log10(2^e))
+    private static int log10Pow2(int e) {
+        return (e * 78913) >>> 18;
+    }
+
+    // floor(log10(5^e))
+    private static int log10Pow5(int e) {
+        return (e * 732923) >>> 20;
+    }
+
+    private static long mulShift(int m, long factor, int shift) {
+        long low = factor & 0xffffffffL;
+        long high = factor >>> 32;
+        long bits0 = m * low;
+        long bits1 = m * high;
+        return ((bits0 >>> 32) + bits1) >>> (shift - 32);
+    }
+}
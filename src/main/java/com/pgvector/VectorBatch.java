@@ -0,0 +1,237 @@
+package com.pgvector;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.postgresql.util.ByteConverter;
+
+/**
+ * Reads a vector or half vector column of many rows into a contiguous
+ * row-major matrix.
+ * <p>
+ * Values are decoded from the bytes of the column, in either the text or the
+ * binary representation, without creating an object for each row. Ids and
+ * distances can be read into arrays at the same time. Null vectors are filled
+ * with NaN.
+ */
+public class VectorBatch {
+    private final ColumnType type;
+    private final int dimensions;
+    private final float[] matrix;
+    private final int capacity;
+    private long[] ids;
+    private double[] distances;
+    private int size;
+
+    /**
+     * Creates a batch with a new matrix.
+     *
+     * @param type vector or halfvec
+     * @param dimensions number of dimensions
+     * @param capacity maximum number of rows
+     */
+    public VectorBatch(ColumnType type, int dimensions, int capacity) {
+        this(type, dimensions, new float[checkCapacity(dimensions, capacity)]);
+    }
+
+    /**
+     * Creates a batch that reads into an existing matrix.
+     *
+     * @param type vector or halfvec
+     * @param dimensions number of dimensions
+     * @param matrix row-major matrix with room for one or more rows
+     */
+    public VectorBatch(ColumnType type, int dimensions, float[] matrix) {
+        if (type != ColumnType.VECTOR && type != ColumnType.HALFVEC) {
+            throw new IllegalArgumentException("unsupported type " + type.getTypeName());
+        }
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("expected dimensions to be at least 1");
+        }
+        this.type = type;
+        this.dimensions = dimensions;
+        this.matrix = matrix;
+        this.capacity = matrix.length / dimensions;
+    }
+
+    /**
+     * Reads rows until the batch is full or there are no more rows.
+     *
+     * @param rs result set
+     * @param vectorColumn index of the vector column
+     * @return the number of rows read
+     * @throws SQLException exception
+     */
+    public int read(ResultSet rs, int vectorColumn) throws SQLException {
+        return read(rs, vectorColumn, 0, 0);
+    }
+
+    /**
+     * Reads rows with ids and distances until the batch is full or there are no
+     * more rows.
+     *
+     * @param rs result set
+     * @param vectorColumn index of the vector column
+     * @param idColumn index of a bigint or integer column, or 0 for none
+     * @param distanceColumn index of a double precision column, or 0 for none
+     * @return the number of rows read
+     * @throws SQLException exception
+     */
+    public int read(ResultSet rs, int vectorColumn, int idColumn, int distanceColumn) throws SQLException {
+        if (idColumn > 0 && ids == null) {
+            ids = new long[capacity];
+        }
+        if (distanceColumn > 0 && distances == null) {
+            distances = new double[capacity];
+        }
+
+        int start = size;
+        while (size < capacity && rs.next()) {
+            decode(rs.getBytes(vectorColumn), size * dimensions);
+            if (idColumn > 0) {
+                ids[size] = rs.getLong(idColumn);
+            }
+            if (distanceColumn > 0) {
+                distances[size] = rs.getDouble(distanceColumn);
+            }
+            size++;
+        }
+        return size - start;
+    }
+
+    /**
+     * Returns the matrix.
+     *
+     * @return the matrix
+     */
+    public float[] getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Returns the ids, or null if not read.
+     *
+     * @return the ids
+     */
+    public long[] getIds() {
+        return ids;
+    }
+
+    /**
+     * Returns the distances, or null if not read.
+     *
+     * @return the distances
+     */
+    public double[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of rows.
+     *
+     * @return the maximum number of rows
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns whether the batch is full.
+     *
+     * @return whether the batch is full
+     */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Returns the number of dimensions.
+     *
+     * @return the number of dimensions
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Starts a new batch in the same arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void decode(byte[] value, int offset) throws SQLException {
+        if (value == null) {
+            Arrays.fill(matrix, offset, offset + dimensions, Float.NaN);
+        } else if (value.length > 0 && value[0] == '[') {
+            // the first byte of the binary representation is the high byte of the
+            // dimensions, which is never '[' for the maximum of 16000 dimensions
+            decodeText(value, offset);
+        } else {
+            decodeBinary(value, offset);
+        }
+    }
+
+    private void decodeBinary(byte[] value, int offset) throws SQLException {
+        int elementSize = type == ColumnType.VECTOR ? 4 : 2;
+        if (value.length < 4) {
+            throw new SQLException("expected binary " + type.getTypeName());
+        }
+        int dim = ByteConverter.int2(value, 0);
+        if (dim != dimensions) {
+            throw new SQLException("expected " + dimensions + " dimensions, got " + dim);
+        }
+        if (ByteConverter.int2(value, 2) != 0) {
+            throw new SQLException("expected unused to be 0");
+        }
+        if (value.length != 4 + dim * elementSize) {
+            throw new SQLException("expected " + (4 + dim * elementSize) + " bytes, got " + value.length);
+        }
+
+        if (type == ColumnType.VECTOR) {
+            VectorCodec.readFloats(value, 4, matrix, offset, dim);
+        } else {
+            for (int i = 0; i < dim; i++) {
+                matrix[offset + i] = HalfFloat.toFloat(ByteConverter.int2(value, 4 + i * 2));
+            }
+        }
+    }
+
+    private void decodeText(byte[] value, int offset) throws SQLException {
+        if (value[value.length - 1] != ']') {
+            throw new SQLException("expected text " + type.getTypeName());
+        }
+        CharSequence s = FloatParser.ascii(value);
+        int count = FloatParser.countElements(s, 1, value.length - 1);
+        if (count != dimensions) {
+            throw new SQLException("expected " + dimensions + " dimensions, got " + count);
+        }
+        try {
+            FloatParser.parseElements(s, 1, value.length - 1, matrix, offset);
+        } catch (NumberFormatException e) {
+            throw new SQLException("invalid " + type.getTypeName(), e);
+        }
+    }
+
+    private static int checkCapacity(int dimensions, int capacity) {
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("expected dimensions to be at least 1");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("expected capacity to be at least 1");
+        }
+        if ((long) dimensions * capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("matrix too large for " + capacity + " rows");
+        }
+        return dimensions * capacity;
+    }
+}
@@ -0,0 +1,471 @@
+package com.pgvector;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.postgresql.util.ByteConverter;
+
+/**
+ * Off-heap storage for many vectors with the same type and dimensions.
+ * <p>
+ * Vectors are stored contiguously in direct buffers in the same layout as the
+ * binary representation, so they can be added from and written to it with a
+ * copy. Use a {@link View} to read vectors without creating an object for each
+ * one. Not thread-safe.
+ */
+public class VectorBlock {
+    private static final int CHUNK_BYTES = 1 << 24;
+
+    private final ColumnType type;
+    private final int dimensions;
+    private final int stride;
+    private final int rowsPerChunk;
+    private ByteBuffer[] chunks = new ByteBuffer[1];
+    private int size;
+    private float[] floatScratch;
+    private byte[] byteScratch;
+
+    /**
+     * Creates a block.
+     *
+     * @param type vector, halfvec, or bit
+     * @param dimensions number of dimensions, or number of bits for bit
+     */
+    public VectorBlock(ColumnType type, int dimensions) {
+        switch (type) {
+            case VECTOR:
+                stride = dimensions * 4;
+                break;
+            case HALFVEC:
+                stride = dimensions * 2;
+                break;
+            case BIT:
+                stride = (dimensions + 7) / 8;
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported type " + type.getTypeName());
+        }
+        if (dimensions < 1) {
+            throw new IllegalArgumentException("expected dimensions to be at least 1");
+        }
+
+        this.type = type;
+        this.dimensions = dimensions;
+        this.rowsPerChunk = Math.max(1, CHUNK_BYTES / stride);
+    }
+
+    /**
+     * Adds a vector or half vector.
+     *
+     * @param v float array
+     * @return the index
+     */
+    public int add(float[] v) {
+        return add(v, 0);
+    }
+
+    /**
+     * Adds a vector or half vector from part of an array.
+     *
+     * @param v float array
+     * @param offset offset of the first element
+     * @return the index
+     */
+    public int add(float[] v, int offset) {
+        if (type == ColumnType.BIT) {
+            throw new IllegalArgumentException("expected bit data");
+        }
+        if (offset < 0 || offset > v.length - dimensions) {
+            throw new IndexOutOfBoundsException();
+        }
+        int index = allocate();
+        ByteBuffer chunk = chunk(index);
+        int position = position(index);
+        if (type == ColumnType.VECTOR) {
+            for (int i = 0; i < dimensions; i++) {
+                chunk.putFloat(position + i * 4, v[offset + i]);
+            }
+        } else {
+            for (int i = 0; i < dimensions; i++) {
+                chunk.putShort(position + i * 2, HalfFloat.fromFloat(v[offset + i]));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Adds a vector.
+     *
+     * @param v vector
+     * @return the index
+     */
+    public int add(PGvector v) {
+        checkType(ColumnType.VECTOR);
+        return add(checkDimensions(v.toArray()));
+    }
+
+    /**
+     * Adds a half vector.
+     *
+     * @param v half vector
+     * @return the index
+     */
+    public int add(PGhalfvec v) {
+        checkType(ColumnType.HALFVEC);
+        return add(checkDimensions(v.toArray()));
+    }
+
+    /**
+     * Adds a bit string.
+     *
+     * @param v bit string
+     * @return the index
+     */
+    public int add(PGbit v) {
+        checkType(ColumnType.BIT);
+        if (v.length() != dimensions) {
+            throw new IllegalArgumentException("expected " + dimensions + " bits, got " + v.length());
+        }
+        return addBits(v.toByteArray());
+    }
+
+    /**
+     * Adds a bit string.
+     *
+     * @param data packed bits, most significant bit first
+     * @return the index
+     */
+    public int addBits(byte[] data) {
+        checkType(ColumnType.BIT);
+        return put(data, 0);
+    }
+
+    /**
+     * Adds a value from its binary representation, like the bytes of a binary
+     * result column.
+     *
+     * @param value binary representation
+     * @param offset offset of the value
+     * @return the index
+     * @throws SQLException exception
+     */
+    public int addBinary(byte[] value, int offset) throws SQLException {
+        int length;
+        if (type == ColumnType.BIT) {
+            length = ByteConverter.int4(value, offset);
+        } else {
+            length = ByteConverter.int2(value, offset);
+            if (ByteConverter.int2(value, offset + 2) != 0) {
+                throw new SQLException("expected unused to be 0");
+            }
+        }
+        if (length != dimensions) {
+            throw new SQLException("expected " + dimensions + " dimensions, got " + length);
+        }
+        return put(value, offset + 4);
+    }
+
+    /**
+     * Reads a vector or half vector into an array.
+     *
+     * @param index index
+     * @param out float array with at least the number of dimensions
+     * @return the array
+     */
+    public float[] get(int index, float[] out) {
+        checkIndex(index);
+        ByteBuffer chunk = chunk(index);
+        int position = position(index);
+        if (type == ColumnType.VECTOR) {
+            for (int i = 0; i < dimensions; i++) {
+                out[i] = chunk.getFloat(position + i * 4);
+            }
+        } else if (type == ColumnType.HALFVEC) {
+            for (int i = 0; i < dimensions; i++) {
+                out[i] = HalfFloat.toFloat(chunk.getShort(position + i * 2));
+            }
+        } else {
+            throw new IllegalArgumentException("expected vector or halfvec");
+        }
+        return out;
+    }
+
+    /**
+     * Reads a bit string into an array.
+     *
+     * @param index index
+     * @param out byte array with at least the number of bytes
+     * @return the array
+     */
+    public byte[] getBits(int index, byte[] out) {
+        checkType(ColumnType.BIT);
+        checkIndex(index);
+        ByteBuffer chunk = chunk(index);
+        int position = position(index);
+        for (int i = 0; i < stride; i++) {
+            out[i] = chunk.get(position + i);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the number of bytes for the binary representation of a value.
+     *
+     * @return the number of bytes
+     */
+    public int lengthInBytes() {
+        return 4 + stride;
+    }
+
+    /**
+     * Writes the binary representation of a value.
+     *
+     * @param index index
+     * @param bytes byte array
+     * @param offset offset
+     */
+    public void toBytes(int index, byte[] bytes, int offset) {
+        checkIndex(index);
+        if (type == ColumnType.BIT) {
+            ByteConverter.int4(bytes, offset, dimensions);
+        } else {
+            ByteConverter.int2(bytes, offset, dimensions);
+            ByteConverter.int2(bytes, offset + 2, 0);
+        }
+        ByteBuffer chunk = chunk(index).duplicate();
+        ((Buffer) chunk).position(position(index));
+        chunk.get(bytes, offset + 4, stride);
+    }
+
+    /**
+     * Computes the distances from a query to all vectors or half vectors.
+     *
+     * @param operator distance operator
+     * @param query float array
+     * @param out distances
+     */
+    public void distances(DistanceOperator operator, float[] query, double[] out) {
+        if (type == ColumnType.BIT) {
+            throw new IllegalArgumentException("expected vector or halfvec");
+        }
+        String typeName = type.getTypeName();
+        Distances.checkDimensions(typeName, dimensions, query.length);
+        if (floatScratch == null) {
+            floatScratch = new float[dimensions];
+        }
+        boolean half = type == ColumnType.HALFVEC;
+        for (int i = 0; i < size; i++) {
+            out[i] = operator.dense(query, 0, get(i, floatScratch), 0, dimensions, half, typeName);
+        }
+    }
+
+    /**
+     * Computes the distances from a query to all bit strings.
+     *
+     * @param operator distance operator
+     * @param query bit string
+     * @param out distances
+     */
+    public void distances(DistanceOperator operator, PGbit query, double[] out) {
+        checkType(ColumnType.BIT);
+        Distances.checkLengths(dimensions, query.length());
+        if (byteScratch == null) {
+            byteScratch = new byte[stride];
+        }
+        byte[] q = query.toByteArray();
+        for (int i = 0; i < size; i++) {
+            out[i] = operator.bit(q, getBits(i, byteScratch), stride);
+        }
+    }
+
+    /**
+     * Returns a view for reading vectors.
+     *
+     * @return a view
+     */
+    public View view() {
+        return new View();
+    }
+
+    /**
+     * Returns the number of vectors.
+     *
+     * @return the number of vectors
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type.
+     *
+     * @return the type
+     */
+    public ColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of dimensions.
+     *
+     * @return the number of dimensions
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Removes all vectors and releases the buffers.
+     */
+    public void clear() {
+        chunks = new ByteBuffer[1];
+        size = 0;
+    }
+
+    /**
+     * A reusable view of one vector in a block.
+     */
+    public final class View {
+        private ByteBuffer chunk;
+        private int position;
+        private int index = -1;
+
+        private View() {
+        }
+
+        /**
+         * Moves the view to a vector.
+         *
+         * @param index index
+         * @return the view
+         */
+        public View moveTo(int index) {
+            checkIndex(index);
+            this.chunk = chunk(index);
+            this.position = position(index);
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Returns the index of the vector.
+         *
+         * @return the index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns an element of a vector or half vector.
+         *
+         * @param i element index
+         * @return the element
+         */
+        public float get(int i) {
+            checkElement(i);
+            if (type == ColumnType.VECTOR) {
+                return chunk.getFloat(position + i * 4);
+            } else if (type == ColumnType.HALFVEC) {
+                return HalfFloat.toFloat(chunk.getShort(position + i * 2));
+            } else {
+                throw new IllegalArgumentException("expected vector or halfvec");
+            }
+        }
+
+        /**
+         * Returns a bit of a bit string.
+         *
+         * @param i bit index
+         * @return the bit
+         */
+        public boolean getBit(int i) {
+            checkType(ColumnType.BIT);
+            checkElement(i);
+            return ((chunk.get(position + i / 8) >> (7 - (i % 8))) & 1) == 1;
+        }
+
+        /**
+         * Reads the vector or half vector into an array.
+         *
+         * @param out float array with at least the number of dimensions
+         * @return the array
+         */
+        public float[] toArray(float[] out) {
+            return VectorBlock.this.get(index, out);
+        }
+
+        /**
+         * Writes the binary representation.
+         *
+         * @param bytes byte array
+         * @param offset offset
+         */
+        public void toBytes(byte[] bytes, int offset) {
+            VectorBlock.this.toBytes(index, bytes, offset);
+        }
+
+        private void checkElement(int i) {
+            if (chunk == null) {
+                throw new IllegalStateException("expected moveTo");
+            }
+            if (i < 0 || i >= dimensions) {
+                throw new IndexOutOfBoundsException("element " + i + " out of bounds for " + dimensions + " dimensions");
+            }
+        }
+    }
+
+    private int put(byte[] bytes, int offset) {
+        if (offset < 0 || offset > bytes.length - stride) {
+            throw new IndexOutOfBoundsException();
+        }
+        int index = allocate();
+        ByteBuffer chunk = chunk(index).duplicate();
+        ((Buffer) chunk).position(position(index));
+        chunk.put(bytes, offset, stride);
+        return index;
+    }
+
+    private int allocate() {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("block is full");
+        }
+        int c = size / rowsPerChunk;
+        if (c == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[c] == null) {
+            // big endian like the binary representation
+            chunks[c] = ByteBuffer.allocateDirect(rowsPerChunk * stride);
+        }
+        return size++;
+    }
+
+    private ByteBuffer chunk(int index) {
+        return chunks[index / rowsPerChunk];
+    }
+
+    private int position(int index) {
+        return (index % rowsPerChunk) * stride;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private void checkType(ColumnType given) {
+        if (type != given) {
+            throw new IllegalArgumentException("expected " + type.getTypeName() + ", got " + given.getTypeName());
+        }
+    }
+
+    private float[] checkDimensions(float[] v) {
+        if (v.length != dimensions) {
+            throw new IllegalArgumentException("expected " + dimensions + " dimensions, got " + v.length);
+        }
+        return v;
+    }
+}
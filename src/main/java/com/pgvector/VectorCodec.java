@@ -0,0 +1,69 @@
+package com.pgvector;
+
+import java.nio.ByteBuffer;
+import org.postgresql.util.ByteConverter;
+
+/**
+ * Bulk conversions between big-endian bytes and arrays.
+ * <p>
+ * Uses big-endian buffer views, which newer JDKs copy and swap in bulk, and
+ * per-element conversions for short arrays, where creating the views costs
+ * more. The multi-release JAR has a version for Java 9+ that uses VarHandles.
+ */
+final class VectorCodec {
+    private static final int MIN_BULK_LENGTH = 32;
+
+    private VectorCodec() {
+    }
+
+    static void readFloats(byte[] src, int offset, float[] dst, int dstOffset, int n) {
+        if (n < MIN_BULK_LENGTH) {
+            checkRange(src, offset, n);
+            for (int i = 0; i < n; i++) {
+                dst[dstOffset + i] = ByteConverter.float4(src, offset + i * 4);
+            }
+        } else {
+            ByteBuffer.wrap(src, offset, n * 4).asFloatBuffer().get(dst, dstOffset, n);
+        }
+    }
+
+    static void writeFloats(float[] src, int srcOffset, byte[] dst, int offset, int n) {
+        if (n < MIN_BULK_LENGTH) {
+            checkRange(dst, offset, n);
+            for (int i = 0; i < n; i++) {
+                ByteConverter.float4(dst, offset + i * 4, src[srcOffset + i]);
+            }
+        } else {
+            ByteBuffer.wrap(dst, offset, n * 4).asFloatBuffer().put(src, srcOffset, n);
+        }
+    }
+
+    static void readInts(byte[] src, int offset, int[] dst, int dstOffset, int n) {
+        if (n < MIN_BULK_LENGTH) {
+            checkRange(src, offset, n);
+            for (int i = 0; i < n; i++) {
+                dst[dstOffset + i] = ByteConverter.int4(src, offset + i * 4);
+            }
+        } else {
+            ByteBuffer.wrap(src, offset, n * 4).asIntBuffer().get(dst, dstOffset, n);
+        }
+    }
+
+    static void writeInts(int[] src, int srcOffset, byte[] dst, int offset, int n) {
+        if (n < MIN_BULK_LENGTH) {
+            checkRange(dst, offset, n);
+            for (int i = 0; i < n; i++) {
+                ByteConverter.int4(dst, offset + i * 4, src[srcOffset + i]);
+            }
+        } else {
+            ByteBuffer.wrap(dst, offset, n * 4).asIntBuffer().put(src, srcOffset, n);
+        }
+    }
+
+    // fail before writing anything, like the buffer views
+    private static void checkRange(byte[] bytes, int offset, int n) {
+        if (offset < 0 || n < 0 || offset > bytes.length - n * 4) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.pgvector;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Bulk conversions between big-endian bytes and arrays.
+ * <p>
+ * Uses byte array views, which the JIT compiles to wide loads and stores.
+ */
+final class VectorCodec {
+    private static final VarHandle FLOAT = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private VectorCodec() {
+    }
+
+    static void readFloats(byte[] src, int offset, float[] dst, int dstOffset, int n) {
+        checkRange(src, offset, n);
+        for (int i = 0; i < n; i++) {
+            dst[dstOffset + i] = (float) FLOAT.get(src, offset + i * 4);
+        }
+    }
+
+    static void writeFloats(float[] src, int srcOffset, byte[] dst, int offset, int n) {
+        checkRange(dst, offset, n);
+        for (int i = 0; i < n; i++) {
+            FLOAT.set(dst, offset + i * 4, src[srcOffset + i]);
+        }
+    }
+
+    static void readInts(byte[] src, int offset, int[] dst, int dstOffset, int n) {
+        checkRange(src, offset, n);
+        for (int i = 0; i < n; i++) {
+            dst[dstOffset + i] = (int) INT.get(src, offset + i * 4);
+        }
+    }
+
+    static void writeInts(int[] src, int srcOffset, byte[] dst, int offset, int n) {
+        checkRange(dst, offset, n);
+        for (int i = 0; i < n; i++) {
+            INT.set(dst, offset + i * 4, src[srcOffset + i]);
+        }
+    }
+
+    // fail before writing anything, like the buffer views
+    private static void checkRange(byte[] bytes, int offset, int n) {
+        if (offset < 0 || n < 0 || offset > bytes.length - n * 4) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pgvector;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryQuantizerTest {
+    @Test
+    void testQuantize() {
+        PGbit bit = BinaryQuantizer.quantize(new float[] {1, -2, 0, -0.0f, Float.MIN_VALUE, -Float.MIN_VALUE, 3, 4, 5});
+        assertEquals("100010111", bit.getValue());
+        assertEquals(9, bit.length());
+    }
+
+    @Test
+    void testVector() {
+        assertEquals("101", BinaryQuantizer.quantize(new PGvector(new float[] {1, -2, 3})).getValue());
+    }
+
+    @Test
+    void testHalfvec() {
+        // rounds to 0 in half precision
+        PGhalfvec v = new PGhalfvec(new float[] {1e-8f, 1, -1});
+        assertEquals("010", BinaryQuantizer.quantize(v).getValue());
+        assertEquals("110", BinaryQuantizer.quantize(new PGvector(v.toArray())).getValue());
+    }
+
+    @Test
+    void testThresholds() {
+        float[] thresholds = new float[] {1, 1, -1};
+        assertEquals("010", BinaryQuantizer.quantize(new float[] {1, 2, -1}, thresholds).getValue());
+    }
+
+    @Test
+    void testRandom() {
+        Random random = new Random(42);
+        for (int n = 1; n <= 40; n++) {
+            float[] v = new float[n];
+            float[] thresholds = new float[n];
+            boolean[] expected = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                v[i] = (float) random.nextGaussian();
+                thresholds[i] = random.nextBoolean() ? v[i] : (float) random.nextGaussian();
+                expected[i] = v[i] > thresholds[i];
+            }
+            assertEquals(new PGbit(expected).getValue(), BinaryQuantizer.quantize(v, thresholds).getValue());
+        }
+    }
+
+    @Test
+    void testMatrix() {
+        float[] matrix = new float[] {1, -1, 1, -1, 1, -1, 1, -1, 1, -1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+        byte[] out = new byte[4];
+        BinaryQuantizer.quantize(matrix, 2, 10, null, out);
+        assertArrayEquals(new byte[] {(byte) 0b10101010, (byte) 0b10000000, (byte) 0b11111111, (byte) 0b11000000}, out);
+
+        PGbit[] bits = BinaryQuantizer.quantize(new float[][] {{1, -1}, {-1, 1}}, null);
+        assertEquals("10", bits[0].getValue());
+        assertEquals("01", bits[1].getValue());
+    }
+
+    @Test
+    void testMeans() {
+        float[] matrix = new float[] {1, 2, 3, 4, 5, 6};
+        float[] means = BinaryQuantizer.means(matrix, 2, 3);
+        assertArrayEquals(new float[] {2.5f, 3.5f, 4.5f}, means);
+        byte[] out = new byte[2];
+        BinaryQuantizer.quantize(matrix, 2, 3, means, out);
+        assertArrayEquals(new byte[] {0, (byte) 0b11100000}, out);
+    }
+
+    @Test
+    void testInvalid() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> BinaryQuantizer.quantize(new float[] {1, 2}, new float[] {1}));
+        assertEquals("expected 2 thresholds, got 1", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> BinaryQuantizer.quantize(new float[4], 2, 3, null, new byte[2]));
+        assertEquals("matrix too small for 2 vectors", exception.getMessage());
+    }
+}
@@ -0,0 +1,33 @@
+package com.pgvector;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BulkLoaderTest {
+    @Test
+    void testNextChunkSize() {
+        // 10000 rows in 500 ms with a 1 s target
+        assertEquals(20000, BulkLoader.nextChunkSize(10000, 500000000L, 1000, 1000, 1000000));
+        // growth is limited to 2x
+        assertEquals(20000, BulkLoader.nextChunkSize(10000, 1000000L, 1000, 1000, 1000000));
+        assertEquals(5000, BulkLoader.nextChunkSize(10000, 2000000000L, 1000, 1000, 1000000));
+        assertEquals(1000, BulkLoader.nextChunkSize(10000, 100000000000L, 1000, 1000, 1000000));
+        assertEquals(15000, BulkLoader.nextChunkSize(10000, 500000000L, 1000, 1000, 15000));
+    }
+
+    @Test
+    void testPendingRanges() {
+        List<BulkLoader.Range> committed = Arrays.asList(new BulkLoader.Range(0, 10), new BulkLoader.Range(20, 30), new BulkLoader.Range(30, 40));
+        List<BulkLoader.Range> pending = BulkLoader.pendingRanges(50, committed);
+        assertEquals("[[10, 20), [40, 50)]", pending.toString());
+    }
+
+    @Test
+    void testPendingRangesComplete() {
+        List<BulkLoader.Range> committed = Arrays.asList(new BulkLoader.Range(0, 10), new BulkLoader.Range(10, 25));
+        assertEquals(0, BulkLoader.pendingRanges(25, committed).size());
+    }
+}
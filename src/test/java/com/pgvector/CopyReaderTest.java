@@ -0,0 +1,149 @@
+package com.pgvector;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import com.pgvector.CopyReader;
+import org.postgresql.copy.CopyOut;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CopyReaderTest {
+    static class ChunkCopyOut implements CopyOut {
+        byte[] bytes;
+        int chunkSize;
+        int position;
+
+        ChunkCopyOut(byte[] bytes, int chunkSize) {
+            this.bytes = bytes;
+            this.chunkSize = chunkSize;
+        }
+
+        public byte[] readFromCopy() {
+            if (position == bytes.length) {
+                return null;
+            }
+            int end = Math.min(position + chunkSize, bytes.length);
+            byte[] chunk = Arrays.copyOfRange(bytes, position, end);
+            position = end;
+            return chunk;
+        }
+
+        public byte[] readFromCopy(boolean block) {
+            return readFromCopy();
+        }
+
+        public int getFieldCount() {
+            return 0;
+        }
+
+        public int getFormat() {
+            return 1;
+        }
+
+        public int getFieldFormat(int field) {
+            return 1;
+        }
+
+        public boolean isActive() {
+            return position < bytes.length;
+        }
+
+        public void cancelCopy() {
+        }
+
+        public long getHandledRowCount() {
+            return 0;
+        }
+    }
+
+    static ColumnType[] COLUMNS = new ColumnType[] {ColumnType.BIGINT, ColumnType.TEXT, ColumnType.VECTOR, ColumnType.HALFVEC, ColumnType.SPARSEVEC, ColumnType.BIT};
+
+    static byte[] copyData() throws SQLException {
+        CopyWriterTest.BufferCopyIn copyIn = new CopyWriterTest.BufferCopyIn();
+        CopyWriter writer = new CopyWriter(copyIn, COLUMNS);
+        writer.startRow();
+        writer.writeLong(1);
+        writer.writeText("hello");
+        writer.writeVector(new float[] {1, 2, 3});
+        writer.writeHalfvec(new float[] {4, 5, 6});
+        writer.writeSparsevec(3, new int[] {0, 2}, new float[] {7, 8}, 2);
+        writer.writeBit(new byte[] {(byte) 0b10100000}, 3);
+        writer.startRow();
+        writer.writeLong(2);
+        writer.writeNull();
+        writer.writeVector(new float[] {9, 8, 7});
+        writer.writeNull();
+        writer.writeSparsevec(3, new int[] {1}, new float[] {6}, 1);
+        writer.writeNull();
+        writer.endCopy();
+        return copyIn.out.toByteArray();
+    }
+
+    @Test
+    void testRead() throws SQLException {
+        byte[] bytes = copyData();
+        for (int chunkSize : new int[] {1, 7, bytes.length}) {
+            CopyReader reader = new CopyReader(new ChunkCopyOut(bytes, chunkSize), COLUMNS);
+
+            assertTrue(reader.next());
+            assertEquals(1, reader.getLong(1));
+            assertEquals("hello", reader.getText(2));
+            float[] vec = reader.getVector(3);
+            assertArrayEquals(new float[] {1, 2, 3}, vec);
+            assertArrayEquals(new float[] {4, 5, 6}, reader.getHalfvec(4));
+            assertEquals(3, reader.getSparsevecDimensions(5));
+            assertEquals(2, reader.getSparsevecNnz(5));
+            assertEquals(0, reader.getSparsevecIndices(5)[0]);
+            assertEquals(2, reader.getSparsevecIndices(5)[1]);
+            assertEquals(7, reader.getSparsevecValues(5)[0]);
+            assertEquals(8, reader.getSparsevecValues(5)[1]);
+            assertEquals(3, reader.getBitLength(6));
+            assertArrayEquals(new byte[] {(byte) 0b10100000}, reader.getBit(6));
+
+            assertTrue(reader.next());
+            assertEquals(2, reader.getLong(1));
+            assertTrue(reader.isNull(2));
+            assertNull(reader.getText(2));
+            assertSame(vec, reader.getVector(3));
+            assertArrayEquals(new float[] {9, 8, 7}, vec);
+            assertNull(reader.getHalfvec(4));
+            assertEquals(1, reader.getSparsevecNnz(5));
+            assertEquals(1, reader.getSparsevecIndices(5)[0]);
+            assertEquals(6, reader.getSparsevecValues(5)[0]);
+            assertNull(reader.getBit(6));
+
+            assertFalse(reader.next());
+            assertFalse(reader.next());
+            assertEquals(2, reader.getRowCount());
+        }
+    }
+
+    @Test
+    void testWrongType() throws SQLException {
+        CopyReader reader = new CopyReader(new ChunkCopyOut(copyData(), 100), COLUMNS);
+        reader.next();
+        SQLException exception = assertThrows(SQLException.class, () -> reader.getHalfvec(3));
+        assertEquals("expected vector for column 3, got halfvec", exception.getMessage());
+    }
+
+    @Test
+    void testWrongColumnCount() throws SQLException {
+        CopyReader reader = new CopyReader(new ChunkCopyOut(copyData(), 100), ColumnType.BIGINT);
+        SQLException exception = assertThrows(SQLException.class, () -> reader.next());
+        assertEquals("expected 1 columns, got 6", exception.getMessage());
+    }
+
+    @Test
+    void testInvalidSignature() {
+        CopyReader reader = new CopyReader(new ChunkCopyOut(new byte[19], 100), ColumnType.BIGINT);
+        SQLException exception = assertThrows(SQLException.class, () -> reader.next());
+        assertEquals("invalid copy signature", exception.getMessage());
+    }
+}
@@ -0,0 +1,167 @@
+package com.pgvector;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.Arrays;
+import com.pgvector.CopyWriter;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.ByteStreamWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CopyWriterTest {
+    static class BufferCopyIn implements CopyIn {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int writes;
+        boolean ended;
+
+        public void writeToCopy(byte[] buf, int off, int siz) {
+            out.write(buf, off, siz);
+            writes++;
+        }
+
+        public void writeToCopy(ByteStreamWriter from) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void flushCopy() {
+        }
+
+        public long endCopy() {
+            ended = true;
+            return 0;
+        }
+
+        public int getFieldCount() {
+            return 0;
+        }
+
+        public int getFormat() {
+            return 1;
+        }
+
+        public int getFieldFormat(int field) {
+            return 1;
+        }
+
+        public boolean isActive() {
+            return !ended;
+        }
+
+        public void cancelCopy() {
+            ended = true;
+        }
+
+        public long getHandledRowCount() {
+            return 0;
+        }
+    }
+
+    @Test
+    void testWrite() throws SQLException {
+        BufferCopyIn copyIn = new BufferCopyIn();
+        CopyWriter writer = new CopyWriter(copyIn, ColumnType.BIGINT, ColumnType.VECTOR, ColumnType.HALFVEC, ColumnType.SPARSEVEC, ColumnType.BIT);
+        writer.startRow();
+        writer.writeLong(1);
+        writer.writeVector(new float[] {1, 2, 3});
+        writer.writeHalfvec(new float[] {1, 2, 3});
+        writer.writeSparsevec(new PGsparsevec(new float[] {1, 0, 2}));
+        writer.writeBit(new byte[] {(byte) 0b01010000, (byte) 0b10000000}, 9);
+        writer.endCopy();
+        assertEquals(1, writer.getRowCount());
+
+        ByteBuffer buf = ByteBuffer.wrap(copyIn.out.toByteArray());
+        byte[] signature = new byte[11];
+        buf.get(signature);
+        assertArrayEquals(CopyWriter.SIGNATURE, signature);
+        assertEquals(0, buf.getInt());
+        assertEquals(0, buf.getInt());
+
+        assertEquals(5, buf.getShort());
+
+        assertEquals(8, buf.getInt());
+        assertEquals(1, buf.getLong());
+
+        assertEquals(16, buf.getInt());
+        assertEquals(3, buf.getShort());
+        assertEquals(0, buf.getShort());
+        assertEquals(1, buf.getFloat());
+        assertEquals(2, buf.getFloat());
+        assertEquals(3, buf.getFloat());
+
+        assertEquals(10, buf.getInt());
+        assertEquals(3, buf.getShort());
+        assertEquals(0, buf.getShort());
+        assertEquals((short) 0x3c00, buf.getShort());
+        assertEquals((short) 0x4000, buf.getShort());
+        assertEquals((short) 0x4200, buf.getShort());
+
+        assertEquals(28, buf.getInt());
+        assertEquals(3, buf.getInt());
+        assertEquals(2, buf.getInt());
+        assertEquals(0, buf.getInt());
+        assertEquals(0, buf.getInt());
+        assertEquals(2, buf.getInt());
+        assertEquals(1, buf.getFloat());
+        assertEquals(2, buf.getFloat());
+
+        assertEquals(6, buf.getInt());
+        assertEquals(9, buf.getInt());
+        assertEquals((byte) 0b01010000, buf.get());
+        assertEquals((byte) 0b10000000, buf.get());
+
+        assertEquals(-1, buf.getShort());
+        assertEquals(0, buf.remaining());
+    }
+
+    @Test
+    void testNull() throws SQLException {
+        BufferCopyIn copyIn = new BufferCopyIn();
+        CopyWriter writer = new CopyWriter(copyIn, ColumnType.VECTOR);
+        writer.startRow();
+        writer.writeVector((PGvector) null);
+        writer.endCopy();
+
+        ByteBuffer buf = ByteBuffer.wrap(copyIn.out.toByteArray(), 19, 8);
+        assertEquals(1, buf.getShort());
+        assertEquals(-1, buf.getInt());
+        assertEquals(-1, buf.getShort());
+    }
+
+    @Test
+    void testFlush() throws SQLException {
+        BufferCopyIn copyIn = new BufferCopyIn();
+        CopyWriter writer = new CopyWriter(copyIn, 64, ColumnType.VECTOR);
+        float[] v = new float[100];
+        Arrays.fill(v, 1);
+        for (int i = 0; i < 10; i++) {
+            writer.startRow();
+            writer.writeVector(v);
+        }
+        writer.endCopy();
+        assertEquals(10, writer.getRowCount());
+        assertEquals(19 + 10 * (2 + 4 + 404) + 2, copyIn.out.size());
+        assertEquals(copyIn.out.size(), writer.getByteCount());
+    }
+
+    @Test
+    void testWrongType() throws SQLException {
+        CopyWriter writer = new CopyWriter(new BufferCopyIn(), ColumnType.VECTOR);
+        writer.startRow();
+        SQLException exception = assertThrows(SQLException.class, () -> writer.writeHalfvec(new float[] {1, 2, 3}));
+        assertEquals("expected vector for column 1, got halfvec", exception.getMessage());
+    }
+
+    @Test
+    void testMissingColumn() throws SQLException {
+        CopyWriter writer = new CopyWriter(new BufferCopyIn(), ColumnType.BIGINT, ColumnType.VECTOR);
+        writer.startRow();
+        writer.writeLong(1);
+        SQLException exception = assertThrows(SQLException.class, () -> writer.startRow());
+        assertEquals("expected 2 columns, got 1", exception.getMessage());
+    }
+}
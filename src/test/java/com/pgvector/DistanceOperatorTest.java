@@ -0,0 +1,160 @@
+package com.pgvector;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistanceOperatorTest {
+    @Test
+    void testVector() {
+        PGvector a = new PGvector(new float[] {1, 1, 1});
+        PGvector b = new PGvector(new float[] {1, 2, 3});
+        assertEquals(Math.sqrt(5), a.l2Distance(b), 1e-6);
+        assertEquals(5, a.l2SquaredDistance(b));
+        assertEquals(6, a.innerProduct(b));
+        assertEquals(-6, DistanceOperator.INNER_PRODUCT.distance(a, b));
+        assertEquals(1 - 6 / Math.sqrt(3 * 14), a.cosineDistance(b), 1e-6);
+        assertEquals(3, a.l1Distance(b));
+    }
+
+    @Test
+    void testCosineRange() {
+        PGvector a = new PGvector(new float[] {1, 2, 3});
+        PGvector b = new PGvector(new float[] {-1, -2, -3});
+        assertEquals(0, a.cosineDistance(a));
+        assertEquals(2, a.cosineDistance(b));
+        assertTrue(Double.isNaN(a.cosineDistance(new PGvector(new float[] {0, 0, 0}))));
+    }
+
+    @Test
+    void testHalfvec() {
+        PGhalfvec a = new PGhalfvec(new float[] {1, 1, 1});
+        PGhalfvec b = new PGhalfvec(new float[] {1, 2, 3.0001f});
+        // elements are rounded to half precision
+        assertEquals(5, a.l2SquaredDistance(b));
+        assertEquals(6, a.innerProduct(b));
+        assertEquals(3, a.l1Distance(b));
+    }
+
+    @Test
+    void testSparsevec() {
+        PGsparsevec a = new PGsparsevec(new float[] {1, 0, 2, 0, 0, 3});
+        PGsparsevec b = new PGsparsevec(new float[] {0, 4, 1, 0, 5, 0});
+        float[] av = a.toArray();
+        float[] bv = b.toArray();
+        for (DistanceOperator op : new DistanceOperator[] {DistanceOperator.L2, DistanceOperator.INNER_PRODUCT, DistanceOperator.COSINE, DistanceOperator.L1}) {
+            assertEquals(op.distance(av, bv), op.distance(a, b), 1e-6, op.name());
+        }
+        assertEquals(2, a.innerProduct(b));
+    }
+
+    @Test
+    void testSparsevecRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            float[] av = new float[20];
+            float[] bv = new float[20];
+            for (int j = 0; j < av.length; j++) {
+                av[j] = random.nextInt(3) == 0 ? random.nextFloat() : 0;
+                bv[j] = random.nextInt(3) == 0 ? random.nextFloat() : 0;
+            }
+            PGsparsevec a = new PGsparsevec(av);
+            PGsparsevec b = new PGsparsevec(bv);
+            assertEquals(DistanceOperator.L2.distance(av, bv), a.l2Distance(b), 1e-5);
+            assertEquals(DistanceOperator.L1.distance(av, bv), a.l1Distance(b), 1e-5);
+            assertEquals(DistanceOperator.INNER_PRODUCT.distance(av, bv), DistanceOperator.INNER_PRODUCT.distance(a, b), 1e-5);
+        }
+    }
+
+    @Test
+    void testBit() {
+        PGbit a = new PGbit(new boolean[] {true, false, true, true, false, false, false, false, true});
+        PGbit b = new PGbit(new boolean[] {false, true, true, true, false, false, false, false, false});
+        assertEquals(3, a.hammingDistance(b));
+        assertEquals(1 - 2 / 5.0, a.jaccardDistance(b));
+        assertEquals(1, a.jaccardDistance(new PGbit(new boolean[9])));
+    }
+
+    @Test
+    void testBatch() {
+        float[] query = new float[] {1, 1, 1};
+        float[][] vectors = new float[][] {{1, 1, 1}, {1, 2, 3}, null};
+        double[] out = new double[3];
+        DistanceOperator.L1.distances(query, vectors, out);
+        assertEquals(0, out[0]);
+        assertEquals(3, out[1]);
+        assertTrue(Double.isNaN(out[2]));
+
+        float[] matrix = new float[] {1, 1, 1, 1, 2, 3};
+        DistanceOperator.L2.distances(query, matrix, 2, out);
+        assertEquals(0, out[0]);
+        assertEquals(Math.sqrt(5), out[1], 1e-6);
+
+        PGbit[] bits = new PGbit[] {new PGbit(new boolean[] {true, true}), new PGbit(new boolean[] {false, false})};
+        DistanceOperator.HAMMING.distances(new PGbit(new boolean[] {true, false}), bits, out);
+        assertEquals(1, out[0]);
+        assertEquals(1, out[1]);
+    }
+
+    @Test
+    void testDifferentDimensions() {
+        PGvector a = new PGvector(new float[] {1, 2});
+        PGvector b = new PGvector(new float[] {1, 2, 3});
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> a.l2Distance(b));
+        assertEquals("different vector dimensions 2 and 3", exception.getMessage());
+    }
+
+    @Test
+    void testUnsupported() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> DistanceOperator.HAMMING.distance(new float[] {1}, new float[] {1}));
+        assertEquals("operator <~> not supported for vector", exception.getMessage());
+    }
+
+    @Test
+    void testSparsevecSkewed() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            float[] av = new float[1000];
+            float[] bv = new float[1000];
+            for (int j = 0; j < av.length; j++) {
+                av[j] = random.nextInt(200) == 0 ? random.nextFloat() : 0;
+                bv[j] = random.nextInt(2) == 0 ? random.nextFloat() : 0;
+            }
+            PGsparsevec a = new PGsparsevec(av);
+            PGsparsevec b = new PGsparsevec(bv);
+            // same order of operations as without galloping
+            assertEquals((float) DistanceOperator.INNER_PRODUCT.distance(av, bv), (float) DistanceOperator.INNER_PRODUCT.distance(a, b));
+            assertEquals(a.innerProduct(b), b.innerProduct(a));
+        }
+    }
+
+    @Test
+    void testSparsevecDense() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            float[] av = new float[50];
+            float[] bv = new float[50];
+            for (int j = 0; j < av.length; j++) {
+                av[j] = random.nextInt(5) == 0 ? random.nextFloat() : 0;
+                bv[j] = random.nextFloat();
+            }
+            PGsparsevec a = new PGsparsevec(av);
+            for (DistanceOperator op : new DistanceOperator[] {DistanceOperator.L2, DistanceOperator.INNER_PRODUCT, DistanceOperator.COSINE, DistanceOperator.L1}) {
+                assertEquals(op.distance(av, bv), op.distance(a, bv), op.name());
+            }
+        }
+
+        PGsparsevec a = new PGsparsevec(new float[] {1, 0, 2});
+        assertEquals(5, a.innerProduct(new float[] {1, 1, 2}));
+        assertEquals(1, a.l2Distance(new float[] {1, 0, 1}));
+        assertEquals(0, a.cosineDistance(new float[] {2, 0, 4}), 1e-7);
+
+        double[] out = new double[2];
+        DistanceOperator.INNER_PRODUCT.distances(new float[] {1, 1, 1}, new PGsparsevec[] {a, null}, out);
+        assertEquals(-3, out[0]);
+        assertTrue(Double.isNaN(out[1]));
+    }
+}
@@ -0,0 +1,75 @@
+package com.pgvector;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FloatParserTest {
+    static void assertParse(String s) {
+        assertEquals(Float.floatToRawIntBits(Float.parseFloat(s)), Float.floatToRawIntBits(FloatParser.parseFloat(s, 0, s.length())), s);
+    }
+
+    @Test
+    void testValues() {
+        String[] values = new String[] {
+            "0", "-0", "0.0", "-0.0", "1", "-1", "1.5", "+2", "0.1", "1e-05", "1.5e+38", "3.4028235e38",
+            "3.4028236e38", "1e39", "1.4e-45", "7e-46", "1e-50", ".5", "5.", "00012", "0.000123",
+            "123456789012345678", "1234567890123456789012", "16777217", "16777219", " 1 ", "1e0022",
+            "NaN", "-Infinity", "1f", "0x1p3", "1.00000005960464477539062", "1.0000000596046448"
+        };
+        for (String s : values) {
+            assertParse(s);
+        }
+    }
+
+    @Test
+    void testRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(f)) {
+                continue;
+            }
+            assertParse(Float.toString(f));
+            assertParse(Double.toString(f));
+            assertParse(Float.toString(random.nextFloat()));
+        }
+    }
+
+    @Test
+    void testDecimals() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            long mantissa = random.nextLong() >>> random.nextInt(64);
+            int exponent = random.nextInt(80) - 50;
+            assertParse(mantissa + "e" + exponent);
+        }
+    }
+
+    @Test
+    void testHalfway() {
+        // exactly halfway between floats must round to even
+        for (int i = 0; i < 10000; i++) {
+            float f = Float.intBitsToFloat(0x3f800000 + i);
+            String s = new BigDecimal((double) f).add(new BigDecimal((double) Math.ulp(f)).divide(BigDecimal.valueOf(2))).toString();
+            assertParse(s);
+        }
+    }
+
+    @Test
+    void testParseVector() {
+        assertArrayEquals(new float[] {1, 2, 3}, FloatParser.parseVector("[1,2,3]"));
+        assertArrayEquals(new float[] {1.5f, -2, 3e-5f}, FloatParser.parseVector("[1.5, -2, 3e-05]"));
+        assertArrayEquals(new float[] {}, FloatParser.parseVector("[]"));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(NumberFormatException.class, () -> FloatParser.parseVector("[1,,2]"));
+        assertThrows(NumberFormatException.class, () -> FloatParser.parseVector("[1,a]"));
+    }
+}
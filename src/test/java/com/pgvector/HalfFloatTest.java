@@ -0,0 +1,52 @@
+package com.pgvector;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HalfFloatTest {
+    @Test
+    void testRoundTrip() {
+        for (int i = 0; i < 65536; i++) {
+            short h = (short) i;
+            float f = HalfFloat.toFloatSoftware(h);
+            if (Float.isNaN(f)) {
+                assertTrue(Float.isNaN(HalfFloat.toFloatSoftware(HalfFloat.fromFloatSoftware(f))));
+                assertTrue(Float.isNaN(HalfFloat.toFloat(h)));
+            } else {
+                assertEquals(h, HalfFloat.fromFloatSoftware(f));
+                assertEquals(h, HalfFloat.fromFloat(f));
+                assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(HalfFloat.toFloat(h)));
+            }
+        }
+    }
+
+    @Test
+    void testRounding() {
+        // consecutive positive finite values
+        for (int i = 0; i < 0x7bff; i++) {
+            float a = HalfFloat.toFloatSoftware((short) i);
+            float b = HalfFloat.toFloatSoftware((short) (i + 1));
+            float mid = (a + b) / 2;
+            short even = (short) ((i & 1) == 0 ? i : i + 1);
+            assertEquals(even, HalfFloat.fromFloatSoftware(mid));
+            assertEquals((short) i, HalfFloat.fromFloatSoftware(Math.nextDown(mid)));
+            assertEquals((short) (i + 1), HalfFloat.fromFloatSoftware(Math.nextUp(mid)));
+            assertEquals((short) (i | 0x8000), HalfFloat.fromFloatSoftware(-Math.nextDown(mid)));
+        }
+    }
+
+    @Test
+    void testValues() {
+        assertEquals((short) 0x3c00, HalfFloat.fromFloat(1));
+        assertEquals((short) 0xc000, HalfFloat.fromFloat(-2));
+        assertEquals((short) 0x7bff, HalfFloat.fromFloat(65504));
+        assertEquals((short) 0x7c00, HalfFloat.fromFloat(65520));
+        assertEquals((short) 0x7c00, HalfFloat.fromFloat(Float.POSITIVE_INFINITY));
+        assertEquals((short) 0x0001, HalfFloat.fromFloat(0x1.0p-24f));
+        assertEquals((short) 0x0000, HalfFloat.fromFloat(0x1.0p-25f));
+        assertEquals((short) 0x0001, HalfFloat.fromFloat(Math.nextUp(0x1.0p-25f)));
+        assertEquals((short) 0x8000, HalfFloat.fromFloat(-0.0f));
+    }
+}
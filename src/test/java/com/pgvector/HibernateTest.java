@@ -10,13 +10,19 @@ import jakarta.persistence.Persistence;
 import jakarta.persistence.Table;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.hibernate.annotations.Array;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.jpa.boot.spi.TypeContributorList;
 import org.hibernate.type.SqlTypes;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @Entity
 @Table(name = "hibernate_items")
@@ -43,6 +49,62 @@ class Item {
     }
 }
 
+@Entity
+@Table(name = "hibernate_vector_items")
+class VectorItem {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Column(columnDefinition = "vector(3)")
+    private PGvector embedding;
+
+    @Column(columnDefinition = "halfvec(3)")
+    private PGhalfvec halfEmbedding;
+
+    @Column(columnDefinition = "sparsevec(3)")
+    private PGsparsevec sparseEmbedding;
+
+    @Column(columnDefinition = "bit(3)")
+    private PGbit binaryEmbedding;
+
+    public Long getId() {
+        return id;
+    }
+
+    public PGvector getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(PGvector embedding) {
+        this.embedding = embedding;
+    }
+
+    public PGhalfvec getHalfEmbedding() {
+        return halfEmbedding;
+    }
+
+    public void setHalfEmbedding(PGhalfvec halfEmbedding) {
+        this.halfEmbedding = halfEmbedding;
+    }
+
+    public PGsparsevec getSparseEmbedding() {
+        return sparseEmbedding;
+    }
+
+    public void setSparseEmbedding(PGsparsevec sparseEmbedding) {
+        this.sparseEmbedding = sparseEmbedding;
+    }
+
+    public PGbit getBinaryEmbedding() {
+        return binaryEmbedding;
+    }
+
+    public void setBinaryEmbedding(PGbit binaryEmbedding) {
+        this.binaryEmbedding = binaryEmbedding;
+    }
+}
+
 public class HibernateTest {
     @Test
     void example() throws SQLException {
@@ -77,4 +139,56 @@ public class HibernateTest {
 
         entityManager.getTransaction().commit();
     }
+
+    @Test
+    void testVectorTypes() throws SQLException {
+        // disable logging
+        System.setProperty("org.jboss.logging.provider", "slf4j");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.jdbc.batch_size", "100");
+        properties.put("hibernate.type_contributors", (TypeContributorList) () -> Collections.singletonList(new HibernateTypeContributor()));
+        // use binary transfer
+        properties.put("jakarta.persistence.jdbc.url", "jdbc:postgresql://localhost:5432/pgvector_java_test?datatype.vector=com.pgvector.PGvector&datatype.halfvec=com.pgvector.PGhalfvec&datatype.sparsevec=com.pgvector.PGsparsevec&datatype.bit=com.pgvector.PGbit");
+        EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("default", properties);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        entityManager.getTransaction().begin();
+        for (int i = 1; i <= 3; i++) {
+            VectorItem item = new VectorItem();
+            item.setEmbedding(new PGvector(new float[] {i, i, i}));
+            item.setHalfEmbedding(new PGhalfvec(new float[] {i, i, i}));
+            item.setSparseEmbedding(new PGsparsevec(new float[] {i, 0, i}));
+            item.setBinaryEmbedding(new PGbit(new boolean[] {true, i > 1, i > 2}));
+            entityManager.persist(item);
+        }
+        VectorItem nullItem = new VectorItem();
+        entityManager.persist(nullItem);
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        entityManager.getTransaction().begin();
+        List<VectorItem> items = entityManager
+            .createQuery("FROM VectorItem ORDER BY id", VectorItem.class)
+            .getResultList();
+        assertEquals(4, items.size());
+        VectorItem item = items.get(1);
+        assertEquals(new PGvector(new float[] {2, 2, 2}), item.getEmbedding());
+        assertEquals(new PGhalfvec(new float[] {2, 2, 2}), item.getHalfEmbedding());
+        assertEquals(new PGsparsevec(new float[] {2, 0, 2}), item.getSparseEmbedding());
+        assertEquals(new PGbit(new boolean[] {true, true, false}), item.getBinaryEmbedding());
+        assertNull(items.get(3).getEmbedding());
+        assertNull(items.get(3).getBinaryEmbedding());
+
+        // changes to a vector are detected
+        item.getEmbedding().set(new float[] {4, 4, 4}, 0, 3);
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        item = entityManager.find(VectorItem.class, item.getId());
+        assertArrayEquals(new float[] {4, 4, 4}, item.getEmbedding().toArray());
+
+        entityManager.close();
+        entityManagerFactory.close();
+    }
 }
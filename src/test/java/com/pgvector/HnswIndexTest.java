@@ -0,0 +1,179 @@
+package com.pgvector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HnswIndexTest {
+    @Test
+    void testSearch() {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 3, DistanceOperator.L2);
+        index.add(1, new float[] {1, 1, 1});
+        index.add(2, new PGvector(new float[] {2, 2, 2}));
+        index.add(3, new float[] {1, 1, 2});
+        HnswIndex.Result result = index.search(new float[] {1, 1, 1}, 5);
+        assertArrayEquals(new long[] {1, 3, 2}, result.getIds());
+        assertArrayEquals(new double[] {0, 1, Math.sqrt(3)}, result.getDistances());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testEmpty() {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 3, DistanceOperator.L2);
+        assertEquals(0, index.search(new float[] {1, 1, 1}, 5).size());
+    }
+
+    @Test
+    void testRecall() {
+        Random random = new Random(42);
+        int n = 2000;
+        int dimensions = 16;
+        float[][] vectors = new float[n][dimensions];
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, dimensions, DistanceOperator.COSINE);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < dimensions; j++) {
+                vectors[i][j] = (float) random.nextGaussian();
+            }
+            index.add(i, vectors[i]);
+        }
+
+        int k = 10;
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = vectors[random.nextInt(n)].clone();
+            query[0] += 0.1f;
+            double[] distances = new double[n];
+            for (int i = 0; i < n; i++) {
+                distances[i] = DistanceOperator.COSINE.distance(query, vectors[i]);
+            }
+            int[] expected = QuantizedSearch.nearest(distances, n, k);
+            HnswIndex.Result result = index.search(query, k);
+            assertEquals(k, result.size());
+            assertEquals(distances[(int) result.getIds()[0]], result.getDistances()[0]);
+            for (int e : expected) {
+                for (long id : result.getIds()) {
+                    if (id == e) {
+                        found++;
+                    }
+                }
+            }
+        }
+        assertTrue(found >= 0.9 * 50 * k, "recall " + found);
+    }
+
+    @Test
+    void testRemove() {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 2, DistanceOperator.L2);
+        for (int i = 0; i < 100; i++) {
+            index.add(i, new float[] {i, 0});
+        }
+        assertTrue(index.remove(0));
+        assertFalse(index.remove(0));
+        assertFalse(index.contains(0));
+        assertEquals(99, index.size());
+        assertEquals(1, index.getDeletedCount());
+        assertArrayEquals(new long[] {1, 2}, index.search(new float[] {0, 0}, 2).getIds());
+
+        index.rebuild();
+        assertEquals(99, index.size());
+        assertEquals(0, index.getDeletedCount());
+        assertArrayEquals(new long[] {1, 2}, index.search(new float[] {0, 0}, 2).getIds());
+    }
+
+    @Test
+    void testReplace() {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 2, DistanceOperator.L2);
+        index.add(1, new float[] {0, 0});
+        index.add(2, new float[] {5, 5});
+        index.add(1, new float[] {9, 9});
+        assertEquals(2, index.size());
+        assertArrayEquals(new long[] {2, 1}, index.search(new float[] {0, 0}, 5).getIds());
+    }
+
+    @Test
+    void testCosineZero() {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 2, DistanceOperator.COSINE);
+        assertFalse(index.add(1, new float[] {0, 0}));
+        assertTrue(index.add(2, new float[] {1, 0}));
+        assertArrayEquals(new long[] {2}, index.search(new float[] {1, 1}, 5).getIds());
+    }
+
+    @Test
+    void testHalfvec() {
+        HnswIndex index = new HnswIndex(ColumnType.HALFVEC, 3, DistanceOperator.INNER_PRODUCT);
+        index.add(1, new PGhalfvec(new float[] {1, 1, 1}));
+        index.add(2, new float[] {0.1f, 0.1f, 0.1f});
+        HnswIndex.Result result = index.search(new float[] {1, 1, 1}, 2);
+        assertArrayEquals(new long[] {1, 2}, result.getIds());
+        assertEquals(DistanceOperator.INNER_PRODUCT.distance(new PGhalfvec(new float[] {1, 1, 1}), new PGhalfvec(new float[] {0.1f, 0.1f, 0.1f})), result.getDistances()[1]);
+    }
+
+    @Test
+    void testBit() {
+        HnswIndex index = new HnswIndex(ColumnType.BIT, 4, DistanceOperator.HAMMING);
+        index.add(1, new PGbit(new boolean[] {true, false, true, false}));
+        index.add(2, new PGbit(new boolean[] {false, true, false, true}));
+        index.add(3, new PGbit(new boolean[] {true, true, true, false}));
+        HnswIndex.Result result = index.search(new PGbit(new boolean[] {true, false, true, false}), 3);
+        assertArrayEquals(new long[] {1, 3, 2}, result.getIds());
+        assertArrayEquals(new double[] {0, 1, 4}, result.getDistances());
+    }
+
+    @Test
+    void testConcurrent() throws Exception {
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 8, DistanceOperator.L2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int i = 0; i < 500; i++) {
+                        float[] v = new float[8];
+                        for (int j = 0; j < v.length; j++) {
+                            v[j] = random.nextFloat();
+                        }
+                        index.add(thread * 500 + i, v);
+                        index.search(v, 5);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2000, index.size());
+    }
+
+    @Test
+    void testInvalid() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new HnswIndex(ColumnType.SPARSEVEC, 3, DistanceOperator.L2));
+        assertEquals("unsupported type sparsevec", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> new HnswIndex(ColumnType.BIT, 3, DistanceOperator.L2));
+        assertEquals("operator <-> not supported for bit", exception.getMessage());
+
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 3, DistanceOperator.L2);
+        exception = assertThrows(IllegalArgumentException.class, () -> index.add(1, new float[] {1, 2}));
+        assertEquals("different vector dimensions 3 and 2", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> index.add(1, new PGhalfvec(new float[] {1, 2, 3})));
+        assertEquals("expected vector, got halfvec", exception.getMessage());
+
+        index.add(1, new float[] {1, 2, 3});
+        assertThrows(IllegalStateException.class, () -> index.setM(8));
+    }
+}
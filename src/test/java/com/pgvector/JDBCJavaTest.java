@@ -7,14 +7,22 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import com.pgvector.PGvector;
 import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.ds.PGSimpleDataSource;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class JDBCJavaTest {
     @Test
@@ -218,4 +226,423 @@ public class JDBCJavaTest {
         assertArrayEquals(new float[] {2, 2, 2}, embeddings.get(2).toArray());
         assertNull(embeddings.get(3));
     }
+
+    @Test
+    void testCopyWriter() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+
+        PGvector.registerTypes(conn);
+        PGbit.registerType(conn);
+
+        Statement createStmt = conn.createStatement();
+        createStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3), sparse_embedding sparsevec(3), binary_embedding bit(3))");
+
+        CopyManager copyManager = new CopyManager((BaseConnection) conn);
+        CopyIn copyIn = copyManager.copyIn("COPY jdbc_items (id, embedding, half_embedding, sparse_embedding, binary_embedding) FROM STDIN WITH (FORMAT BINARY)");
+        CopyWriter writer = new CopyWriter(copyIn, ColumnType.BIGINT, ColumnType.VECTOR, ColumnType.HALFVEC, ColumnType.SPARSEVEC, ColumnType.BIT);
+        writer.startRow();
+        writer.writeLong(1);
+        writer.writeVector(new float[] {1, 2, 3});
+        writer.writeHalfvec(new float[] {4, 5, 6});
+        writer.writeSparsevec(3, new int[] {0, 2}, new float[] {7, 8}, 2);
+        writer.writeBit(new byte[] {(byte) 0b10100000}, 3);
+        writer.startRow();
+        writer.writeLong(2);
+        writer.writeNull();
+        writer.writeNull();
+        writer.writeNull();
+        writer.writeNull();
+        assertEquals(2, writer.endCopy());
+
+        ResultSet rs = conn.createStatement().executeQuery("SELECT * FROM jdbc_items ORDER BY id");
+        rs.next();
+        assertArrayEquals(new float[] {1, 2, 3}, ((PGvector) rs.getObject("embedding")).toArray());
+        assertArrayEquals(new float[] {4, 5, 6}, ((PGhalfvec) rs.getObject("half_embedding")).toArray());
+        assertArrayEquals(new float[] {7, 0, 8}, ((PGsparsevec) rs.getObject("sparse_embedding")).toArray());
+        assertEquals("101", ((PGbit) rs.getObject("binary_embedding")).getValue());
+        rs.next();
+        assertNull(rs.getObject("embedding"));
+
+        conn.close();
+    }
+
+    @Test
+    void testBulkLoader() throws InterruptedException, SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3))");
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        BulkLoader loader = new BulkLoader(dataSource, "COPY jdbc_items (id, embedding) FROM STDIN WITH (FORMAT BINARY)", ColumnType.BIGINT, ColumnType.VECTOR);
+        loader.setThreads(2);
+        loader.setInitialChunkSize(100);
+        loader.setChunkSizeLimits(10, 1000);
+        BulkLoader.Result result = loader.load(1000, (writer, i) -> {
+            writer.writeLong(i);
+            writer.writeVector(new float[] {i, i, i});
+        });
+        assertEquals(true, result.isComplete());
+        assertEquals(1000, result.getRowCount());
+        assertEquals(0, result.getPendingRanges().size());
+
+        ResultSet rs = setupStmt.executeQuery("SELECT COUNT(DISTINCT id) FROM jdbc_items");
+        rs.next();
+        assertEquals(1000, rs.getLong(1));
+
+        conn.close();
+    }
+
+    @Test
+    void testCopyReader() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3), sparse_embedding sparsevec(3), binary_embedding bit(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,2,3]', '[4,5,6]', '{1:7,3:8}/3', '101'), (2, NULL, NULL, NULL, NULL)");
+
+        CopyManager copyManager = new CopyManager((BaseConnection) conn);
+        CopyOut copyOut = copyManager.copyOut("COPY (SELECT * FROM jdbc_items ORDER BY id) TO STDOUT WITH (FORMAT BINARY)");
+        CopyReader reader = new CopyReader(copyOut, ColumnType.BIGINT, ColumnType.VECTOR, ColumnType.HALFVEC, ColumnType.SPARSEVEC, ColumnType.BIT);
+        assertEquals(true, reader.next());
+        assertEquals(1, reader.getLong(1));
+        assertArrayEquals(new float[] {1, 2, 3}, reader.getVector(2));
+        assertArrayEquals(new float[] {4, 5, 6}, reader.getHalfvec(3));
+        assertEquals(2, reader.getSparsevecNnz(4));
+        assertArrayEquals(new int[] {0, 2}, Arrays.copyOf(reader.getSparsevecIndices(4), 2));
+        assertArrayEquals(new float[] {7, 8}, Arrays.copyOf(reader.getSparsevecValues(4), 2));
+        assertEquals(3, reader.getBitLength(5));
+        assertArrayEquals(new byte[] {(byte) 0b10100000}, reader.getBit(5));
+        assertEquals(true, reader.next());
+        assertNull(reader.getVector(2));
+        assertEquals(false, reader.next());
+
+        // connection is usable after copy
+        ResultSet rs = setupStmt.executeQuery("SELECT COUNT(*) FROM jdbc_items");
+        rs.next();
+        assertEquals(2, rs.getLong(1));
+
+        conn.close();
+    }
+
+    @Test
+    void testDistances() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+
+        PGvector.registerTypes(conn);
+        PGbit.registerType(conn);
+
+        PGvector a = new PGvector(new float[] {1.1f, 2.2f, 3.3f});
+        PGvector b = new PGvector(new float[] {-4.4f, 5.5f, 0.6f});
+        PGhalfvec ha = new PGhalfvec(a.toArray());
+        PGhalfvec hb = new PGhalfvec(b.toArray());
+        PGsparsevec sa = new PGsparsevec(a.toArray());
+        PGsparsevec sb = new PGsparsevec(new float[] {0, 5.5f, 0.6f});
+        PGbit ba = new PGbit(new boolean[] {true, false, true, true, false, false, false, false, true});
+        PGbit bb = new PGbit(new boolean[] {false, true, true, true, false, false, false, false, false});
+
+        for (DistanceOperator op : new DistanceOperator[] {DistanceOperator.L2, DistanceOperator.INNER_PRODUCT, DistanceOperator.COSINE, DistanceOperator.L1}) {
+            PreparedStatement stmt = conn.prepareStatement("SELECT ?::vector " + op.getOperator() + " ?::vector, ?::halfvec " + op.getOperator() + " ?::halfvec, ?::sparsevec " + op.getOperator() + " ?::sparsevec");
+            stmt.setObject(1, a);
+            stmt.setObject(2, b);
+            stmt.setObject(3, ha);
+            stmt.setObject(4, hb);
+            stmt.setObject(5, sa);
+            stmt.setObject(6, sb);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            assertEquals(rs.getDouble(1), op.distance(a, b), 1e-6);
+            assertEquals(rs.getDouble(2), op.distance(ha, hb), 1e-6);
+            assertEquals(rs.getDouble(3), op.distance(sa, sb), 1e-6);
+        }
+
+        for (DistanceOperator op : new DistanceOperator[] {DistanceOperator.HAMMING, DistanceOperator.JACCARD}) {
+            PreparedStatement stmt = conn.prepareStatement("SELECT ?::bit(9) " + op.getOperator() + " ?::bit(9)");
+            stmt.setObject(1, ba);
+            stmt.setObject(2, bb);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            assertEquals(rs.getDouble(1), op.distance(ba, bb));
+        }
+
+        conn.close();
+    }
+
+    @Test
+    void testLazyReadText() throws SQLException {
+        lazyExample(false);
+    }
+
+    @Test
+    void testLazyReadBinary() throws SQLException {
+        lazyExample(true);
+    }
+
+    void lazyExample(boolean readBinary) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+        if (readBinary) {
+            conn.unwrap(PGConnection.class).setPrepareThreshold(-1);
+        }
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3), sparse_embedding sparsevec(3), binary_embedding bit(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,2,3]', '[4,5,6]', '{1:7,3:8}/3', '101'), (2, NULL, NULL, NULL, NULL)");
+
+        PGvector.registerLazyTypes(conn);
+        PGbit.registerLazyType(conn);
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT * FROM jdbc_items ORDER BY id");
+        ResultSet rs = stmt.executeQuery();
+        rs.next();
+        PGvector embedding = (PGvector) rs.getObject("embedding");
+        assertEquals(PGvector.Lazy.class, embedding.getClass());
+        assertArrayEquals(new float[] {1, 2, 3}, embedding.toArray());
+        assertArrayEquals(new float[] {4, 5, 6}, ((PGhalfvec) rs.getObject("half_embedding")).toArray());
+        assertArrayEquals(new float[] {7, 0, 8}, ((PGsparsevec) rs.getObject("sparse_embedding")).toArray());
+        assertEquals("101", ((PGbit) rs.getObject("binary_embedding")).getValue());
+        rs.next();
+        assertNull(rs.getObject("embedding"));
+
+        conn.close();
+    }
+
+    @Test
+    void testBatchReadText() throws SQLException {
+        batchExample(false);
+    }
+
+    @Test
+    void testBatchReadBinary() throws SQLException {
+        batchExample(true);
+    }
+
+    void batchExample(boolean readBinary) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+        if (readBinary) {
+            conn.unwrap(PGConnection.class).setPrepareThreshold(-1);
+        }
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,1,1]', '[1,1,1]'), (2, '[2,2,2]', '[2,2,2]'), (3, '[1,1,2]', '[1,1,2]'), (4, NULL, NULL)");
+
+        PGvector.registerTypes(conn);
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT id, embedding, embedding <-> ? AS distance, half_embedding FROM jdbc_items ORDER BY distance LIMIT 3");
+        stmt.setObject(1, new PGvector(new float[] {1, 1, 1}));
+        ResultSet rs = stmt.executeQuery();
+        VectorBatch batch = new VectorBatch(ColumnType.VECTOR, 3, 2);
+        assertEquals(2, batch.read(rs, 2, 1, 3));
+        assertArrayEquals(new float[] {1, 1, 1, 1, 1, 2}, batch.getMatrix());
+        assertArrayEquals(new long[] {1, 3}, batch.getIds());
+        assertArrayEquals(new double[] {0, 1}, batch.getDistances());
+
+        batch.clear();
+        assertEquals(1, batch.read(rs, 2, 1, 3));
+        assertArrayEquals(new long[] {2}, Arrays.copyOf(batch.getIds(), batch.size()));
+        assertEquals(0, batch.read(rs, 2));
+
+        rs = conn.prepareStatement("SELECT half_embedding FROM jdbc_items ORDER BY id").executeQuery();
+        float[] matrix = new float[12];
+        batch = new VectorBatch(ColumnType.HALFVEC, 3, matrix);
+        assertEquals(4, batch.read(rs, 1));
+        assertArrayEquals(new float[] {1, 1, 1, 2, 2, 2, 1, 1, 2}, Arrays.copyOf(matrix, 9));
+        assertTrue(Float.isNaN(matrix[9]));
+
+        conn.close();
+    }
+
+    @Test
+    void testReadFromText() throws SQLException {
+        readFromExample(false);
+    }
+
+    @Test
+    void testReadFromBinary() throws SQLException {
+        readFromExample(true);
+    }
+
+    void readFromExample(boolean readBinary) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+        if (readBinary) {
+            conn.unwrap(PGConnection.class).setPrepareThreshold(-1);
+        }
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3), sparse_embedding sparsevec(3))");
+
+        PGvector.registerTypes(conn);
+
+        PreparedStatement insertStmt = conn.prepareStatement("INSERT INTO jdbc_items VALUES (?, ?, ?, ?)");
+        PGvector embedding = new PGvector(new float[3]);
+        PGhalfvec halfEmbedding = new PGhalfvec(new float[3]);
+        PGsparsevec sparseEmbedding = new PGsparsevec(new float[3]);
+        for (int i = 1; i <= 3; i++) {
+            embedding.set(new float[] {i, i, i}, 0, 3);
+            halfEmbedding.set(new float[] {i, i, i}, 0, 3);
+            sparseEmbedding.setSparse(new int[] {i - 1}, new float[] {i}, 1, 3);
+            insertStmt.setLong(1, i);
+            insertStmt.setObject(2, embedding);
+            insertStmt.setObject(3, halfEmbedding);
+            insertStmt.setObject(4, sparseEmbedding);
+            insertStmt.addBatch();
+        }
+        insertStmt.executeBatch();
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (4, NULL, NULL, NULL)");
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT * FROM jdbc_items ORDER BY id");
+        ResultSet rs = stmt.executeQuery();
+        PGvector vec = new PGvector();
+        PGhalfvec halfvec = new PGhalfvec();
+        PGsparsevec sparsevec = new PGsparsevec();
+        for (int i = 1; i <= 3; i++) {
+            rs.next();
+            assertTrue(vec.readFrom(rs, 2));
+            assertArrayEquals(new float[] {i, i, i}, vec.toArray());
+            assertTrue(halfvec.readFrom(rs, 3));
+            assertArrayEquals(new float[] {i, i, i}, halfvec.toArray());
+            assertTrue(sparsevec.readFrom(rs, 4));
+            assertArrayEquals(new int[] {i - 1}, sparsevec.getIndices());
+        }
+        rs.next();
+        assertFalse(vec.readFrom(rs, 2));
+        assertNull(vec.toArray());
+
+        conn.close();
+    }
+
+    @Test
+    void testQuantizedSearch() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,1,1]'), (2, '[-1,-1,-1]'), (3, '[1,1,2]'), (4, NULL)");
+        setupStmt.executeUpdate("CREATE INDEX ON jdbc_items USING hnsw ((binary_quantize(embedding)::bit(3)) bit_hamming_ops)");
+        setupStmt.executeUpdate("CREATE INDEX ON jdbc_items USING hnsw ((embedding::halfvec(3)) halfvec_l2_ops)");
+
+        PGvector.registerTypes(conn);
+
+        QuantizedSearch search = new QuantizedSearch("jdbc_items", "id", "embedding", 3);
+        for (ColumnType quantization : new ColumnType[] {ColumnType.BIT, ColumnType.HALFVEC}) {
+            search.setQuantization(quantization);
+            for (boolean clientRerank : new boolean[] {false, true}) {
+                search.setClientRerank(clientRerank);
+                QuantizedSearch.Result result = search.search(conn, new float[] {1, 1, 2}, 2);
+                assertArrayEquals(new long[] {3, 1}, result.getIds());
+                assertArrayEquals(new double[] {0, 1}, result.getDistances());
+                assertTrue(result.getQueryNanos() > 0);
+            }
+        }
+
+        conn.close();
+    }
+
+    @Test
+    void testHnswIndexLoadText() throws SQLException {
+        hnswIndexLoadExample(false);
+    }
+
+    @Test
+    void testHnswIndexLoadBinary() throws SQLException {
+        hnswIndexLoadExample(true);
+    }
+
+    void hnswIndexLoadExample(boolean readBinary) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+        if (readBinary) {
+            conn.unwrap(PGConnection.class).setPrepareThreshold(-1);
+        }
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3), half_embedding halfvec(3), binary_embedding bit(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,1,1]', '[1,1,1]', '000'), (2, '[2,2,2]', '[2,2,2]', '101'), (3, '[1,1,2]', '[1,1,2]', '111'), (4, NULL, NULL, NULL)");
+
+        PGvector.registerTypes(conn);
+
+        float[] query = new float[] {1, 1, 1};
+        HnswIndex index = new HnswIndex(ColumnType.VECTOR, 3, DistanceOperator.L2);
+        assertEquals(3, index.load(conn.prepareStatement("SELECT id, embedding FROM jdbc_items").executeQuery(), 1, 2));
+        HnswIndex.Result result = index.search(query, 5);
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT id, embedding <-> ? FROM jdbc_items WHERE embedding IS NOT NULL ORDER BY 2");
+        stmt.setObject(1, new PGvector(query));
+        ResultSet rs = stmt.executeQuery();
+        for (int i = 0; rs.next(); i++) {
+            assertEquals(rs.getLong(1), result.getIds()[i]);
+            assertEquals(rs.getDouble(2), result.getDistances()[i]);
+        }
+
+        index = new HnswIndex(ColumnType.HALFVEC, 3, DistanceOperator.COSINE);
+        assertEquals(3, index.load(conn.prepareStatement("SELECT id, half_embedding FROM jdbc_items").executeQuery(), 1, 2));
+        assertEquals(1, index.search(query, 1).getIds()[0]);
+
+        index = new HnswIndex(ColumnType.BIT, 3, DistanceOperator.HAMMING);
+        assertEquals(3, index.load(conn.prepareStatement("SELECT id, binary_embedding FROM jdbc_items").executeQuery(), 1, 2));
+        result = index.search(new PGbit(new boolean[] {true, false, true}), 3);
+        assertArrayEquals(new long[] {2, 3, 1}, result.getIds());
+        assertArrayEquals(new double[] {0, 1, 2}, result.getDistances());
+
+        conn.close();
+    }
+
+    @Test
+    void testKnnCache() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+        Connection listenConn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        Statement setupStmt = conn.createStatement();
+        setupStmt.executeUpdate("CREATE EXTENSION IF NOT EXISTS vector");
+        setupStmt.executeUpdate("DROP TABLE IF EXISTS jdbc_items");
+        setupStmt.executeUpdate("CREATE TABLE jdbc_items (id bigint, embedding vector(3))");
+        setupStmt.executeUpdate("INSERT INTO jdbc_items VALUES (1, '[1,1,1]'), (2, '[2,2,2]')");
+
+        PGvector.registerTypes(conn);
+
+        KnnCache<Long> cache = new KnnCache<>(100, 60000);
+        cache.listen(listenConn, "jdbc_items_changed");
+
+        PGvector query = new PGvector(new float[] {1, 1, 1});
+        KnnCache.Key key = KnnCache.key("jdbc_items", query, DistanceOperator.L2, 1);
+        KnnCache.Loader<Long> loader = () -> {
+            PreparedStatement stmt = conn.prepareStatement("SELECT id FROM jdbc_items ORDER BY embedding <-> ? LIMIT 1");
+            stmt.setObject(1, query);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        };
+        assertEquals(1, cache.get(key, loader));
+
+        setupStmt.executeUpdate("UPDATE jdbc_items SET embedding = '[3,3,3]' WHERE id = 1");
+        assertEquals(1, cache.get(key, loader));
+        setupStmt.executeUpdate("NOTIFY jdbc_items_changed, 'jdbc_items'");
+        assertEquals(1, cache.poll(listenConn, 5000));
+        assertEquals(2, cache.get(key, loader));
+
+        listenConn.close();
+        conn.close();
+    }
 }
@@ -0,0 +1,102 @@
+package com.pgvector;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KnnCacheTest {
+    @Test
+    void testKey() {
+        PGvector query = new PGvector(new float[] {1, 2, 3});
+        KnnCache.Key key = KnnCache.key("items", query, DistanceOperator.L2, 5, "books");
+        assertEquals(key, KnnCache.key("items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5, "books"));
+        assertEquals(key.hashCode(), KnnCache.key("items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5, "books").hashCode());
+        assertNotEquals(key, KnnCache.key("items", new PGvector(new float[] {1, 2, 4}), DistanceOperator.L2, 5, "books"));
+        assertNotEquals(key, KnnCache.key("items", query, DistanceOperator.COSINE, 5, "books"));
+        assertNotEquals(key, KnnCache.key("items", query, DistanceOperator.L2, 10, "books"));
+        assertNotEquals(key, KnnCache.key("items", query, DistanceOperator.L2, 5, "movies"));
+        assertNotEquals(key, KnnCache.key("other_items", query, DistanceOperator.L2, 5, "books"));
+        assertNotEquals(key, KnnCache.key("items", new PGhalfvec(new float[] {1, 2, 3}), DistanceOperator.L2, 5, "books"));
+    }
+
+    @Test
+    void testGet() throws SQLException {
+        KnnCache<String> cache = new KnnCache<>(10, 0);
+        KnnCache.Key key = KnnCache.key("items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5);
+        assertNull(cache.get(key));
+        assertEquals("result", cache.get(key, () -> "result"));
+        assertEquals("result", cache.get(key, () -> "other"));
+        assertEquals("result", cache.get(key));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void testEviction() {
+        KnnCache<long[]> cache = new KnnCache<>(5, 0);
+        cache.setWeigher(v -> v.length);
+        KnnCache.Key a = KnnCache.key("items", new PGbit(new boolean[] {true}), DistanceOperator.HAMMING, 2);
+        KnnCache.Key b = KnnCache.key("items", new PGbit(new boolean[] {false}), DistanceOperator.HAMMING, 2);
+        KnnCache.Key c = KnnCache.key("items", new PGbit(new boolean[] {true, true}), DistanceOperator.HAMMING, 2);
+        cache.put(a, new long[] {1, 2});
+        cache.put(b, new long[] {3, 4});
+        cache.get(a);
+        cache.put(c, new long[] {5, 6});
+        assertNull(cache.get(b));
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.getWeight());
+
+        cache.put(b, new long[] {1, 2, 3, 4, 5, 6});
+        assertNull(cache.get(b));
+        assertEquals(4, cache.getWeight());
+    }
+
+    @Test
+    void testTtl() {
+        AtomicLong now = new AtomicLong();
+        KnnCache<String> cache = new KnnCache<>(10, 1000);
+        cache.clock = now::get;
+        KnnCache.Key key = KnnCache.key("items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5);
+        cache.put(key, "result");
+        now.addAndGet(999999999L);
+        assertEquals("result", cache.get(key));
+        now.addAndGet(1);
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void testInvalidate() throws SQLException {
+        KnnCache<String> cache = new KnnCache<>(10, 0);
+        KnnCache.Key a = KnnCache.key("items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5);
+        KnnCache.Key b = KnnCache.key("other_items", new PGvector(new float[] {1, 2, 3}), DistanceOperator.L2, 5);
+        cache.put(a, "a");
+        cache.put(b, "b");
+        cache.invalidate("items");
+        assertNull(cache.get(a));
+        assertEquals("b", cache.get(b));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+
+        // not stored when invalidated while loading
+        assertEquals("stale", cache.get(a, () -> {
+            cache.invalidate("items");
+            return "stale";
+        }));
+        assertNull(cache.get(a));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new KnnCache<String>(0, 0));
+        KnnCache<String> cache = new KnnCache<>(10, 0);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> cache.listen(null, "items; DROP TABLE items"));
+        assertEquals("invalid identifier items; DROP TABLE items", exception.getMessage());
+    }
+}
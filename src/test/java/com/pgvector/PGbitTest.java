@@ -1,12 +1,21 @@
 package com.pgvector;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Base64;
 import com.pgvector.PGbit;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class PGbitTest {
     @Test
@@ -17,6 +26,41 @@ public class PGbitTest {
         assertArrayEquals(new boolean[] {false, true, false, true, false, false, false, false, true}, vec.toArray());
     }
 
+    @Test
+    void testPackedConstructorPadding() throws SQLException {
+        byte[] data = new byte[] {(byte) 0xFF};
+        PGbit dirty = new PGbit(data, 3);
+        PGbit clean = new PGbit(new byte[] {(byte) 0xE0}, 3);
+        assertEquals((byte) 0xFF, data[0]);
+        assertArrayEquals(new byte[] {(byte) 0xE0}, dirty.toByteArray());
+        assertEquals(clean, dirty);
+        assertEquals(0, dirty.hammingDistance(clean));
+        assertEquals(0, dirty.jaccardDistance(clean));
+        assertEquals(KnnCache.key("items", clean, DistanceOperator.HAMMING, 1), KnnCache.key("items", dirty, DistanceOperator.HAMMING, 1));
+
+        HnswIndex index = new HnswIndex(ColumnType.BIT, 3, DistanceOperator.HAMMING);
+        index.add(1, dirty);
+        assertEquals(0, index.search(clean, 1).getDistances()[0]);
+
+        PGbit bytes = new PGbit();
+        bytes.setByteValue(new byte[] {0, 0, 0, 3, (byte) 0xFF}, 0);
+        assertArrayEquals(new byte[] {(byte) 0xE0}, bytes.toByteArray());
+
+        // full bytes are not copied
+        byte[] full = new byte[] {(byte) 0xFF};
+        assertSame(full, new PGbit(full, 8).toByteArray());
+    }
+
+    @Test
+    void testPackedConstructor() {
+        PGbit vec = new PGbit(new byte[] {(byte) 0b01010000, (byte) 0b10000000}, 9);
+        assertEquals(9, vec.length());
+        assertEquals("010100001", vec.getValue());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new PGbit(new byte[1], 9));
+        assertEquals("expected 2 bytes for 9 bits, got 1", exception.getMessage());
+    }
+
     void testEmptyArrayConstructor() {
         PGbit vec = new PGbit(new boolean[] {});
         assertEquals(0, vec.length());
@@ -37,4 +81,84 @@ public class PGbitTest {
         PGbit vec = new PGbit(new boolean[] {false, true, false, true, false, false, false, false, true});
         assertEquals("010100001", vec.getValue());
     }
+
+    @Test
+    void testLazyBinary() throws SQLException {
+        PGbit vec = new PGbit(new boolean[] {false, true, false, true, false, false, false, false, true});
+        byte[] bytes = new byte[2 + vec.lengthInBytes()];
+        vec.toBytes(bytes, 2);
+
+        PGbit.Lazy lazy = new PGbit.Lazy();
+        lazy.setByteValue(bytes, 2);
+        assertEquals(6, lazy.lengthInBytes());
+        assertEquals(9, lazy.length());
+        byte[] out = new byte[lazy.lengthInBytes()];
+        lazy.toBytes(out, 0);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 2, bytes.length), out);
+
+        assertArrayEquals(new byte[] {(byte) 0b01010000, (byte) 0b10000000}, lazy.toByteArray());
+        assertEquals("010100001", lazy.getValue());
+    }
+
+    @Test
+    void testLazyText() throws SQLException {
+        PGbit.Lazy lazy = new PGbit.Lazy();
+        lazy.setValue("0101");
+        assertEquals("0101", lazy.getValue());
+        assertArrayEquals(new boolean[] {false, true, false, true}, lazy.toArray());
+    }
+
+    @Test
+    void testEquals() throws SQLException {
+        PGbit bit = new PGbit(new boolean[] {true, false, true});
+        PGbit lazy = new PGbit.Lazy();
+        lazy.setValue("101");
+        assertEquals(bit, lazy);
+        assertEquals(bit.hashCode(), lazy.hashCode());
+        assertNotEquals(bit, new PGbit(new boolean[] {true, false, false}));
+        assertNotEquals(bit, new PGbit(new boolean[] {true, false, true, false}));
+
+        // bits past the length are ignored
+        PGbit packed = new PGbit(new byte[] {(byte) 0b10111111}, 3);
+        assertEquals(bit, packed);
+        assertEquals(bit.hashCode(), packed.hashCode());
+
+        int hash = bit.hashCode();
+        bit.setValue("111");
+        assertNotEquals(hash, bit.hashCode());
+        assertNotEquals(bit, lazy);
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        PGbit bit = new PGbit(new boolean[] {true, false, true});
+        PGbit copy = (PGbit) deserialize(serialize(bit));
+        assertEquals(bit, copy);
+        assertEquals(3, copy.length());
+        assertEquals("bit", copy.getType());
+
+        assertNull(((PGbit) deserialize(serialize(new PGbit()))).toByteArray());
+    }
+
+    @Test
+    void testDeserializeEarlierVersion() throws Exception {
+        // serialized with 0.1.6
+        byte[] bytes = Base64.getDecoder().decode("rO0ABXNyABJjb20ucGd2ZWN0b3IuUEdiaXQrqHlowhO8nAIAAkkABmxlbmd0aFsABGRhdGF0AAJbQnhyABxvcmcucG9zdGdyZXNxbC51dGlsLlBHb2JqZWN0S/iVyqxvZEQCAAJMAAR0eXBldAASTGphdmEvbGFuZy9TdHJpbmc7TAAFdmFsdWVxAH4AA3hwdAADYml0cAAAAAN1cgACW0Ks8xf4BghU4AIAAHhwAAAAAaA=");
+        PGbit bit = (PGbit) deserialize(bytes);
+        assertEquals("101", bit.getValue());
+    }
+
+    private static byte[] serialize(Object obj) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
 }
@@ -1,12 +1,23 @@
 package com.pgvector;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Base64;
 import com.pgvector.PGhalfvec;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PGhalfvecTest {
     @Test
@@ -40,4 +51,163 @@ public class PGhalfvecTest {
         PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
         assertEquals("[1.0,2.0,3.0]", vec.getValue());
     }
+
+    @Test
+    void testBinary() throws SQLException {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertArrayEquals(new byte[] {0, 3, 0, 0, 0x3c, 0, 0x40, 0, 0x42, 0}, bytes);
+
+        PGhalfvec vec2 = new PGhalfvec();
+        vec2.setByteValue(bytes, 0);
+        assertArrayEquals(new float[] {1, 2, 3}, vec2.toArray());
+    }
+
+    @Test
+    void testBinaryRounding() throws SQLException {
+        PGhalfvec vec = new PGhalfvec(new float[] {1.0001f});
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+
+        PGhalfvec vec2 = new PGhalfvec();
+        vec2.setByteValue(bytes, 0);
+        assertArrayEquals(new float[] {1}, vec2.toArray());
+    }
+
+    @Test
+    void testLazyBinary() throws SQLException {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        byte[] bytes = new byte[2 + vec.lengthInBytes()];
+        vec.toBytes(bytes, 2);
+
+        PGhalfvec.Lazy lazy = new PGhalfvec.Lazy();
+        lazy.setByteValue(bytes, 2);
+        assertEquals(10, lazy.lengthInBytes());
+        byte[] out = new byte[lazy.lengthInBytes()];
+        lazy.toBytes(out, 0);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 2, bytes.length), out);
+
+        float[] decoded = lazy.toArray();
+        assertArrayEquals(new float[] {1, 2, 3}, decoded);
+        assertSame(decoded, lazy.toArray());
+        decoded[0] = 4;
+        lazy.toBytes(out, 0);
+        PGhalfvec copy = new PGhalfvec();
+        copy.setByteValue(out, 0);
+        assertArrayEquals(new float[] {4, 2, 3}, copy.toArray());
+    }
+
+    @Test
+    void testLazyText() throws SQLException {
+        PGhalfvec.Lazy lazy = new PGhalfvec.Lazy();
+        lazy.setValue("[1,2,3]");
+        assertEquals("[1,2,3]", lazy.getValue());
+        assertArrayEquals(new float[] {1, 2, 3}, lazy.toArray());
+        assertEquals("[1.0,2.0,3.0]", lazy.getValue());
+        lazy.setValue(null);
+        assertNull(lazy.getValue());
+        assertNull(lazy.toArray());
+    }
+
+    @Test
+    void testSet() {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        float[] original = vec.toArray();
+        vec.set(new float[] {0, 4, 5, 6}, 1, 3);
+        assertArrayEquals(new float[] {4, 5, 6}, vec.toArray());
+        // arrays passed to constructors are not overwritten
+        assertArrayEquals(new float[] {1, 2, 3}, original);
+
+        float[] reused = vec.toArray();
+        vec.set(new float[] {7, 8, 9}, 0, 3);
+        assertSame(reused, vec.toArray());
+        assertArrayEquals(new float[] {7, 8, 9}, reused);
+
+        vec.set(new float[] {1, 2}, 0, 2);
+        assertArrayEquals(new float[] {1, 2}, vec.toArray());
+        assertArrayEquals(new float[] {7, 8, 9}, reused);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> vec.set(new float[] {1, 2}, 1, 2));
+    }
+
+    @Test
+    void testSetValueDoesNotReuse() throws SQLException {
+        PGhalfvec vec = new PGhalfvec();
+        vec.set(new float[] {1, 2, 3}, 0, 3);
+        float[] returned = vec.toArray();
+        vec.setValue("[4,5,6]");
+        assertArrayEquals(new float[] {1, 2, 3}, returned);
+        assertArrayEquals(new float[] {4, 5, 6}, vec.toArray());
+    }
+
+    @Test
+    void testClone() throws CloneNotSupportedException {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        PGhalfvec copy = (PGhalfvec) vec.clone();
+        assertNotSame(vec.toArray(), copy.toArray());
+        vec.toArray()[0] = 4;
+        assertArrayEquals(new float[] {1, 2, 3}, copy.toArray());
+    }
+
+    @Test
+    void testEquals() throws SQLException {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        PGhalfvec lazy = new PGhalfvec.Lazy();
+        lazy.setValue("[1,2,3]");
+        assertEquals(vec, lazy);
+        assertEquals(vec.hashCode(), lazy.hashCode());
+        assertNotEquals(vec, new PGhalfvec(new float[] {1, 2, 4}));
+        assertNotEquals(vec, new PGvector(new float[] {1, 2, 3}));
+
+        int hash = vec.hashCode();
+        vec.setValue("[1,2,4]");
+        assertNotEquals(hash, vec.hashCode());
+        assertEquals(vec, new PGhalfvec(new float[] {1, 2, 4}));
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        PGhalfvec vec = new PGhalfvec(new float[] {1, 2, 3});
+        PGhalfvec copy = (PGhalfvec) deserialize(serialize(vec));
+        assertArrayEquals(new float[] {1, 2, 3}, copy.toArray());
+        assertEquals("halfvec", copy.getType());
+
+        // elements are not rounded to half precision
+        PGhalfvec precise = new PGhalfvec(new float[] {0.1f});
+        copy = (PGhalfvec) deserialize(serialize(precise));
+        assertArrayEquals(new float[] {0.1f}, copy.toArray());
+        assertEquals(precise, copy);
+        assertEquals(precise.hashCode(), copy.hashCode());
+
+        PGhalfvec lazy = new PGhalfvec.Lazy();
+        lazy.setValue("[1,2,3]");
+        copy = (PGhalfvec) deserialize(serialize(lazy));
+        assertEquals(PGhalfvec.Lazy.class, copy.getClass());
+        assertEquals(vec, copy);
+
+        assertNull(((PGhalfvec) deserialize(serialize(new PGhalfvec()))).toArray());
+    }
+
+    @Test
+    void testDeserializeEarlierVersion() throws Exception {
+        // serialized with 0.1.6
+        byte[] bytes = Base64.getDecoder().decode("rO0ABXNyABZjb20ucGd2ZWN0b3IuUEdoYWxmdmVjrWx554iqauUCAAFbAAN2ZWN0AAJbRnhyABxvcmcucG9zdGdyZXNxbC51dGlsLlBHb2JqZWN0S/iVyqxvZEQCAAJMAAR0eXBldAASTGphdmEvbGFuZy9TdHJpbmc7TAAFdmFsdWVxAH4AA3hwdAAHaGFsZnZlY3B1cgACW0YLnIGJIuAMQgIAAHhwAAAAAz+AAABAAAAAQEAAAA==");
+        PGhalfvec vec = (PGhalfvec) deserialize(bytes);
+        assertArrayEquals(new float[] {1, 2, 3}, vec.toArray());
+    }
+
+    private static byte[] serialize(Object obj) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
 }
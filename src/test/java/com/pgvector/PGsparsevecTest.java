@@ -1,14 +1,24 @@
 package com.pgvector;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 import com.pgvector.PGsparsevec;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PGsparsevecTest {
     @Test
@@ -23,6 +33,14 @@ public class PGsparsevecTest {
         assertArrayEquals(new float[] {1, 0, 2, 0, 3, 0}, vec.toArray());
     }
 
+    @Test
+    void testStringConstructorEmpty() throws SQLException {
+        PGsparsevec vec = new PGsparsevec("{}/3");
+        assertArrayEquals(new float[] {0, 0, 0}, vec.toArray());
+        assertEquals(0, vec.getNnz());
+        assertEquals("{}/3", vec.getValue());
+    }
+
     @Test
     void testFloatListConstructor() {
         Float[] a = new Float[] {Float.valueOf(1), Float.valueOf(2), Float.valueOf(3)};
@@ -72,4 +90,204 @@ public class PGsparsevecTest {
         PGsparsevec vec = new PGsparsevec(new float[] {1, 0, 2, 0, 3, 0});
         assertArrayEquals(new float[] {1, 2, 3}, vec.getValues());
     }
+
+    @Test
+    void testLazyBinary() throws SQLException {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, 0, 2, 0, 3, 0});
+        byte[] bytes = new byte[2 + vec.lengthInBytes()];
+        vec.toBytes(bytes, 2);
+
+        PGsparsevec.Lazy lazy = new PGsparsevec.Lazy();
+        lazy.setByteValue(bytes, 2);
+        assertEquals(36, lazy.lengthInBytes());
+        assertEquals(6, lazy.getDimensions());
+        byte[] out = new byte[lazy.lengthInBytes()];
+        lazy.toBytes(out, 0);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 2, bytes.length), out);
+
+        assertArrayEquals(new int[] {0, 2, 4}, lazy.getIndices());
+        assertArrayEquals(new float[] {1, 2, 3}, lazy.getValues());
+        assertArrayEquals(new float[] {1, 0, 2, 0, 3, 0}, lazy.toArray());
+    }
+
+    @Test
+    void testLazyText() throws SQLException {
+        PGsparsevec.Lazy lazy = new PGsparsevec.Lazy();
+        lazy.setValue("{1:1,3:2}/3");
+        assertEquals("{1:1,3:2}/3", lazy.getValue());
+        assertEquals(3, lazy.getDimensions());
+        assertEquals("{1:1.0,3:2.0}/3", lazy.getValue());
+    }
+
+    @Test
+    void testSetSparse() {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, 0, 2, 0, 3});
+        vec.setSparse(new int[] {1, 3, 9}, new float[] {4, 5, 9}, 2, 4);
+        assertEquals(2, vec.getNnz());
+        assertEquals("{2:4.0,4:5.0}/4", vec.getValue());
+        assertArrayEquals(new float[] {0, 4, 0, 5}, vec.toArray());
+        assertArrayEquals(new int[] {1, 3}, vec.getIndices());
+        assertArrayEquals(new float[] {4, 5}, vec.getValues());
+
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertEquals(28, bytes.length);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> vec.setSparse(new int[] {1}, new float[] {1}, 2, 4));
+    }
+
+    @Test
+    void testSetSparseDistance() {
+        PGsparsevec a = new PGsparsevec(new float[] {1, 0, 2, 0, 3});
+        a.setSparse(new int[] {0, 2}, new float[] {1, 2}, 1, 5);
+        PGsparsevec b = new PGsparsevec(new float[] {0, 0, 0, 0, 2});
+        assertEquals(Math.sqrt(5), a.l2Distance(b), 1e-6);
+        assertEquals(Math.sqrt(5), DistanceOperator.L2.distance(a, b), 1e-6);
+    }
+
+    @Test
+    void testClone() throws CloneNotSupportedException {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, 0, 2});
+        PGsparsevec copy = (PGsparsevec) vec.clone();
+        vec.setSparse(new int[] {1}, new float[] {5}, 1, 3);
+        assertArrayEquals(new float[] {1, 0, 2}, copy.toArray());
+    }
+
+    @Test
+    void testAdd() {
+        PGsparsevec a = new PGsparsevec(new float[] {1, 0, 2, 0, 3});
+        PGsparsevec b = new PGsparsevec(new float[] {0, 4, -2, 0, 1});
+        PGsparsevec sum = a.add(b);
+        assertEquals("{1:1.0,2:4.0,5:4.0}/5", sum.getValue());
+        assertEquals(3, sum.getNnz());
+    }
+
+    @Test
+    void testScale() {
+        PGsparsevec a = new PGsparsevec(new float[] {1, 0, 2});
+        assertEquals("{1:2.0,3:4.0}/3", a.scale(2).getValue());
+        assertEquals("{}/3", a.scale(0).getValue());
+    }
+
+    @Test
+    void testPruneTopK() {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, -4, 0, 2, 3, -2});
+        PGsparsevec.PruneResult result = vec.pruneTopK(3);
+        assertEquals("{2:-4.0,4:2.0,5:3.0}/6", result.getVector().getValue());
+        assertEquals(2, result.getRemovedCount());
+        assertEquals(29 / 34.0, result.getRetainedMass(), 1e-12);
+
+        assertEquals("{}/6", vec.pruneTopK(0).getVector().getValue());
+        assertEquals(vec.getValue(), vec.pruneTopK(10).getVector().getValue());
+        assertEquals(1, vec.pruneTopK(10).getRetainedMass());
+    }
+
+    @Test
+    void testPruneTopKRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            float[] v = new float[100];
+            for (int j = 0; j < v.length; j++) {
+                // many ties
+                v[j] = random.nextInt(3) == 0 ? random.nextInt(10) - 5 : 0;
+            }
+            PGsparsevec vec = new PGsparsevec(v);
+            int k = random.nextInt(vec.getNnz() + 1);
+            PGsparsevec pruned = vec.pruneTopK(k).getVector();
+            assertEquals(k, pruned.getNnz());
+
+            float[] magnitudes = new float[vec.getNnz()];
+            for (int j = 0; j < magnitudes.length; j++) {
+                magnitudes[j] = -Math.abs(vec.getValues()[j]);
+            }
+            Arrays.sort(magnitudes);
+            float expected = 0;
+            float actual = 0;
+            for (int j = 0; j < k; j++) {
+                expected -= magnitudes[j];
+                actual += Math.abs(pruned.getValues()[j]);
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testPruneBelow() {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, -4, 0, 2, 0.5f});
+        assertEquals("{2:-4.0,4:2.0}/5", vec.pruneBelow(2).getVector().getValue());
+        assertEquals("{1:1.0,2:-4.0,4:2.0}/5", vec.pruneRelative(0.25f).getVector().getValue());
+    }
+
+    @Test
+    void testPruneMass() {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, -4, 0, 2, 0.5f});
+        PGsparsevec.PruneResult result = vec.pruneMass(0.9);
+        assertEquals("{2:-4.0,4:2.0}/5", result.getVector().getValue());
+        assertTrue(result.getRetainedMass() >= 0.9);
+        assertEquals("{}/5", vec.pruneMass(0).getVector().getValue());
+        assertEquals(4, vec.pruneMass(1).getVector().getNnz());
+    }
+
+    @Test
+    void testEquals() throws SQLException {
+        PGsparsevec vec = new PGsparsevec(new float[] {1, 0, 2, 0, 3, 0});
+        PGsparsevec lazy = new PGsparsevec.Lazy();
+        lazy.setValue("{1:1,3:2,5:3}/6");
+        assertEquals(vec, lazy);
+        assertEquals(vec.hashCode(), lazy.hashCode());
+        assertNotEquals(vec, new PGsparsevec(new float[] {1, 0, 2, 0, 3}));
+        assertNotEquals(vec, new PGsparsevec(new float[] {1, 0, 2, 0, 4, 0}));
+
+        // only the first nnz elements are compared
+        PGsparsevec reused = new PGsparsevec(new float[] {1, 2, 3, 4, 5, 6});
+        int hash = reused.hashCode();
+        reused.setSparse(new int[] {0, 2, 4}, new float[] {1, 2, 3}, 3, 6);
+        assertNotEquals(hash, reused.hashCode());
+        assertEquals(vec, reused);
+        assertEquals(vec.hashCode(), reused.hashCode());
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        PGsparsevec vec = new PGsparsevec("{1:1,3:2,5:3}/6");
+        PGsparsevec copy = (PGsparsevec) deserialize(serialize(vec));
+        assertEquals(vec, copy);
+        assertArrayEquals(new int[] {0, 2, 4}, copy.getIndices());
+        assertArrayEquals(new float[] {1, 2, 3}, copy.getValues());
+        assertEquals(6, copy.getDimensions());
+
+        // reused arrays with more elements than nnz
+        PGsparsevec reused = new PGsparsevec(new float[] {1, 2, 3, 4, 5, 6});
+        reused.setSparse(new int[] {0, 200000, 1000000}, new float[] {1, 2, 3}, 3, 1000001);
+        copy = (PGsparsevec) deserialize(serialize(reused));
+        assertArrayEquals(new int[] {0, 200000, 1000000}, copy.getIndices());
+        assertEquals(1000001, copy.getDimensions());
+
+        PGsparsevec empty = new PGsparsevec(new float[3]);
+        assertEquals(empty, deserialize(serialize(empty)));
+        assertNull(((PGsparsevec) deserialize(serialize(new PGsparsevec()))).getIndices());
+    }
+
+    @Test
+    void testDeserializeEarlierVersion() throws Exception {
+        // serialized with 0.1.6
+        byte[] bytes = Base64.getDecoder().decode("rO0ABXNyABhjb20ucGd2ZWN0b3IuUEdzcGFyc2V2ZWMLK7T11G8NqwIAA0kACmRpbWVuc2lvbnNbAAdpbmRpY2VzdAACW0lbAAZ2YWx1ZXN0AAJbRnhyABxvcmcucG9zdGdyZXNxbC51dGlsLlBHb2JqZWN0S/iVyqxvZEQCAAJMAAR0eXBldAASTGphdmEvbGFuZy9TdHJpbmc7TAAFdmFsdWVxAH4ABHhwdAAJc3BhcnNldmVjcAAAAAZ1cgACW0lNumAmduqypQIAAHhwAAAAAwAAAAAAAAACAAAABHVyAAJbRgucgYki4AxCAgAAeHAAAAADP4AAAEAAAABAQAAA");
+        PGsparsevec vec = (PGsparsevec) deserialize(bytes);
+        assertEquals("{1:1.0,3:2.0,5:3.0}/6", vec.getValue());
+        assertEquals(3, vec.getNnz());
+    }
+
+    private static byte[] serialize(Object obj) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
 }
@@ -1,12 +1,27 @@
 package com.pgvector;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import com.pgvector.PGvector;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class PGvectorTest {
     @Test
@@ -40,4 +55,169 @@ public class PGvectorTest {
         PGvector vec = new PGvector(new float[] {1, 2, 3});
         assertEquals("[1.0,2.0,3.0]", vec.getValue());
     }
+
+    @Test
+    void testLazyBinary() throws SQLException {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        byte[] bytes = new byte[2 + vec.lengthInBytes()];
+        vec.toBytes(bytes, 2);
+
+        PGvector.Lazy lazy = new PGvector.Lazy();
+        lazy.setByteValue(bytes, 2);
+        assertEquals(16, lazy.lengthInBytes());
+        byte[] out = new byte[lazy.lengthInBytes()];
+        lazy.toBytes(out, 0);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 2, bytes.length), out);
+
+        float[] decoded = lazy.toArray();
+        assertArrayEquals(new float[] {1, 2, 3}, decoded);
+        assertSame(decoded, lazy.toArray());
+        decoded[0] = 4;
+        lazy.toBytes(out, 0);
+        PGvector copy = new PGvector();
+        copy.setByteValue(out, 0);
+        assertArrayEquals(new float[] {4, 2, 3}, copy.toArray());
+    }
+
+    @Test
+    void testLazyText() throws SQLException {
+        PGvector.Lazy lazy = new PGvector.Lazy();
+        lazy.setValue("[1,2,3]");
+        assertEquals("[1,2,3]", lazy.getValue());
+        assertArrayEquals(new float[] {1, 2, 3}, lazy.toArray());
+        assertEquals("[1.0,2.0,3.0]", lazy.getValue());
+        lazy.setValue(null);
+        assertNull(lazy.getValue());
+        assertNull(lazy.toArray());
+    }
+
+    @Test
+    void testLazyConcurrent() throws Exception {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                PGvector.Lazy lazy = new PGvector.Lazy();
+                if (i % 2 == 0) {
+                    lazy.setByteValue(bytes, 0);
+                } else {
+                    lazy.setValue("[1,2,3]");
+                }
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        assertEquals(16, lazy.lengthInBytes());
+                        assertEquals(vec, lazy);
+                        assertArrayEquals(new float[] {1, 2, 3}, lazy.toArray());
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSet() {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        float[] original = vec.toArray();
+        vec.set(new float[] {0, 4, 5, 6}, 1, 3);
+        assertArrayEquals(new float[] {4, 5, 6}, vec.toArray());
+        // arrays passed to constructors are not overwritten
+        assertArrayEquals(new float[] {1, 2, 3}, original);
+
+        float[] reused = vec.toArray();
+        vec.set(new float[] {7, 8, 9}, 0, 3);
+        assertSame(reused, vec.toArray());
+        assertArrayEquals(new float[] {7, 8, 9}, reused);
+
+        vec.set(new float[] {1, 2}, 0, 2);
+        assertArrayEquals(new float[] {1, 2}, vec.toArray());
+        assertArrayEquals(new float[] {7, 8, 9}, reused);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> vec.set(new float[] {1, 2}, 1, 2));
+    }
+
+    @Test
+    void testSetValueDoesNotReuse() throws SQLException {
+        PGvector vec = new PGvector();
+        vec.set(new float[] {1, 2, 3}, 0, 3);
+        float[] returned = vec.toArray();
+        vec.setValue("[4,5,6]");
+        assertArrayEquals(new float[] {1, 2, 3}, returned);
+        assertArrayEquals(new float[] {4, 5, 6}, vec.toArray());
+    }
+
+    @Test
+    void testClone() throws CloneNotSupportedException {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        PGvector copy = (PGvector) vec.clone();
+        assertNotSame(vec.toArray(), copy.toArray());
+        vec.toArray()[0] = 4;
+        assertArrayEquals(new float[] {1, 2, 3}, copy.toArray());
+    }
+
+    @Test
+    void testEquals() throws SQLException {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        PGvector lazy = new PGvector.Lazy();
+        lazy.setValue("[1,2,3]");
+        assertEquals(vec, lazy);
+        assertEquals(vec.hashCode(), lazy.hashCode());
+        assertNotEquals(vec, new PGvector(new float[] {1, 2, 4}));
+        assertNotEquals(vec, new PGhalfvec(new float[] {1, 2, 3}));
+        assertNotEquals(new PGvector(new float[] {0}), new PGvector(new float[] {-0.0f}));
+        assertEquals(new PGvector(), new PGvector());
+
+        int hash = vec.hashCode();
+        vec.set(new float[] {1, 2, 4}, 0, 3);
+        assertNotEquals(hash, vec.hashCode());
+        assertEquals(vec, new PGvector(new float[] {1, 2, 4}));
+        assertNotEquals(vec, lazy);
+    }
+
+    @Test
+    void testSerialization() throws Exception {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        PGvector copy = (PGvector) deserialize(serialize(vec));
+        assertArrayEquals(new float[] {1, 2, 3}, copy.toArray());
+        assertEquals("vector", copy.getType());
+
+        PGvector lazy = new PGvector.Lazy();
+        lazy.setValue("[1,2,3]");
+        copy = (PGvector) deserialize(serialize(lazy));
+        assertEquals(PGvector.Lazy.class, copy.getClass());
+        assertEquals(vec, copy);
+
+        assertNull(((PGvector) deserialize(serialize(new PGvector()))).toArray());
+    }
+
+    @Test
+    void testDeserializeEarlierVersion() throws Exception {
+        // serialized with 0.1.6
+        byte[] bytes = Base64.getDecoder().decode("rO0ABXNyABVjb20ucGd2ZWN0b3IuUEd2ZWN0b3LZZeE9XpPrJwIAAVsAA3ZlY3QAAltGeHIAHG9yZy5wb3N0Z3Jlc3FsLnV0aWwuUEdvYmplY3RL+JXKrG9kRAIAAkwABHR5cGV0ABJMamF2YS9sYW5nL1N0cmluZztMAAV2YWx1ZXEAfgADeHB0AAZ2ZWN0b3JwdXIAAltGC5yBiSLgDEICAAB4cAAAAAM/gAAAQAAAAEBAAAA=");
+        PGvector vec = (PGvector) deserialize(bytes);
+        assertArrayEquals(new float[] {1, 2, 3}, vec.toArray());
+        assertEquals("[1.0,2.0,3.0]", vec.getValue());
+    }
+
+    private static byte[] serialize(Object obj) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
 }
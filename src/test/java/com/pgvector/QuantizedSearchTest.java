@@ -0,0 +1,49 @@
+package com.pgvector;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class QuantizedSearchTest {
+    @Test
+    void testBitSql() {
+        QuantizedSearch search = new QuantizedSearch("items", "id", "embedding", 3);
+        assertEquals("SELECT id, embedding FROM items ORDER BY binary_quantize(embedding)::bit(3) <~> binary_quantize(?) LIMIT ?", search.candidateSql());
+        search.setOperator(DistanceOperator.COSINE);
+        assertEquals("SELECT id, embedding <=> ? AS distance FROM (SELECT id, embedding FROM items ORDER BY binary_quantize(embedding)::bit(3) <~> binary_quantize(?) LIMIT ?) candidates ORDER BY distance LIMIT ?", search.rerankSql());
+    }
+
+    @Test
+    void testHalfvecSql() {
+        QuantizedSearch search = new QuantizedSearch("public.items", "id", "embedding", 3);
+        search.setQuantization(ColumnType.HALFVEC);
+        search.setOperator(DistanceOperator.INNER_PRODUCT);
+        assertEquals("SELECT id, embedding FROM public.items ORDER BY embedding::halfvec(3) <#> ?::halfvec(3) LIMIT ?", search.candidateSql());
+    }
+
+    @Test
+    void testNearest() {
+        double[] distances = new double[] {3, 1, Double.NaN, 2, 0, 1};
+        assertArrayEquals(new int[] {4, 1, 5}, QuantizedSearch.nearest(distances, distances.length, 3));
+        assertArrayEquals(new int[] {4, 1, 5, 3, 0}, QuantizedSearch.nearest(distances, distances.length, 10));
+        assertArrayEquals(new int[] {1}, QuantizedSearch.nearest(distances, 3, 1));
+    }
+
+    @Test
+    void testInvalid() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new QuantizedSearch("items; DROP TABLE items", "id", "embedding", 3));
+        assertEquals("invalid identifier items; DROP TABLE items", exception.getMessage());
+
+        QuantizedSearch search = new QuantizedSearch("items", "id", "embedding", 3);
+        exception = assertThrows(IllegalArgumentException.class, () -> search.setQuantization(ColumnType.SPARSEVEC));
+        assertEquals("unsupported quantization sparsevec", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> search.setOperator(DistanceOperator.HAMMING));
+        assertEquals("operator <~> not supported for vector", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> search.search(null, new float[] {1, 2}, 5));
+        assertEquals("different vector dimensions 3 and 2", exception.getMessage());
+    }
+}
@@ -0,0 +1,56 @@
+package com.pgvector;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlStatement;
+import io.r2dbc.postgresql.codec.Codec;
+import io.r2dbc.postgresql.codec.CodecRegistry;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class R2DBCCodecRegistrarTest {
+    @Test
+    void testRegisterOnSubscribe() {
+        // no rows for the queried types
+        PostgresqlStatement statement = proxy(PostgresqlStatement.class, Flux.empty());
+        PostgresqlConnection connection = proxy(PostgresqlConnection.class, statement);
+        List<Codec<?>> codecs = new ArrayList<>();
+        CodecRegistry registry = new CodecRegistry() {
+            @Override
+            public void addFirst(Codec<?> codec) {
+                codecs.add(0, codec);
+            }
+
+            @Override
+            public void addLast(Codec<?> codec) {
+                codecs.add(codec);
+            }
+
+            @Override
+            public Iterator<Codec<?>> iterator() {
+                return codecs.iterator();
+            }
+        };
+
+        Publisher<Void> publisher = new R2DBCCodecRegistrar().register(connection, ByteBufAllocator.DEFAULT, registry);
+        assertEquals(0, codecs.size());
+
+        Mono.from(publisher).block();
+        assertEquals(1, codecs.size());
+        assertTrue(codecs.get(0).canEncode(new PGbit(new boolean[] {true})));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (p, method, args) -> result);
+    }
+}
@@ -0,0 +1,120 @@
+package com.pgvector;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.r2dbc.postgresql.codec.Vector;
+import io.r2dbc.postgresql.message.Format;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class R2DBCCodecTest {
+    private static final ByteBufAllocator ALLOCATOR = ByteBufAllocator.DEFAULT;
+
+    @Test
+    void testVector() {
+        R2DBCCodec<PGvector> codec = R2DBCCodec.vector(100, ALLOCATOR);
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        ByteBuf buf = Unpooled.buffer();
+        codec.write(vec, buf);
+        assertEquals(vec.lengthInBytes(), buf.readableBytes());
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+        assertEquals(vec, codec.decode(buf, 100, Format.FORMAT_BINARY, PGvector.class));
+        assertEquals(vec, codec.decode(text("[1,2,3]"), 100, Format.FORMAT_TEXT, PGvector.class));
+        assertNull(codec.decode(null, 100, Format.FORMAT_BINARY, PGvector.class));
+    }
+
+    @Test
+    void testHalfvec() {
+        R2DBCCodec<PGhalfvec> codec = R2DBCCodec.halfvec(101, ALLOCATOR);
+        PGhalfvec vec = new PGhalfvec(new float[] {1.5f, 2, 3});
+        ByteBuf buf = Unpooled.buffer();
+        codec.write(vec, buf);
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+        assertEquals(vec, codec.decode(buf, 101, Format.FORMAT_BINARY, PGhalfvec.class));
+        assertEquals(vec, codec.decode(text("[1.5,2,3]"), 101, Format.FORMAT_TEXT, PGhalfvec.class));
+    }
+
+    @Test
+    void testSparsevec() {
+        R2DBCCodec<PGsparsevec> codec = R2DBCCodec.sparsevec(102, ALLOCATOR);
+        Map<Integer, Float> map = new HashMap<>();
+        map.put(0, 1f);
+        map.put(4, 3f);
+        PGsparsevec vec = new PGsparsevec(map, 6);
+        ByteBuf buf = Unpooled.buffer();
+        codec.write(vec, buf);
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+        PGsparsevec decoded = codec.decode(buf, 102, Format.FORMAT_BINARY, PGsparsevec.class);
+        assertEquals(vec, decoded);
+        assertEquals(6, decoded.getDimensions());
+        assertArrayEquals(new int[] {0, 4}, decoded.getIndices());
+        assertEquals(vec, codec.decode(text("{1:1,5:3}/6"), 102, Format.FORMAT_TEXT, PGsparsevec.class));
+    }
+
+    @Test
+    void testBit() {
+        R2DBCCodec<PGbit> codec = R2DBCCodec.bit(ALLOCATOR);
+        PGbit vec = new PGbit(new boolean[] {true, false, true, true, false, false, false, false, true});
+        ByteBuf buf = Unpooled.buffer();
+        codec.write(vec, buf);
+        byte[] bytes = new byte[vec.lengthInBytes()];
+        vec.toBytes(bytes, 0);
+        assertArrayEquals(bytes, ByteBufUtil.getBytes(buf));
+        assertEquals(vec, codec.decode(buf, 1560, Format.FORMAT_BINARY, PGbit.class));
+        assertEquals(vec, codec.decode(text("101100001"), 1562, Format.FORMAT_TEXT, PGbit.class));
+    }
+
+    @Test
+    void testCanDecode() {
+        R2DBCCodec<PGvector> vectorCodec = R2DBCCodec.vector(100, ALLOCATOR);
+        assertTrue(vectorCodec.canDecode(100, Format.FORMAT_BINARY, PGvector.class));
+        assertTrue(vectorCodec.canDecode(100, Format.FORMAT_TEXT, PGvector.class));
+        assertFalse(vectorCodec.canDecode(101, Format.FORMAT_BINARY, PGvector.class));
+        assertFalse(vectorCodec.canDecode(100, Format.FORMAT_BINARY, Object.class));
+        assertFalse(vectorCodec.canDecode(100, Format.FORMAT_BINARY, Vector.class));
+
+        R2DBCCodec<PGhalfvec> halfvecCodec = R2DBCCodec.halfvec(101, ALLOCATOR);
+        assertTrue(halfvecCodec.canDecode(101, Format.FORMAT_BINARY, Object.class));
+        assertFalse(halfvecCodec.canDecode(101, Format.FORMAT_BINARY, PGvector.class));
+    }
+
+    @Test
+    void testCanEncode() {
+        R2DBCCodec<PGvector> codec = R2DBCCodec.vector(100, ALLOCATOR);
+        assertTrue(codec.canEncode(new PGvector(new float[] {1, 2, 3})));
+        assertTrue(codec.canEncode(new PGvector.Lazy()));
+        assertFalse(codec.canEncode(new PGhalfvec(new float[] {1, 2, 3})));
+        assertFalse(codec.canEncode(Vector.of(1, 2, 3)));
+        assertTrue(codec.canEncodeNull(PGvector.class));
+        assertFalse(codec.canEncodeNull(PGhalfvec.class));
+    }
+
+    @Test
+    void testInvalid() {
+        R2DBCCodec<PGvector> codec = R2DBCCodec.vector(100, ALLOCATOR);
+        ByteBuf buf = Unpooled.buffer().writeShort(1).writeShort(1).writeFloat(1);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> codec.decode(buf, 100, Format.FORMAT_BINARY, PGvector.class));
+        assertEquals("expected unused to be 0", exception.getMessage());
+    }
+
+    private static ByteBuf text(String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII);
+    }
+}
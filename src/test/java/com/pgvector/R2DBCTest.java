@@ -1,14 +1,18 @@
 package com.pgvector;
 
 import java.sql.SQLException;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
 import io.r2dbc.postgresql.codec.Vector;
 import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.ConnectionFactoryOptions;
 import io.r2dbc.spi.Statement;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class R2DBCTest {
     @Test
     void example() throws SQLException {
@@ -32,4 +36,48 @@ public class R2DBCTest {
             .doOnNext(System.out::println)
             .blockLast();
     }
+
+    @Test
+    void testCodecs() throws SQLException {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+            ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+                .option(ConnectionFactoryOptions.HOST, "localhost")
+                .option(ConnectionFactoryOptions.USER, System.getenv("USER"))
+                .option(ConnectionFactoryOptions.PASSWORD, "")
+                .option(ConnectionFactoryOptions.DATABASE, "pgvector_java_test")
+                .option(PostgresqlConnectionFactoryProvider.FORCE_BINARY, true)
+                .build()
+        );
+
+        PGvector embedding = new PGvector(new float[] {1, 2, 3});
+        PGhalfvec halfEmbedding = new PGhalfvec(new float[] {1, 2, 3});
+        PGsparsevec sparseEmbedding = new PGsparsevec(new float[] {1, 0, 2, 0, 3, 0});
+        PGbit binaryEmbedding = new PGbit(new boolean[] {false, true, false});
+
+        Object[] row = Mono.from(connectionFactory.create())
+            .flatMapMany(connection -> Flux.from(connection
+                .createStatement("SELECT $1::vector AS embedding, $2::halfvec AS half_embedding, $3::sparsevec AS sparse_embedding, $4::bit(3) AS binary_embedding")
+                .bind("$1", embedding)
+                .bind("$2", halfEmbedding)
+                .bind("$3", sparseEmbedding)
+                .bind("$4", binaryEmbedding)
+                .execute())
+                .flatMap(result -> result
+                    .map((r, rowMetadata) -> new Object[] {
+                        r.get("embedding", PGvector.class),
+                        r.get("half_embedding", PGhalfvec.class),
+                        r.get("sparse_embedding", PGsparsevec.class),
+                        r.get("binary_embedding", PGbit.class),
+                        r.get("embedding")
+                    }))
+                .concatWith(Mono.from(connection.close()).then(Mono.empty())))
+            .blockLast();
+
+        assertEquals(embedding, row[0]);
+        assertEquals(halfEmbedding, row[1]);
+        assertEquals(sparseEmbedding, row[2]);
+        assertEquals(binaryEmbedding, row[3]);
+        assertEquals(Vector.of(1, 2, 3), row[4]);
+    }
 }
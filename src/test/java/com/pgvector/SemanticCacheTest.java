@@ -0,0 +1,66 @@
+package com.pgvector;
+
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SemanticCacheTest {
+    @Test
+    void testGet() throws SQLException {
+        SemanticCache<String> cache = new SemanticCache<>(3, DistanceOperator.L2, 0.5, 10);
+        assertNull(cache.get(new float[] {1, 1, 1}));
+        cache.put(new float[] {1, 1, 1}, "a");
+        assertEquals("a", cache.get(new float[] {1, 1, 1}));
+        assertEquals("a", cache.get(new float[] {1, 1, 1.4f}));
+        assertNull(cache.get(new float[] {1, 1, 2}));
+        assertEquals("b", cache.get(new float[] {1, 1, 2}, () -> "b"));
+        assertEquals("b", cache.get(new float[] {1, 1, 1.9f}, () -> "c"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getNearHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate());
+        assertTrue(cache.getLookupNanos() > 0);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testThreshold() {
+        SemanticCache<String> cache = new SemanticCache<>(2, DistanceOperator.COSINE, 0.01, 10);
+        cache.put(new float[] {1, 0}, "a");
+        assertNull(cache.get(new float[] {1, 1}));
+        cache.setThreshold(0.5);
+        assertEquals("a", cache.get(new float[] {1, 1}));
+    }
+
+    @Test
+    void testEviction() {
+        SemanticCache<Integer> cache = new SemanticCache<>(1, DistanceOperator.L2, 0.1, 3);
+        for (int i = 0; i < 100; i++) {
+            cache.put(new float[] {i}, i);
+            cache.get(new float[] {0});
+        }
+        assertEquals(3, cache.size());
+        assertEquals(0, cache.get(new float[] {0}));
+        assertEquals(99, cache.get(new float[] {99}));
+        assertNull(cache.get(new float[] {50}));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(new float[] {0}));
+    }
+
+    @Test
+    void testInvalid() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new SemanticCache<String>(3, DistanceOperator.L2, 0.5, 0));
+        assertEquals("max entries must be at least 1", exception.getMessage());
+
+        SemanticCache<String> cache = new SemanticCache<>(3, DistanceOperator.L2, 0.5, 10);
+        exception = assertThrows(IllegalArgumentException.class, () -> cache.get(new float[] {1, 2}));
+        assertEquals("different vector dimensions 3 and 2", exception.getMessage());
+    }
+}
@@ -0,0 +1,98 @@
+package com.pgvector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.ByteConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpringBulkInserterTest {
+    private static final ColumnType[] COLUMNS = {ColumnType.VECTOR, ColumnType.BIGINT};
+
+    @Test
+    void testChunkEnd() {
+        List<Object[]> rows = Arrays.asList(
+            new Object[] {new PGvector(new float[] {1, 2, 3}), 1L},
+            new Object[] {new float[] {4, 5, 6}, 2L},
+            new Object[] {null, 3L},
+            new Object[] {new PGvector(new float[] {7, 8, 9}), null}
+        );
+        int[] lengths = new int[2];
+        // headers are 20 bytes and elements are 4 bytes plus data
+        assertEquals(2, SpringBulkInserter.chunkEnd(COLUMNS, rows, 0, 40 + 32 * 2, 100, lengths));
+        assertArrayEquals(new int[] {20 + 20 * 2, 20 + 12 * 2}, lengths);
+        assertEquals(4, SpringBulkInserter.chunkEnd(COLUMNS, rows, 2, 40 + 32 * 2, 100, lengths));
+        assertArrayEquals(new int[] {20 + 4 + 20, 20 + 12 + 4}, lengths);
+        assertEquals(3, SpringBulkInserter.chunkEnd(COLUMNS, rows, 0, 1 << 20, 3, lengths));
+        // always includes a row
+        assertEquals(1, SpringBulkInserter.chunkEnd(COLUMNS, rows, 0, 1, 100, lengths));
+    }
+
+    @Test
+    void testBinaryArray() {
+        PGvector vec = new PGvector(new float[] {1, 2, 3});
+        List<Object[]> rows = Arrays.asList(new Object[] {vec, 1L}, new Object[] {null, 2L});
+        int[] lengths = new int[2];
+        SpringBulkInserter.chunkEnd(COLUMNS, rows, 0, 1 << 20, 100, lengths);
+
+        SpringBulkInserter.BinaryArray array = new SpringBulkInserter.BinaryArray("_vector", 100, ColumnType.VECTOR, rows, 0, 0, 2, lengths[0]);
+        byte[] bytes = new byte[array.lengthInBytes()];
+        array.toBytes(bytes, 0);
+        assertEquals(1, ByteConverter.int4(bytes, 0));
+        assertEquals(1, ByteConverter.int4(bytes, 4));
+        assertEquals(100, ByteConverter.int4(bytes, 8));
+        assertEquals(2, ByteConverter.int4(bytes, 12));
+        assertEquals(1, ByteConverter.int4(bytes, 16));
+        assertEquals(16, ByteConverter.int4(bytes, 20));
+        byte[] expected = new byte[16];
+        vec.toBytes(expected, 0);
+        assertArrayEquals(expected, Arrays.copyOfRange(bytes, 24, 40));
+        assertEquals(-1, ByteConverter.int4(bytes, 40));
+        assertEquals(44, bytes.length);
+        assertEquals("{\"[1.0,2.0,3.0]\",NULL}", array.getValue());
+
+        array = new SpringBulkInserter.BinaryArray("_int8", 20, ColumnType.BIGINT, rows, 1, 0, 2, lengths[1]);
+        bytes = new byte[array.lengthInBytes()];
+        array.toBytes(bytes, 0);
+        assertEquals(0, ByteConverter.int4(bytes, 4));
+        assertEquals(8, ByteConverter.int4(bytes, 20));
+        assertEquals(1, ByteConverter.int8(bytes, 24));
+        assertEquals(2, ByteConverter.int8(bytes, 36));
+        assertEquals("{1,2}", array.getValue());
+    }
+
+    @Test
+    void testText() {
+        ColumnType[] columns = {ColumnType.TEXT};
+        List<Object[]> rows = Collections.singletonList(new Object[] {"a\"\u00e9\ud83d\ude00"});
+        int[] lengths = new int[1];
+        SpringBulkInserter.chunkEnd(columns, rows, 0, 1 << 20, 100, lengths);
+        assertEquals(20 + 4 + 8, lengths[0]);
+
+        SpringBulkInserter.BinaryArray array = new SpringBulkInserter.BinaryArray("_text", 25, ColumnType.TEXT, rows, 0, 0, 1, lengths[0]);
+        byte[] bytes = new byte[array.lengthInBytes()];
+        array.toBytes(bytes, 0);
+        assertEquals("a\"\u00e9\ud83d\ude00", new String(bytes, 24, 8, StandardCharsets.UTF_8));
+        assertEquals("{\"a\\\"\u00e9\ud83d\ude00\"}", array.getValue());
+    }
+
+    @Test
+    void testInvalid() {
+        SpringBulkInserter inserter = new SpringBulkInserter(new JdbcTemplate(), "INSERT INTO items (embedding, category_id) SELECT * FROM unnest(?::vector[], ?::bigint[])", COLUMNS);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> inserter.insert(Collections.singletonList(new Object[] {null})));
+        assertEquals("expected 2 values for row 0, got 1", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> SpringBulkInserter.chunkEnd(COLUMNS, Collections.singletonList(new Object[] {new PGhalfvec(new float[] {1}), 1L}), 0, 1 << 20, 100, new int[2]));
+        assertEquals("unexpected value for vector column 0", exception.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> inserter.setMaxChunkBytes(0));
+        assertThrows(IllegalArgumentException.class, () -> inserter.setMaxChunkRows(0));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class SpringJDBCTest {
@@ -49,4 +50,30 @@ public class SpringJDBCTest {
 
         jdbcTemplate.execute("CREATE INDEX ON spring_items USING ivfflat (embedding vector_l2_ops) WITH (lists = 100)");
     }
+
+    @Test
+    void testBulkInserter() throws SQLException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setUrl("jdbc:postgresql://localhost:5432/pgvector_java_test");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS spring_items");
+
+        jdbcTemplate.execute("CREATE TABLE spring_items (id bigserial PRIMARY KEY, embedding vector(3), category_id bigint)");
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[] {i == 999 ? null : new PGvector(new float[] {i, i, i}), (long) (i % 10)});
+        }
+        SpringBulkInserter inserter = new SpringBulkInserter(jdbcTemplate, "INSERT INTO spring_items (embedding, category_id) SELECT * FROM unnest(?::vector[], ?::bigint[])", ColumnType.VECTOR, ColumnType.BIGINT);
+        inserter.setMaxChunkRows(300);
+        assertEquals(1000, inserter.insert(rows));
+
+        assertEquals(1000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_items", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_items WHERE embedding IS NULL", Long.class));
+        assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_items WHERE category_id = 3", Long.class));
+        PGobject embedding = jdbcTemplate.queryForObject("SELECT embedding FROM spring_items WHERE id = 4", PGobject.class);
+        assertArrayEquals(new float[] {3, 3, 3}, new PGvector(embedding.getValue()).toArray());
+    }
 }
@@ -0,0 +1,100 @@
+package com.pgvector;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextFormatterTest {
+    static String format(float f) {
+        char[] buf = new char[TextFormatter.MAX_FLOAT_LENGTH];
+        return new String(buf, 0, TextFormatter.formatFloat(f, buf, 0));
+    }
+
+    static void assertRoundTrip(float f) {
+        String s = format(f);
+        assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(Float.parseFloat(s)), s);
+        // Float.toString before Java 19 is not always the shortest
+        assertTrue(s.length() <= Float.toString(f).length(), s);
+    }
+
+    @Test
+    void testValues() {
+        assertEquals("0.0", format(0.0f));
+        assertEquals("-0.0", format(-0.0f));
+        assertEquals("1.0", format(1.0f));
+        assertEquals("-1.5", format(-1.5f));
+        assertEquals("100.0", format(100.0f));
+        assertEquals("123.456", format(123.456f));
+        assertEquals("0.1", format(0.1f));
+        assertEquals("0.001", format(0.001f));
+        assertEquals("1.0E-4", format(0.0001f));
+        assertEquals("1234567.0", format(1234567.0f));
+        assertEquals("1.0E7", format(1.0e7f));
+        assertEquals("1.2345678E7", format(12345678.0f));
+        assertEquals("3.4028235E38", format(Float.MAX_VALUE));
+        assertEquals("1.1754944E-38", format(Float.MIN_NORMAL));
+        assertEquals("1.0E-45", format(Float.MIN_VALUE));
+        assertEquals("NaN", format(Float.NaN));
+        assertEquals("Infinity", format(Float.POSITIVE_INFINITY));
+        assertEquals("-Infinity", format(Float.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    void testRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000000; i++) {
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(f)) {
+                assertRoundTrip(f);
+            }
+            assertRoundTrip(random.nextFloat());
+            assertRoundTrip((float) random.nextGaussian());
+        }
+    }
+
+    @Test
+    void testPowersOfTen() {
+        for (int i = -45; i <= 38; i++) {
+            float f = Float.parseFloat("1e" + i);
+            assertRoundTrip(f);
+            assertRoundTrip(Math.nextUp(f));
+            assertRoundTrip(Math.nextDown(f));
+        }
+    }
+
+    @Test
+    void testInt() {
+        for (int v : new int[] {0, 1, -1, 9, 10, 16000, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            char[] buf = new char[TextFormatter.MAX_INT_LENGTH];
+            assertEquals(Integer.toString(v), new String(buf, 0, TextFormatter.formatInt(v, buf, 0)));
+        }
+    }
+
+    @Test
+    void testVector() {
+        assertEquals("[]", TextFormatter.formatVector(new float[0]));
+        assertEquals("[1.0,-2.5,3.0E-5]", TextFormatter.formatVector(new float[] {1, -2.5f, 3e-5f}));
+
+        Random random = new Random(42);
+        float[] vec = new float[100000];
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vec.length; i++) {
+            vec[i] = Float.intBitsToFloat(random.nextInt() & 0xbfffffff);
+            sb.append(i > 0 ? "," : "").append(format(vec[i]));
+        }
+        assertEquals(sb.append("]").toString(), TextFormatter.formatVector(vec));
+    }
+
+    @Test
+    void testSparsevec() {
+        assertEquals("{}/3", TextFormatter.formatSparsevec(3, new int[0], new float[0], 0));
+        assertEquals("{1:1.0,3:2.0}/3", TextFormatter.formatSparsevec(3, new int[] {0, 2, 0}, new float[] {1, 2, 0}, 2));
+    }
+
+    @Test
+    void testBit() {
+        assertEquals("101", TextFormatter.formatBit(new byte[] {(byte) 0b10100000}, 3));
+    }
+}
@@ -0,0 +1,111 @@
+package com.pgvector;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VectorBatchTest {
+    @Test
+    void testText() throws SQLException {
+        ResultSet rs = resultSet(new Object[][] {
+            {1L, text("[1,2,3]"), 0.5},
+            {2L, text("[4.5,-5,1e-3]"), 1.5},
+            {3L, null, 2.5}
+        });
+        VectorBatch batch = new VectorBatch(ColumnType.VECTOR, 3, 3);
+        assertEquals(3, batch.read(rs, 2, 1, 3));
+        assertEquals(3, batch.size());
+        assertTrue(batch.isFull());
+        float[] matrix = batch.getMatrix();
+        assertArrayEquals(new float[] {1, 2, 3, 4.5f, -5, 1e-3f}, Arrays.copyOf(matrix, 6));
+        assertTrue(Float.isNaN(matrix[6]));
+        assertArrayEquals(new long[] {1, 2, 3}, batch.getIds());
+        assertArrayEquals(new double[] {0.5, 1.5, 2.5}, batch.getDistances());
+    }
+
+    @Test
+    void testBinary() throws SQLException {
+        PGvector a = new PGvector(new float[] {1, 2, 3});
+        PGvector b = new PGvector(new float[] {4, 5, 6});
+        ResultSet rs = resultSet(new Object[][] {{binary(a)}, {binary(b)}, {binary(a)}});
+
+        float[] matrix = new float[7];
+        VectorBatch batch = new VectorBatch(ColumnType.VECTOR, 3, matrix);
+        assertEquals(2, batch.capacity());
+        assertEquals(2, batch.read(rs, 1));
+        assertArrayEquals(new float[] {1, 2, 3, 4, 5, 6, 0}, matrix);
+        assertNull(batch.getIds());
+        assertEquals(0, batch.read(rs, 1));
+
+        batch.clear();
+        assertEquals(1, batch.read(rs, 1));
+        assertEquals(0, batch.read(resultSet(new Object[0][]), 1));
+    }
+
+    @Test
+    void testHalfvec() throws SQLException {
+        PGhalfvec a = new PGhalfvec(new float[] {1.5f, 2, 3});
+        byte[] bytes = new byte[a.lengthInBytes()];
+        a.toBytes(bytes, 0);
+        ResultSet rs = resultSet(new Object[][] {{bytes}, {text("[4,5,6]")}});
+        VectorBatch batch = new VectorBatch(ColumnType.HALFVEC, 3, 2);
+        assertEquals(2, batch.read(rs, 1));
+        assertArrayEquals(new float[] {1.5f, 2, 3, 4, 5, 6}, batch.getMatrix());
+    }
+
+    @Test
+    void testDifferentDimensions() {
+        VectorBatch batch = new VectorBatch(ColumnType.VECTOR, 2, 2);
+        SQLException exception = assertThrows(SQLException.class, () -> batch.read(resultSet(new Object[][] {{text("[1,2,3]")}}), 1));
+        assertEquals("expected 2 dimensions, got 3", exception.getMessage());
+
+        exception = assertThrows(SQLException.class, () -> batch.read(resultSet(new Object[][] {{binary(new PGvector(new float[] {1}))}}), 1));
+        assertEquals("expected 2 dimensions, got 1", exception.getMessage());
+    }
+
+    @Test
+    void testInvalid() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new VectorBatch(ColumnType.BIT, 3, 1));
+        assertEquals("unsupported type bit", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> new VectorBatch(ColumnType.VECTOR, 3, 0));
+        assertEquals("expected capacity to be at least 1", exception.getMessage());
+    }
+
+    private static byte[] text(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] binary(PGvector v) {
+        byte[] bytes = new byte[v.lengthInBytes()];
+        v.toBytes(bytes, 0);
+        return bytes;
+    }
+
+    // only the methods used by VectorBatch
+    private static ResultSet resultSet(Object[][] rows) {
+        int[] row = new int[] {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    row[0]++;
+                    return row[0] < rows.length;
+                case "getBytes":
+                case "getLong":
+                case "getDouble":
+                    return rows[row[0]][(int) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.pgvector;
+
+import java.sql.SQLException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VectorBlockTest {
+    @Test
+    void testVector() throws SQLException {
+        VectorBlock block = new VectorBlock(ColumnType.VECTOR, 3);
+        assertEquals(0, block.add(new float[] {1, 2, 3}));
+        assertEquals(1, block.add(new PGvector(new float[] {4, 5, 6})));
+
+        PGvector vec = new PGvector(new float[] {7, 8, 9});
+        byte[] bytes = new byte[1 + vec.lengthInBytes()];
+        vec.toBytes(bytes, 1);
+        assertEquals(2, block.addBinary(bytes, 1));
+        assertEquals(3, block.size());
+
+        assertArrayEquals(new float[] {4, 5, 6}, block.get(1, new float[3]));
+
+        VectorBlock.View view = block.view();
+        assertSame(view, view.moveTo(2));
+        assertEquals(2, view.getIndex());
+        assertEquals(8, view.get(1));
+
+        byte[] out = new byte[block.lengthInBytes()];
+        view.toBytes(out, 0);
+        PGvector copy = new PGvector();
+        copy.setByteValue(out, 0);
+        assertArrayEquals(new float[] {7, 8, 9}, copy.toArray());
+    }
+
+    @Test
+    void testHalfvec() {
+        VectorBlock block = new VectorBlock(ColumnType.HALFVEC, 2);
+        block.add(new PGhalfvec(new float[] {1.5f, 0.1f}));
+        assertArrayEquals(new float[] {1.5f, HalfFloat.toFloat(HalfFloat.fromFloat(0.1f))}, block.get(0, new float[2]));
+
+        byte[] out = new byte[block.lengthInBytes()];
+        block.toBytes(0, out, 0);
+        byte[] expected = new byte[out.length];
+        new PGhalfvec(new float[] {1.5f, 0.1f}).toBytes(expected, 0);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    void testBit() throws SQLException {
+        VectorBlock block = new VectorBlock(ColumnType.BIT, 9);
+        PGbit bit = new PGbit(new boolean[] {false, true, false, true, false, false, false, false, true});
+        block.add(bit);
+
+        byte[] bytes = new byte[bit.lengthInBytes()];
+        bit.toBytes(bytes, 0);
+        block.addBinary(bytes, 0);
+
+        VectorBlock.View view = block.view().moveTo(1);
+        assertFalse(view.getBit(0));
+        assertTrue(view.getBit(1));
+        assertTrue(view.getBit(8));
+        assertArrayEquals(bit.toByteArray(), block.getBits(0, new byte[2]));
+
+        double[] distances = new double[2];
+        block.distances(DistanceOperator.HAMMING, new PGbit(new boolean[9]), distances);
+        assertArrayEquals(new double[] {3, 3}, distances);
+    }
+
+    @Test
+    void testManyChunks() {
+        // two rows per chunk
+        int dimensions = 1 << 21;
+        VectorBlock block = new VectorBlock(ColumnType.VECTOR, dimensions);
+        float[] v = new float[dimensions];
+        for (int i = 0; i < 5; i++) {
+            v[0] = i;
+            v[dimensions - 1] = -i;
+            block.add(v);
+        }
+        VectorBlock.View view = block.view();
+        for (int i = 0; i < 5; i++) {
+            view.moveTo(i);
+            assertEquals(i, view.get(0));
+            assertEquals(-i, view.get(dimensions - 1));
+        }
+    }
+
+    @Test
+    void testDistances() {
+        Random random = new Random(42);
+        VectorBlock block = new VectorBlock(ColumnType.VECTOR, 16);
+        float[][] vectors = new float[100][16];
+        for (float[] v : vectors) {
+            for (int i = 0; i < v.length; i++) {
+                v[i] = random.nextFloat();
+            }
+            block.add(v);
+        }
+        float[] query = vectors[0];
+        for (DistanceOperator op : new DistanceOperator[] {DistanceOperator.L2, DistanceOperator.INNER_PRODUCT, DistanceOperator.COSINE, DistanceOperator.L1}) {
+            double[] expected = new double[vectors.length];
+            op.distances(query, vectors, expected);
+            double[] distances = new double[block.size()];
+            block.distances(op, query, distances);
+            assertArrayEquals(expected, distances);
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        VectorBlock block = new VectorBlock(ColumnType.VECTOR, 3);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> block.add(new PGvector(new float[] {1, 2})));
+        assertEquals("expected 3 dimensions, got 2", exception.getMessage());
+
+        exception = assertThrows(IllegalArgumentException.class, () -> block.add(new PGbit(new boolean[3])));
+        assertEquals("expected vector, got bit", exception.getMessage());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> block.get(0, new float[3]));
+        assertThrows(IllegalStateException.class, () -> block.view().get(0));
+
+        exception = assertThrows(IllegalArgumentException.class, () -> new VectorBlock(ColumnType.SPARSEVEC, 3));
+        assertEquals("unsupported type sparsevec", exception.getMessage());
+    }
+}
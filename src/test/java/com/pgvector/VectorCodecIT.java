@@ -0,0 +1,21 @@
+package com.pgvector;
+
+import java.lang.reflect.Field;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// runs the codec tests against the multi-release JAR with the failsafe plugin,
+// which puts the packaged JAR on the class path instead of target/classes
+public class VectorCodecIT extends VectorCodecTest {
+    @Test
+    void testVersionedClass() {
+        boolean varHandles = false;
+        for (Field field : VectorCodec.class.getDeclaredFields()) {
+            if (field.getType().getName().equals("java.lang.invoke.VarHandle")) {
+                varHandles = true;
+            }
+        }
+        assertTrue(varHandles, "expected the Java 9 version of VectorCodec");
+    }
+}
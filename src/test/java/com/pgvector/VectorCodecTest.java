@@ -0,0 +1,67 @@
+package com.pgvector;
+
+import java.util.Random;
+import org.postgresql.util.ByteConverter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VectorCodecTest {
+    static int[] LENGTHS = new int[] {0, 1, 31, 32, 1000};
+
+    @Test
+    void testFloats() {
+        Random random = new Random(42);
+        for (int n : LENGTHS) {
+            float[] v = new float[n + 2];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = Float.intBitsToFloat(random.nextInt());
+            }
+
+            byte[] bytes = new byte[3 + n * 4];
+            VectorCodec.writeFloats(v, 1, bytes, 3, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(Float.floatToRawIntBits(v[i + 1]), ByteConverter.int4(bytes, 3 + i * 4));
+            }
+
+            float[] out = new float[n + 1];
+            VectorCodec.readFloats(bytes, 3, out, 1, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(Float.floatToRawIntBits(v[i + 1]), Float.floatToRawIntBits(out[i + 1]));
+            }
+        }
+    }
+
+    @Test
+    void testInts() {
+        Random random = new Random(42);
+        for (int n : LENGTHS) {
+            int[] v = new int[n];
+            for (int i = 0; i < n; i++) {
+                v[i] = random.nextInt();
+            }
+
+            byte[] bytes = new byte[1 + n * 4];
+            VectorCodec.writeInts(v, 0, bytes, 1, n);
+            for (int i = 0; i < n; i++) {
+                assertEquals(v[i], ByteConverter.int4(bytes, 1 + i * 4));
+            }
+
+            int[] out = new int[n];
+            VectorCodec.readInts(bytes, 1, out, 0, n);
+            assertArrayEquals(v, out);
+        }
+    }
+
+    @Test
+    void testOutOfRange() {
+        for (int n : new int[] {1, 32}) {
+            byte[] bytes = new byte[n * 4];
+            assertThrows(IndexOutOfBoundsException.class, () -> VectorCodec.writeFloats(new float[n], 0, bytes, 1, n));
+            assertThrows(IndexOutOfBoundsException.class, () -> VectorCodec.readInts(bytes, 1, new int[n], 0, n));
+            assertArrayEquals(new byte[n * 4], bytes);
+        }
+    }
+}